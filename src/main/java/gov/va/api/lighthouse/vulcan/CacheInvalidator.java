@@ -0,0 +1,267 @@
+package gov.va.api.lighthouse.vulcan;
+
+import static java.util.stream.Collectors.groupingBy;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Singular;
+import lombok.Value;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Evicts cached search information when entities are written, so caches can use long time to live
+ * values. Writes are usually reported by InvalidatingEntityListener.
+ *
+ * <p>By default, every search of the written entity type, or any of its superclasses, is evicted.
+ * Tags narrow this down for exact match parameters. A tag names a search parameter and how to read
+ * its value from an entity. A search that uses a tagged parameter is only evicted if none of its
+ * values can be shown to differ from the value of the written entity before and after the write.
+ * Strings are compared ignoring case, numbers by value, and booleans and enums by name. Other
+ * values, and token values with a system, are never shown to differ.
+ *
+ * <p>Values before an update are remembered when entities are loaded in a read-write transaction,
+ * by entity identity, for the duration of the transaction. Loads in read-only transactions or
+ * outside of transactions are not remembered, and updates of entities whose values are not known
+ * evict the entity type.
+ *
+ * <p>Evictions happen when the write is flushed and again when the transaction completes, so
+ * searches running concurrently with the transaction cannot leave stale entries behind.
+ */
+public class CacheInvalidator {
+  /** The names of a class and its superclasses, any of which searches may be configured for. */
+  private static final ClassValue<Set<String>> TYPE_NAMES =
+      new ClassValue<>() {
+        @Override
+        protected Set<String> computeValue(Class<?> type) {
+          Set<String> names = new HashSet<>();
+          for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            names.add(c.getName());
+          }
+          return Set.copyOf(names);
+        }
+      };
+
+  private final List<SearchCache> caches;
+
+  private final Map<Class<?>, List<Tag<?>>> tags;
+
+  /** The tags of a class, inherited from the nearest tagged superclass, or null if untagged. */
+  private final ClassValue<List<Tag<?>>> tagsOfClass =
+      new ClassValue<>() {
+        @Override
+        protected List<Tag<?>> computeValue(Class<?> type) {
+          for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            List<Tag<?>> classTags = tags.get(c);
+            if (classTags != null) {
+              return classTags;
+            }
+          }
+          return null;
+        }
+      };
+
+  @Builder
+  private CacheInvalidator(@Singular List<SearchCache> caches, @Singular List<Tag<?>> tags) {
+    this.caches = List.copyOf(caches);
+    this.tags = Map.copyOf(tags.stream().collect(groupingBy(Tag::entityType)));
+  }
+
+  /** Return true if the search cannot match the entity in any of the states. */
+  private static boolean excludes(
+      SearchFingerprint fingerprint, Tag<?> tag, List<Map<String, Object>> states) {
+    Set<String> values = fingerprint.valuesOf(tag.parameter());
+    if (values.isEmpty()) {
+      return false;
+    }
+    for (Map<String, Object> state : states) {
+      Object entityValue = state.get(tag.parameter());
+      for (String value : values) {
+        if (mightMatch(value, entityValue)) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Return false only if the search value certainly does not match the entity value. Comparisons
+   * that cannot be made exactly are assumed to match, so the search is evicted.
+   */
+  private static boolean mightMatch(String searchValue, Object entityValue) {
+    if (entityValue == null) {
+      return false;
+    }
+    if (searchValue.indexOf('|') >= 0) {
+      return true;
+    }
+    if (entityValue instanceof CharSequence) {
+      return searchValue.equalsIgnoreCase(entityValue.toString());
+    }
+    if (entityValue instanceof Enum<?>) {
+      return searchValue.equalsIgnoreCase(((Enum<?>) entityValue).name())
+          || searchValue.equalsIgnoreCase(entityValue.toString());
+    }
+    if (entityValue instanceof Boolean) {
+      return searchValue.equalsIgnoreCase(entityValue.toString());
+    }
+    if (entityValue instanceof Integer
+        || entityValue instanceof Long
+        || entityValue instanceof Short
+        || entityValue instanceof Byte
+        || entityValue instanceof BigDecimal) {
+      try {
+        return new BigDecimal(searchValue).compareTo(new BigDecimal(entityValue.toString())) == 0;
+      } catch (NumberFormatException e) {
+        return true;
+      }
+    }
+    return true;
+  }
+
+  /** Evict searches matching the predicate now and, if in a transaction, after it completes. */
+  private void evict(Predicate<SearchFingerprint> affected) {
+    caches.forEach(cache -> cache.invalidateIf(affected));
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+              caches.forEach(cache -> cache.invalidateIf(affected));
+            }
+          });
+    }
+  }
+
+  /** Record that the entity was inserted. */
+  public void entityInserted(@NonNull Object entity) {
+    written(entity, null, valuesOf(entity));
+  }
+
+  /**
+   * Remember the tagged values of the entity, so later updates in the same read-write transaction
+   * can be narrowed down. Entities without tags and loads in read-only transactions cost nothing.
+   */
+  public void entityLoaded(@NonNull Object entity) {
+    if (tagsOfClass.get(entity.getClass()) == null) {
+      return;
+    }
+    Map<Object, Map<String, Object>> loaded = loadedValuesOfTransaction(true);
+    if (loaded != null) {
+      loaded.put(entity, valuesOf(entity));
+    }
+  }
+
+  /** Record that the entity was removed. */
+  public void entityRemoved(@NonNull Object entity) {
+    Map<Object, Map<String, Object>> loaded = loadedValuesOfTransaction(false);
+    Map<String, Object> before = loaded == null ? null : loaded.remove(entity);
+    if (before == null) {
+      invalidate(entity.getClass());
+      return;
+    }
+    written(entity, before, valuesOf(entity));
+  }
+
+  /** Record that the entity was updated. */
+  public void entityUpdated(@NonNull Object entity) {
+    Map<String, Object> after = valuesOf(entity);
+    Map<Object, Map<String, Object>> loaded = loadedValuesOfTransaction(false);
+    Map<String, Object> before = after == null || loaded == null ? null : loaded.put(entity, after);
+    if (before == null) {
+      invalidate(entity.getClass());
+      return;
+    }
+    written(entity, before, after);
+  }
+
+  /** Evict every search of the entity type or any of its superclasses. */
+  public void invalidate(Class<?> entityType) {
+    Set<String> typeNames = TYPE_NAMES.get(entityType);
+    evict(fingerprint -> typeNames.contains(fingerprint.entityType()));
+  }
+
+  /**
+   * Return the values loaded in the current read-write transaction by entity identity, or null if
+   * there is no such transaction. The values are forgotten when the transaction completes.
+   */
+  @SuppressWarnings("unchecked")
+  private Map<Object, Map<String, Object>> loadedValuesOfTransaction(boolean create) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()
+        || TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+      return null;
+    }
+    var loaded =
+        (Map<Object, Map<String, Object>>) TransactionSynchronizationManager.getResource(this);
+    if (loaded == null && create) {
+      loaded = new IdentityHashMap<>();
+      TransactionSynchronizationManager.bindResource(this, loaded);
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+              TransactionSynchronizationManager.unbindResourceIfPossible(CacheInvalidator.this);
+            }
+          });
+    }
+    return loaded;
+  }
+
+  /** Return the tagged values of the entity by parameter, or null if it has no tags. */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private Map<String, Object> valuesOf(Object entity) {
+    List<Tag<?>> entityTags = tagsOfClass.get(entity.getClass());
+    if (entityTags == null) {
+      return null;
+    }
+    Map<String, Object> values = new HashMap<>();
+    for (Tag tag : entityTags) {
+      values.put(tag.parameter(), tag.value().apply(entity));
+    }
+    return values;
+  }
+
+  /**
+   * Evict searches of the entity type that could match the entity with either the before or after
+   * values. Searches are unaffected if any tagged parameter has values matching neither.
+   */
+  private void written(Object entity, Map<String, Object> before, Map<String, Object> after) {
+    Class<?> entityType = entity.getClass();
+    if (after == null) {
+      invalidate(entityType);
+      return;
+    }
+    List<Map<String, Object>> states = new ArrayList<>(2);
+    states.add(after);
+    if (before != null) {
+      states.add(before);
+    }
+    Set<String> typeNames = TYPE_NAMES.get(entityType);
+    List<Tag<?>> entityTags = tagsOfClass.get(entityType);
+    evict(
+        fingerprint ->
+            typeNames.contains(fingerprint.entityType())
+                && entityTags.stream().noneMatch(tag -> excludes(fingerprint, tag, states)));
+  }
+
+  /** An exact match search parameter and how to read its value from an entity. */
+  @Value(staticConstructor = "of")
+  public static class Tag<E> {
+    @NonNull Class<E> entityType;
+
+    @NonNull String parameter;
+
+    @NonNull Function<E, ?> value;
+  }
+}
@@ -4,12 +4,20 @@ package gov.va.api.lighthouse.vulcan;
  * This exception can be thrown by Mapping instance when attempting to build specifications to short
  * circuit searching the database. This exception means that we already know, even before searching
  * the database that no results will be found.
+ *
+ * <p>Short circuits are expected and frequent, so stack traces are not captured.
  */
 public class CircuitBreaker extends RuntimeException {
   public CircuitBreaker(String message) {
     super(message);
   }
 
+  /** Stack traces are not captured. */
+  @Override
+  public synchronized Throwable fillInStackTrace() {
+    return this;
+  }
+
   /** Create a new exception for a parameter that has been repeated to much. */
   public static CircuitBreaker noParametersSpecified() {
     return new CircuitBreaker("No parameters specified.");
@@ -18,7 +26,19 @@ public class CircuitBreaker extends RuntimeException {
   /** Create a new exception for bad value, like a number that cannot be parsed. */
   public static CircuitBreaker noResultsWillBeFound(
       String parameter, String value, String message) {
-    return new CircuitBreaker(
-        String.format("No results will be found for %s = %s : %s", parameter, value, message));
+    return new CircuitBreaker(noResultsWillBeFoundMessage(parameter, value, message));
+  }
+
+  static String noResultsWillBeFoundMessage(String parameter, String value, String message) {
+    return String.format("No results will be found for %s = %s : %s", parameter, value, message);
+  }
+
+  /** Create a new exception for a search that can never match, regardless of the data. */
+  public static CircuitBreaker unsatisfiable(String message) {
+    return new CircuitBreaker(unsatisfiableMessage(message));
+  }
+
+  static String unsatisfiableMessage(String message) {
+    return "No results will be found: " + message;
   }
 }
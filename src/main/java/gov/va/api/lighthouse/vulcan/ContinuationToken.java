@@ -0,0 +1,40 @@
+package gov.va.api.lighthouse.vulcan;
+
+import java.time.Instant;
+import java.util.List;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+
+/**
+ * State carried from one request to the next by paging links when continuation tokens are enabled.
+ * Tokens are encoded and signed by ContinuationTokens, clients only ever see opaque strings.
+ */
+@Value
+@Builder(toBuilder = true)
+public class ContinuationToken {
+  /** The page requested with this token. */
+  int page;
+
+  /** The number of records per page. */
+  int count;
+
+  /** Identifies the search the token was issued for, see ContinuationTokens.digestOf. */
+  long searchDigest;
+
+  @NonNull Instant issued;
+
+  /** The accurate total when the token was issued, or null if it was not known. */
+  Long totalRecords;
+
+  /**
+   * The sort key values of the last record before the requested page. This is empty if the
+   * position is not known or the sort cannot be used to seek.
+   */
+  @NonNull @Builder.Default List<Object> position = List.of();
+
+  /** Return a copy without any state that should not be reused, keeping only the page. */
+  public ContinuationToken withoutReusableState() {
+    return toBuilder().totalRecords(null).position(List.of()).build();
+  }
+}
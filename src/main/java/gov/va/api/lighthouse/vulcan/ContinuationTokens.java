@@ -0,0 +1,222 @@
+package gov.va.api.lighthouse.vulcan;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Encodes and verifies opaque continuation tokens used in paging links. Tokens are compact,
+ * versioned, binary structures that are signed with HMAC-SHA256 and Base64 URL encoded. Clients
+ * cannot forge or modify them, but they are not encrypted, so do not put secrets in them.
+ *
+ * <p>Tokens older than the maximum age are still accepted, but only the page they refer to is
+ * used. Totals and positions they carry are discarded since they may be stale.
+ */
+public class ContinuationTokens {
+  static final byte VERSION = 1;
+
+  static final Duration DEFAULT_MAX_AGE = Duration.ofMinutes(15);
+
+  private static final String ALGORITHM = "HmacSHA256";
+
+  private static final int SIGNATURE_LENGTH = 16;
+
+  private static final byte STRING = 'S';
+
+  private static final byte LONG = 'L';
+
+  private static final byte INTEGER = 'I';
+
+  private static final byte INSTANT = 'T';
+
+  private final SecretKeySpec key;
+
+  private final Duration maxAge;
+
+  private final Clock clock;
+
+  /**
+   * Create a new instance. The secret is required and should be at least 32 random bytes shared by
+   * every instance of the application. If not specified, the maximum age is 15 minutes.
+   */
+  @Builder
+  private ContinuationTokens(@NonNull byte[] secret, Duration maxAge, Clock clock) {
+    if (secret.length == 0) {
+      throw new IllegalArgumentException("secret must not be empty");
+    }
+    this.key = new SecretKeySpec(secret, ALGORITHM);
+    this.maxAge = maxAge == null ? DEFAULT_MAX_AGE : maxAge;
+    this.clock = clock == null ? Clock.systemUTC() : clock;
+  }
+
+  /**
+   * Compute a digest of everything that determines the records matched and their order, i.e. the
+   * whole fingerprint, including the configuration identity and search scope, and the sort. A token
+   * is only valid for a request with the same digest, so tokens of one scope cannot be used to
+   * learn the totals or positions of another.
+   */
+  @SneakyThrows
+  public static long digestOf(SearchFingerprint fingerprint, Sort sort) {
+    MessageDigest sha = MessageDigest.getInstance("SHA-256");
+    String identity =
+        String.join(
+            "\0",
+            fingerprint.entityType(),
+            fingerprint.configuration(),
+            fingerprint.scope(),
+            fingerprint.parameters(),
+            sort.toString());
+    return ByteBuffer.wrap(sha.digest(identity.getBytes(StandardCharsets.UTF_8))).getLong();
+  }
+
+  @SuppressWarnings("EnhancedSwitchMigration")
+  private static Object readValue(DataInputStream in) throws IOException {
+    byte type = in.readByte();
+    switch (type) {
+      case STRING:
+        return in.readUTF();
+      case LONG:
+        return in.readLong();
+      case INTEGER:
+        return in.readInt();
+      case INSTANT:
+        return Instant.ofEpochSecond(in.readLong(), in.readInt());
+      default:
+        throw new IllegalArgumentException("Unknown position type: " + type);
+    }
+  }
+
+  /** Return true if the value can be stored as a token position. */
+  public static boolean isSupportedPositionValue(Object value) {
+    return value instanceof String
+        || value instanceof Long
+        || value instanceof Integer
+        || value instanceof Instant;
+  }
+
+  private static void writeValue(DataOutputStream out, Object value) throws IOException {
+    if (value instanceof String) {
+      out.writeByte(STRING);
+      out.writeUTF((String) value);
+    } else if (value instanceof Long) {
+      out.writeByte(LONG);
+      out.writeLong((Long) value);
+    } else if (value instanceof Integer) {
+      out.writeByte(INTEGER);
+      out.writeInt((Integer) value);
+    } else if (value instanceof Instant) {
+      out.writeByte(INSTANT);
+      out.writeLong(((Instant) value).getEpochSecond());
+      out.writeInt(((Instant) value).getNano());
+    } else {
+      throw new IllegalArgumentException("Unsupported position type: " + value.getClass());
+    }
+  }
+
+  /**
+   * Verify and decode a token. An IllegalArgumentException is thrown if the token is malformed,
+   * has an unsupported version, or the signature does not match.
+   */
+  public ContinuationToken decode(String value) {
+    byte[] bytes;
+    try {
+      bytes = Base64.getUrlDecoder().decode(value);
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Token is not Base64 URL encoded", e);
+    }
+    if (bytes.length <= SIGNATURE_LENGTH) {
+      throw new IllegalArgumentException("Token is too short");
+    }
+    byte[] payload = Arrays.copyOfRange(bytes, 0, bytes.length - SIGNATURE_LENGTH);
+    byte[] signature = Arrays.copyOfRange(bytes, bytes.length - SIGNATURE_LENGTH, bytes.length);
+    if (!MessageDigest.isEqual(signature, sign(payload))) {
+      throw new IllegalArgumentException("Token signature does not match");
+    }
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+      byte version = in.readByte();
+      if (version != VERSION) {
+        throw new IllegalArgumentException("Unsupported token version: " + version);
+      }
+      var token =
+          ContinuationToken.builder()
+              .page(in.readInt())
+              .count(in.readInt())
+              .searchDigest(in.readLong())
+              .issued(Instant.ofEpochSecond(in.readLong()));
+      long totalRecords = in.readLong();
+      if (totalRecords >= 0) {
+        token.totalRecords(totalRecords);
+      }
+      int positionSize = in.readUnsignedByte();
+      List<Object> position = new ArrayList<>(positionSize);
+      for (int i = 0; i < positionSize; i++) {
+        position.add(readValue(in));
+      }
+      ContinuationToken decoded = token.position(List.copyOf(position)).build();
+      return isFresh(decoded) ? decoded : decoded.withoutReusableState();
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Token is malformed", e);
+    }
+  }
+
+  /** Sign and encode the token. */
+  public String encode(ContinuationToken token) {
+    if (token.position().size() > 255) {
+      throw new IllegalArgumentException("Too many position values");
+    }
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeByte(VERSION);
+      out.writeInt(token.page());
+      out.writeInt(token.count());
+      out.writeLong(token.searchDigest());
+      out.writeLong(token.issued().getEpochSecond());
+      out.writeLong(token.totalRecords() == null ? -1 : token.totalRecords());
+      out.writeByte(token.position().size());
+      for (Object value : token.position()) {
+        writeValue(out, value);
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to write token", e);
+    }
+    byte[] payload = bytes.toByteArray();
+    byte[] signature = sign(payload);
+    byte[] signed = Arrays.copyOf(payload, payload.length + SIGNATURE_LENGTH);
+    System.arraycopy(signature, 0, signed, payload.length, SIGNATURE_LENGTH);
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(signed);
+  }
+
+  private boolean isFresh(ContinuationToken token) {
+    return token.issued().plus(maxAge).isAfter(clock.instant());
+  }
+
+  /** The current time, used when issuing tokens. */
+  public Instant now() {
+    return clock.instant();
+  }
+
+  @SneakyThrows
+  private byte[] sign(byte[] payload) {
+    Mac mac = Mac.getInstance(ALGORITHM);
+    mac.init(key);
+    return Arrays.copyOf(mac.doFinal(payload), SIGNATURE_LENGTH);
+  }
+}
@@ -0,0 +1,240 @@
+package gov.va.api.lighthouse.vulcan;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.QueryTimeoutException;
+import lombok.Builder;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Collects count queries that arrive within a short window and executes them as a single
+ * statement with one conditional count per search. Each caller receives its own count. This trades
+ * a few milliseconds of latency for fewer connection checkouts and round trips when many small
+ * counts are requested at once.
+ *
+ * <p>Counts are only batched under load. A count that arrives while no other count is in progress
+ * executes immediately. Otherwise, the first count of a batch waits for the window to close, or
+ * for the batch to fill, and then executes the statement with its own EntityManager. Counts are
+ * only batched with counts of the same entity type, EntityManagerFactory, deadline, and statement
+ * timeout. Specifications that require joins or distinct results cannot share a statement, in
+ * which case each caller counts on its own. Callers that wait longer than the window plus the
+ * deadline, or the maximum wait if there is no deadline, also count on their own, as does every
+ * caller if the shared statement fails. Share a single instance between Vulcan instances, e.g. as
+ * a bean.
+ */
+@Slf4j
+public class CountBatcher {
+  private final Duration window;
+
+  private final int maxBatchSize;
+
+  private final Duration maxWait;
+
+  private final ConcurrentMap<BatchKey, Batch> openBatches = new ConcurrentHashMap<>();
+
+  private final AtomicInteger inProgress = new AtomicInteger();
+
+  /**
+   * Create a new batcher. If not specified, the window is 2 milliseconds, batches hold up to 50
+   * counts, and callers wait up to 30 seconds for a batch without a deadline.
+   */
+  @Builder
+  private CountBatcher(Duration window, Integer maxBatchSize, Duration maxWait) {
+    if (maxBatchSize != null && maxBatchSize < 2) {
+      throw new IllegalArgumentException("maxBatchSize must be at least 2");
+    }
+    this.window = window == null ? Duration.ofMillis(2) : window;
+    this.maxBatchSize = maxBatchSize == null ? 50 : maxBatchSize;
+    this.maxWait = maxWait == null ? Duration.ofSeconds(30) : maxWait;
+  }
+
+  /**
+   * Count the records matching the specification, sharing a statement with other counts that
+   * arrive within the window. The timeout applies to the shared statement.
+   */
+  <E> long count(
+      EntityQueries<E> queries,
+      Specification<E> specification,
+      Duration timeout,
+      Runnable whenBatched) {
+    BatchKey key =
+        new BatchKey(
+            queries.entityType(),
+            queries.entityManagerFactory(),
+            timeout,
+            queries.statementTimeout());
+    boolean alone = inProgress.incrementAndGet() == 1 && !openBatches.containsKey(key);
+    try {
+      if (alone) {
+        return queries.count(specification, timeout);
+      }
+      return countInBatch(key, queries, specification, timeout, whenBatched);
+    } finally {
+      inProgress.decrementAndGet();
+    }
+  }
+
+  private <E> long countInBatch(
+      BatchKey key,
+      EntityQueries<E> queries,
+      Specification<E> specification,
+      Duration timeout,
+      Runnable whenBatched) {
+    Pending pending = new Pending(specification);
+    Batch batch;
+    while (true) {
+      batch = openBatches.computeIfAbsent(key, k -> new Batch());
+      if (batch.add(pending)) {
+        break;
+      }
+      openBatches.remove(key, batch);
+    }
+    if (batch.leader() == pending) {
+      long deadline = System.nanoTime() + window.toNanos();
+      for (long remaining = window.toNanos();
+          remaining > 0 && !batch.isFull();
+          remaining = deadline - System.nanoTime()) {
+        LockSupport.parkNanos(remaining);
+      }
+      openBatches.remove(key, batch);
+      RuntimeException failure = execute(queries, batch.close(), timeout);
+      if (failure != null && StatementCanceller.isCancelled()) {
+        throw failure;
+      }
+    }
+    Long count = waitFor(pending.result(), timeout);
+    if (count == null) {
+      if (StatementCanceller.isCancelled()) {
+        throw new QueryTimeoutException("Statement cancelled while waiting for batched count");
+      }
+      return queries.count(specification, timeout);
+    }
+    if (batch.size() > 1) {
+      whenBatched.run();
+    }
+    return count;
+  }
+
+  /**
+   * Execute the counts of a closed batch. If the specifications cannot share a statement, or the
+   * statement fails, every caller is told to count on its own by completing with null, so that a
+   * failure caused by one caller, e.g. a cancelled request, does not fail the others. The failure,
+   * if any, is returned.
+   */
+  @SuppressWarnings("unchecked")
+  private <E> RuntimeException execute(
+      EntityQueries<E> queries, List<Pending> batch, Duration timeout) {
+    try {
+      if (batch.size() == 1) {
+        batch.get(0).result().complete(null);
+        return null;
+      }
+      List<Specification<E>> specifications = new ArrayList<>(batch.size());
+      for (Pending pending : batch) {
+        specifications.add((Specification<E>) pending.specification());
+      }
+      long[] counts = queries.countEach(specifications, timeout);
+      for (int i = 0; i < batch.size(); i++) {
+        batch.get(i).result().complete(counts == null ? null : counts[i]);
+      }
+      return null;
+    } catch (RuntimeException e) {
+      log.info("Batched count failed, counting individually: {}", e.getMessage());
+      batch.forEach(pending -> pending.result().complete(null));
+      return e;
+    }
+  }
+
+  /**
+   * Wait for the count of the batch, returning null if the caller should count on its own because
+   * the batch could not share a statement or did not complete in time.
+   */
+  private Long waitFor(CompletableFuture<Long> result, Duration timeout) {
+    Duration limit = timeout == null ? maxWait : window.multipliedBy(2).plus(timeout);
+    try {
+      return result.get(limit.toNanos(), TimeUnit.NANOSECONDS);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    } catch (TimeoutException e) {
+      log.info("Batched count did not complete within {}, counting individually", limit);
+      return null;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return null;
+    }
+  }
+
+  /** The counts waiting for a batch to close, the first of which executes the batch. */
+  private final class Batch {
+    private final List<Pending> counts = new ArrayList<>();
+
+    private Thread leaderThread;
+
+    private boolean closed;
+
+    synchronized boolean add(Pending pending) {
+      if (closed || counts.size() >= maxBatchSize) {
+        return false;
+      }
+      if (counts.isEmpty()) {
+        leaderThread = Thread.currentThread();
+      }
+      counts.add(pending);
+      if (counts.size() == maxBatchSize) {
+        LockSupport.unpark(leaderThread);
+      }
+      return true;
+    }
+
+    synchronized List<Pending> close() {
+      closed = true;
+      return List.copyOf(counts);
+    }
+
+    synchronized boolean isFull() {
+      return counts.size() >= maxBatchSize;
+    }
+
+    synchronized Pending leader() {
+      return counts.get(0);
+    }
+
+    synchronized int size() {
+      return counts.size();
+    }
+  }
+
+  /** Counts only share a statement if they query the same database with the same limits. */
+  @Value
+  private static class BatchKey {
+    Class<?> entityType;
+
+    EntityManagerFactory entityManagerFactory;
+
+    Duration deadline;
+
+    Duration statementTimeout;
+  }
+
+  @Value
+  private static class Pending {
+    Specification<?> specification;
+
+    CompletableFuture<Long> result = new CompletableFuture<>();
+  }
+}
@@ -0,0 +1,13 @@
+package gov.va.api.lighthouse.vulcan;
+
+/**
+ * Pluggable estimation of the number of records matching a request. Estimators are used when the
+ * request asks for `_total=estimate` and are expected to be much cheaper than an exact count.
+ *
+ * @param <EntityT> The database entity being searched.
+ */
+@FunctionalInterface
+public interface CountEstimator<EntityT> {
+  /** Return an estimate for the number of records matching the context's specification. */
+  long estimate(RequestContext<EntityT> context);
+}
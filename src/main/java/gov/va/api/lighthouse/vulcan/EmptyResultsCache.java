@@ -0,0 +1,63 @@
+package gov.va.api.lighthouse.vulcan;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Predicate;
+import lombok.Builder;
+
+/**
+ * Remembers recent searches that matched no records. Such searches are answered with an empty
+ * result without querying the database until they expire. Writers should call invalidate when
+ * records are added so that searches do not keep returning nothing for up to the time to live.
+ */
+public class EmptyResultsCache implements SearchCache {
+  private final LruCache<SearchFingerprint, Boolean> searches;
+
+  @Builder
+  private EmptyResultsCache(int maxEntries, Duration timeToLive, Clock clock) {
+    searches =
+        LruCache.<SearchFingerprint, Boolean>builder()
+            .maxEntries(maxEntries)
+            .timeToLive(timeToLive)
+            .clock(clock)
+            .build();
+  }
+
+  /** Forget every search. */
+  @Override
+  public void clear() {
+    searches.clear();
+  }
+
+  /** Return true if the search recently matched no records. */
+  public boolean contains(SearchFingerprint fingerprint) {
+    return searches.get(fingerprint) != null;
+  }
+
+  /** Visit every unexpired search, e.g. to save them. */
+  void forEach(LruCache.EntryVisitor<SearchFingerprint, Boolean> visitor) {
+    searches.forEach(visitor);
+  }
+
+  /** Forget searches that match, e.g. after records they could match are written. */
+  @Override
+  public void invalidateIf(Predicate<SearchFingerprint> affected) {
+    searches.removeIf(affected);
+  }
+
+  /** Forget the search. */
+  public void invalidate(SearchFingerprint fingerprint) {
+    searches.remove(fingerprint);
+  }
+
+  /** Remember that the search matched no records. */
+  public void put(SearchFingerprint fingerprint) {
+    searches.put(fingerprint, Boolean.TRUE);
+  }
+
+  /** Restore a previously saved search that expires at the given time, or never if null. */
+  void restore(SearchFingerprint fingerprint, Instant expiration) {
+    searches.put(fingerprint, Boolean.TRUE, expiration);
+  }
+}
@@ -0,0 +1,116 @@
+package gov.va.api.lighthouse.vulcan;
+
+import static java.util.stream.Collectors.toList;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Root;
+import javax.persistence.metamodel.EntityType;
+import javax.persistence.metamodel.Metamodel;
+import javax.persistence.metamodel.SingularAttribute;
+import lombok.NonNull;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Resolves entity field names to JPA metamodel attributes. Bind each configuration at startup so
+ * that unknown field names used by its mappings or default sort fail immediately instead of at
+ * query time. Binding returns a copy of the configuration whose mappings hold the resolved
+ * attributes of their field names, so predicates do not look up attributes by name on every
+ * request. Nothing is registered globally, so configurations of different entity manager
+ * factories can be bound independently.
+ */
+public final class EntityFields {
+  private final Map<String, SingularAttribute<?, ?>> attributes;
+
+  private EntityFields(Map<String, SingularAttribute<?, ?>> attributes) {
+    this.attributes = attributes;
+  }
+
+  /** Bind the configuration using the metamodel of the entity manager factory. */
+  public static <E> VulcanConfiguration<E> bind(
+      @NonNull VulcanConfiguration<E> config,
+      @NonNull EntityManagerFactory entityManagerFactory) {
+    return bind(config, entityManagerFactory.getMetamodel());
+  }
+
+  /**
+   * Resolve the singular attributes of the configured entity type and check that every field name
+   * known to the mappings and every default sort property exists. An IllegalStateException listing
+   * the unknown field names is thrown otherwise. The returned configuration has the same settings,
+   * with mappings that use the resolved attributes.
+   */
+  public static <E> VulcanConfiguration<E> bind(
+      @NonNull VulcanConfiguration<E> config, @NonNull Metamodel metamodel) {
+    Class<E> entityType = config.entityType();
+    if (entityType == null) {
+      throw new IllegalStateException("The configuration does not have an entity type");
+    }
+    EntityType<E> model;
+    try {
+      model = metamodel.entity(entityType);
+    } catch (IllegalArgumentException e) {
+      throw new IllegalStateException(entityType.getName() + " is not an entity", e);
+    }
+    Map<String, SingularAttribute<?, ?>> attributes = new HashMap<>();
+    model.getSingularAttributes().forEach(a -> attributes.put(a.getName(), a));
+    Set<String> unknown = new TreeSet<>();
+    for (Mapping<?> mapping : config.mappings()) {
+      for (String fieldName : mapping.fieldNames()) {
+        if (!attributes.containsKey(fieldName)) {
+          unknown.add(fieldName);
+        }
+      }
+    }
+    for (Sort.Order order : config.paging().sortDefault()) {
+      if (!attributes.containsKey(order.getProperty())) {
+        unknown.add(order.getProperty());
+      }
+    }
+    if (!unknown.isEmpty()) {
+      throw new IllegalStateException(
+          entityType.getName() + " does not have fields: " + String.join(", ", unknown));
+    }
+    EntityFields fields = new EntityFields(Map.copyOf(attributes));
+    return config.toBuilder()
+        .mappings(config.mappings().stream().map(m -> m.bind(fields)).collect(toList()))
+        .build();
+  }
+
+  /**
+   * Return the path to the field of the root, using the attribute if it has been resolved and
+   * looking the field up by name otherwise.
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> Path<T> get(
+      @NonNull Root<?> root, @NonNull String fieldName, SingularAttribute<?, ?> attribute) {
+    if (attribute == null) {
+      return root.get(fieldName);
+    }
+    return ((Root<Object>) root).get((SingularAttribute<Object, T>) attribute);
+  }
+
+  /** Return the attribute of the field, or null if the entity does not have it. */
+  public SingularAttribute<?, ?> attribute(String fieldName) {
+    return attributes.get(fieldName);
+  }
+
+  /**
+   * Return the attributes of the fields by field name, leaving out fields the entity does not
+   * have.
+   */
+  public Map<String, SingularAttribute<?, ?>> attributes(Collection<String> fieldNames) {
+    Map<String, SingularAttribute<?, ?>> resolved = new HashMap<>();
+    for (String fieldName : fieldNames) {
+      SingularAttribute<?, ?> attribute = attributes.get(fieldName);
+      if (attribute != null) {
+        resolved.put(fieldName, attribute);
+      }
+    }
+    return Map.copyOf(resolved);
+  }
+}
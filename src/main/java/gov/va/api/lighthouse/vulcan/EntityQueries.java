@@ -0,0 +1,526 @@
+package gov.va.api.lighthouse.vulcan;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnitUtil;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.EntityType;
+import javax.persistence.metamodel.SingularAttribute;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Value;
+import org.hibernate.Session;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+/**
+ * Executes specification queries directly with an EntityManager. This is used when Vulcan needs
+ * more control than JpaSpecificationExecutor provides, e.g. fetching a page of records without
+ * also counting every matching record. Queries are built the same way Spring Data builds them.
+ */
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+class EntityQueries<EntityT> {
+  static final String QUERY_TIMEOUT_HINT = "javax.persistence.query.timeout";
+
+  /** The estimated size of an object header, or of a reference and its padding. */
+  private static final int OBJECT_BYTES = 16;
+
+  /** The hint that sets the JDBC fetch size of a query. */
+  static final String FETCH_SIZE_HINT = "org.hibernate.fetchSize";
+
+  /**
+   * The JDBC fetch size used while streaming records within the byte budget, so drivers that
+   * would otherwise read every row before returning the first, e.g. PostgreSQL, only buffer a few
+   * rows ahead of the budget check.
+   */
+  static final int STREAMING_FETCH_SIZE = 4;
+
+  /**
+   * Readers of the singular attributes of each entity type by attribute name, resolved from the JPA
+   * metamodel and made accessible once per entity type.
+   */
+  private static final ConcurrentMap<Class<?>, Map<String, AttributeReader>> READERS =
+      new ConcurrentHashMap<>();
+
+  @NonNull private final EntityManager entityManager;
+
+  @NonNull private final Class<EntityT> entityType;
+
+  /** Optional. Every statement that runs longer is cancelled by the database. */
+  private final Duration statementTimeout;
+
+  /** Optional. Fetching stops once the estimated size of the fetched records would exceed it. */
+  private final Long maxPageBytes;
+
+  static <E> EntityQueries<E> of(EntityManager entityManager, Class<E> entityType) {
+    return new EntityQueries<>(entityManager, entityType, null, null);
+  }
+
+  /**
+   * Estimate the bytes an attribute value holds in memory. Strings and arrays, e.g. large payload
+   * columns, dominate, other values are counted as a small object.
+   */
+  private static long estimatedBytesOfValue(Object value) {
+    if (value == null) {
+      return 0;
+    }
+    if (value instanceof CharSequence) {
+      return 2 * OBJECT_BYTES + 2L * ((CharSequence) value).length();
+    }
+    if (value instanceof byte[]) {
+      return OBJECT_BYTES + ((byte[]) value).length;
+    }
+    if (value instanceof char[]) {
+      return OBJECT_BYTES + 2L * ((char[]) value).length;
+    }
+    return OBJECT_BYTES;
+  }
+
+  private static boolean isInteger(Class<?> type) {
+    return Integer.class.equals(type) || int.class.equals(type);
+  }
+
+  private static boolean isLong(Class<?> type) {
+    return Long.class.equals(type) || long.class.equals(type);
+  }
+
+  private static Duration shorterOf(Duration a, Duration b) {
+    if (a == null) {
+      return b;
+    }
+    if (b == null) {
+      return a;
+    }
+    return a.compareTo(b) <= 0 ? a : b;
+  }
+
+  /** The JPA timeout hint is an Integer number of milliseconds. */
+  private static int timeoutMillis(Duration timeout) {
+    long seconds = timeout.getSeconds() + (timeout.getNano() > 0 ? 1 : 0);
+    return Math.toIntExact(Math.max(seconds, 1) * 1000);
+  }
+
+  /** Count the records matching the specification. */
+  long count(Specification<EntityT> specification) {
+    return count(specification, null);
+  }
+
+  /**
+   * Count the records matching the specification, asking the database to cancel the statement if
+   * it runs longer than the timeout or the statement timeout, whichever is shorter. Most drivers
+   * support whole seconds, so the hint is rounded up and a timer cancels the statement at a shorter
+   * timeout. A QueryTimeoutException is thrown if the timeout is exceeded.
+   */
+  long count(Specification<EntityT> specification, Duration timeout) {
+    TypedQuery<Long> query = withTimeout(countQuery(specification), timeout);
+    return withinDeadline(timeout, query::getSingleResult);
+  }
+
+  /**
+   * Count the records matching each specification with a single statement, e.g. select
+   * sum(case when p1 then 1 else 0 end), sum(case when p2 ...) from entity where p1 or p2. Null is
+   * returned if the specifications cannot share a statement because they join or select distinct
+   * records, which would change the counts of the others.
+   */
+  long[] countEach(List<Specification<EntityT>> specifications, Duration timeout) {
+    CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+    CriteriaQuery<Object[]> query = criteriaBuilder.createQuery(Object[].class);
+    Root<EntityT> root = query.from(entityType);
+    List<Selection<?>> counts = new ArrayList<>(specifications.size());
+    List<Predicate> predicates = new ArrayList<>(specifications.size());
+    boolean matchesEverything = false;
+    for (Specification<EntityT> specification : specifications) {
+      Predicate predicate =
+          specification == null ? null : specification.toPredicate(root, query, criteriaBuilder);
+      if (predicate == null) {
+        matchesEverything = true;
+        counts.add(criteriaBuilder.count(root));
+      } else {
+        predicates.add(predicate);
+        counts.add(
+            criteriaBuilder.sum(
+                criteriaBuilder.<Long>selectCase().when(predicate, 1L).otherwise(0L)));
+      }
+    }
+    if (query.isDistinct() || !root.getJoins().isEmpty() || !root.getFetches().isEmpty()) {
+      return null;
+    }
+    if (!matchesEverything) {
+      query.where(criteriaBuilder.or(predicates.toArray(new Predicate[0])));
+    }
+    query.multiselect(counts);
+    TypedQuery<Object[]> typedQuery = withTimeout(entityManager.createQuery(query), timeout);
+    Object[] row = withinDeadline(timeout, typedQuery::getSingleResult);
+    long[] results = new long[specifications.size()];
+    for (int i = 0; i < results.length; i++) {
+      results[i] = row[i] == null ? 0 : ((Number) row[i]).longValue();
+    }
+    return results;
+  }
+
+  /** Create, but do not execute, a count query for the specification. */
+  TypedQuery<Long> countQuery(Specification<EntityT> specification) {
+    CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+    CriteriaQuery<Long> query = criteriaBuilder.createQuery(Long.class);
+    Root<EntityT> root = query.from(entityType);
+    applyWhere(specification, root, query, criteriaBuilder);
+    query.select(
+        query.isDistinct() ? criteriaBuilder.countDistinct(root) : criteriaBuilder.count(root));
+    query.orderBy(List.of());
+    return entityManager.createQuery(query);
+  }
+
+  private void applyWhere(
+      Specification<EntityT> specification,
+      Root<EntityT> root,
+      CriteriaQuery<?> query,
+      CriteriaBuilder criteriaBuilder) {
+    if (specification == null) {
+      return;
+    }
+    Predicate predicate = specification.toPredicate(root, query, criteriaBuilder);
+    if (predicate != null) {
+      query.where(predicate);
+    }
+  }
+
+  /** The factory of the EntityManager, which identifies the database queried. */
+  EntityManagerFactory entityManagerFactory() {
+    return entityManager.getEntityManagerFactory();
+  }
+
+  /** The type of entity queried. */
+  Class<EntityT> entityType() {
+    return entityType;
+  }
+
+  /**
+   * Fetch up to limit records starting at offset. No count query is executed. If the maximum page
+   * bytes is set, records are streamed with a small fetch size and fetching stops before the record
+   * that would exceed them, except that the first record is always fetched. Drivers may still read
+   * every row up front outside of a transaction, e.g. PostgreSQL with auto commit.
+   */
+  Fetched<EntityT> fetch(Specification<EntityT> specification, Sort sort, long offset, int limit) {
+    TypedQuery<EntityT> query = withTimeout(selectQuery(specification, sort), null);
+    query.setFirstResult(Math.toIntExact(offset));
+    query.setMaxResults(limit);
+    if (maxPageBytes == null) {
+      return Fetched.of(query.getResultList(), false);
+    }
+    query.setHint(FETCH_SIZE_HINT, Math.min(limit, STREAMING_FETCH_SIZE));
+    List<EntityT> records = new ArrayList<>(limit);
+    long bytes = 0;
+    try (Stream<EntityT> results = query.getResultStream()) {
+      Iterator<EntityT> iterator = results.iterator();
+      while (iterator.hasNext()) {
+        EntityT record = iterator.next();
+        bytes += estimatedBytesOf(record);
+        if (!records.isEmpty() && bytes > maxPageBytes) {
+          return Fetched.of(records, true);
+        }
+        records.add(record);
+      }
+    }
+    return Fetched.of(records, false);
+  }
+
+  /**
+   * Fetch up to limit records, skipping offset records, that sort after the position, e.g. the
+   * sort key values of the last record of the previous page. This seeks with an index instead of
+   * skipping every record before the position.
+   */
+  Fetched<EntityT> fetchAfter(
+      Specification<EntityT> specification,
+      Sort sort,
+      List<Object> position,
+      long offset,
+      int limit) {
+    Specification<EntityT> afterPosition = after(sort, position);
+    return fetch(
+        specification == null ? afterPosition : specification.and(afterPosition),
+        sort,
+        offset,
+        limit);
+  }
+
+  /**
+   * Create a keyset specification matching records that sort after the position. For orders o1..on
+   * and values v1..vn, this is (o1 > v1) or (o1 = v1 and o2 > v2) or ..., with less than used for
+   * descending orders.
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private Specification<EntityT> after(Sort sort, List<Object> position) {
+    List<Sort.Order> orders = sort.toList();
+    return (root, criteriaQuery, criteriaBuilder) -> {
+      List<Predicate> alternatives = new ArrayList<>(orders.size());
+      for (int i = 0; i < orders.size(); i++) {
+        List<Predicate> conjunction = new ArrayList<>(i + 1);
+        for (int j = 0; j < i; j++) {
+          conjunction.add(
+              criteriaBuilder.equal(root.get(orders.get(j).getProperty()), position.get(j)));
+        }
+        Expression<Comparable> path = root.get(orders.get(i).getProperty());
+        Comparable value = (Comparable) position.get(i);
+        conjunction.add(
+            orders.get(i).isAscending()
+                ? criteriaBuilder.greaterThan(path, value)
+                : criteriaBuilder.lessThan(path, value));
+        alternatives.add(criteriaBuilder.and(conjunction.toArray(new Predicate[0])));
+      }
+      return criteriaBuilder.or(alternatives.toArray(new Predicate[0]));
+    };
+  }
+
+  /**
+   * Fetch the records with the given IDs, in the same order as the IDs. IDs of records that no
+   * longer exist are skipped.
+   */
+  List<EntityT> fetchById(long[] ids) {
+    SingularAttribute<? super EntityT, ?> id = numericIdAttribute();
+    if (id == null) {
+      throw new IllegalStateException(entityType.getName() + " does not have a numeric ID");
+    }
+    if (ids.length == 0) {
+      return List.of();
+    }
+    boolean isInteger = isInteger(id.getJavaType());
+    List<Object> values = new ArrayList<>(ids.length);
+    for (long value : ids) {
+      values.add(isInteger ? (Object) Math.toIntExact(value) : (Object) value);
+    }
+    CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+    CriteriaQuery<EntityT> query = criteriaBuilder.createQuery(entityType);
+    Root<EntityT> root = query.from(entityType);
+    query.select(root).where(root.get(id.getName()).in(values));
+    PersistenceUnitUtil util = entityManager.getEntityManagerFactory().getPersistenceUnitUtil();
+    Map<Long, EntityT> byId = new HashMap<>(2 * ids.length);
+    for (EntityT entity : withTimeout(entityManager.createQuery(query), null).getResultList()) {
+      byId.put(((Number) util.getIdentifier(entity)).longValue(), entity);
+    }
+    List<EntityT> ordered = new ArrayList<>(ids.length);
+    for (long value : ids) {
+      EntityT entity = byId.get(value);
+      if (entity != null) {
+        ordered.add(entity);
+      }
+    }
+    return ordered;
+  }
+
+  /**
+   * Fetch the IDs of up to limit records matching the specification in sort order. Null is
+   * returned if the entity does not have a single numeric ID.
+   */
+  long[] ids(Specification<EntityT> specification, Sort sort, int limit) {
+    SingularAttribute<? super EntityT, ?> id = numericIdAttribute();
+    if (id == null) {
+      return null;
+    }
+    CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+    CriteriaQuery<Number> query = criteriaBuilder.createQuery(Number.class);
+    Root<EntityT> root = query.from(entityType);
+    applyWhere(specification, root, query, criteriaBuilder);
+    query.select(root.<Number>get(id.getName()));
+    if (sort != null && sort.isSorted()) {
+      query.orderBy(QueryUtils.toOrders(sort, root, criteriaBuilder));
+    }
+    List<Number> results =
+        withTimeout(entityManager.createQuery(query), null).setMaxResults(limit).getResultList();
+    long[] ids = new long[results.size()];
+    for (int i = 0; i < ids.length; i++) {
+      ids[i] = results.get(i).longValue();
+    }
+    return ids;
+  }
+
+  /**
+   * Estimate the bytes the entity holds in memory from the values of its singular attributes.
+   * Associations are counted as references, and attributes that are not loaded, e.g. lazy large
+   * objects, are skipped, so estimating never loads them.
+   */
+  long estimatedBytesOf(EntityT entity) {
+    PersistenceUnitUtil util = entityManager.getEntityManagerFactory().getPersistenceUnitUtil();
+    long bytes = OBJECT_BYTES;
+    for (AttributeReader reader : readers().values()) {
+      bytes += OBJECT_BYTES;
+      if (!reader.association() && util.isLoaded(entity, reader.name())) {
+        bytes += estimatedBytesOfValue(reader.read(entity));
+      }
+    }
+    return bytes;
+  }
+
+  /** The single ID attribute of the entity if it is a long or int, otherwise null. */
+  private SingularAttribute<? super EntityT, ?> numericIdAttribute() {
+    EntityType<EntityT> model = entityManager.getMetamodel().entity(entityType);
+    if (!model.hasSingleIdAttribute()) {
+      return null;
+    }
+    return model.getSingularAttributes().stream()
+        .filter(SingularAttribute::isId)
+        .filter(id -> isLong(id.getJavaType()) || isInteger(id.getJavaType()))
+        .findFirst()
+        .orElse(null);
+  }
+
+  /**
+   * Determine the sort key values of the entity that can be used to seek to the records after it.
+   * An empty list is returned if the sort cannot be used to seek. Seeking requires the sort to
+   * include the entity ID, so that the order is unique, and every sort key to be a non-null value
+   * of a type that continuation tokens support.
+   */
+  List<Object> positionOf(EntityT entity, Sort sort) {
+    if (entity == null || sort == null || sort.isUnsorted()) {
+      return List.of();
+    }
+    EntityType<EntityT> model = entityManager.getMetamodel().entity(entityType);
+    boolean includesId = false;
+    List<Object> position = new ArrayList<>();
+    for (Sort.Order order : sort) {
+      Attribute<? super EntityT, ?> attribute;
+      try {
+        attribute = model.getAttribute(order.getProperty());
+      } catch (IllegalArgumentException e) {
+        return List.of();
+      }
+      if (!(attribute instanceof SingularAttribute)) {
+        return List.of();
+      }
+      includesId |= ((SingularAttribute<? super EntityT, ?>) attribute).isId();
+      AttributeReader reader = readers().get(attribute.getName());
+      Object value = reader == null ? null : reader.read(entity);
+      if (!ContinuationTokens.isSupportedPositionValue(value)) {
+        return List.of();
+      }
+      position.add(value);
+    }
+    return includesId ? List.copyOf(position) : List.of();
+  }
+
+  /** The attribute readers of the entity type, resolved on first use. */
+  private Map<String, AttributeReader> readers() {
+    return READERS.computeIfAbsent(
+        entityType, type -> AttributeReader.allOf(entityManager.getMetamodel().entity(type)));
+  }
+
+  /** Create, but do not execute, a select query for the specification. */
+  TypedQuery<EntityT> selectQuery(Specification<EntityT> specification, Sort sort) {
+    CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+    CriteriaQuery<EntityT> query = criteriaBuilder.createQuery(entityType);
+    Root<EntityT> root = query.from(entityType);
+    applyWhere(specification, root, query, criteriaBuilder);
+    query.select(root);
+    if (sort != null && sort.isSorted()) {
+      query.orderBy(QueryUtils.toOrders(sort, root, criteriaBuilder));
+    }
+    return entityManager.createQuery(query);
+  }
+
+  /** The statement timeout, or null if statements are not cancelled by the database. */
+  Duration statementTimeout() {
+    return statementTimeout;
+  }
+
+  /**
+   * Run the statement. If the shorter of the timeout and statement timeout is not whole seconds,
+   * e.g. a 200 ms count deadline, the query timeout hint is rounded up, so the statement is also
+   * cancelled by a timer when the exact deadline passes.
+   */
+  private <T> T withinDeadline(Duration timeout, Supplier<T> statement) {
+    Duration shortest = shorterOf(timeout, statementTimeout);
+    if (shortest == null || shortest.getNano() == 0) {
+      return statement.get();
+    }
+    Session session = entityManager.unwrap(Session.class);
+    return StatementCanceller.withinDeadline(shortest, session::cancelQuery, statement);
+  }
+
+  /** Return queries that ask the database to cancel statements that run longer than timeout. */
+  EntityQueries<EntityT> withStatementTimeout(Duration timeout) {
+    return new EntityQueries<>(entityManager, entityType, timeout, maxPageBytes);
+  }
+
+  /** Return queries that stop fetching records once their estimated size would exceed bytes. */
+  EntityQueries<EntityT> withMaxPageBytes(Long bytes) {
+    return new EntityQueries<>(entityManager, entityType, statementTimeout, bytes);
+  }
+
+  /** Apply the shorter of the timeout and the statement timeout to the query, if either is set. */
+  private <T> TypedQuery<T> withTimeout(TypedQuery<T> query, Duration timeout) {
+    Duration shortest = shorterOf(timeout, statementTimeout);
+    if (shortest != null) {
+      query.setHint(QUERY_TIMEOUT_HINT, timeoutMillis(shortest));
+    }
+    return query;
+  }
+
+  /** Records that were fetched. Truncated if fetching stopped early to stay within budget. */
+  /**
+   * Reads the value of a singular attribute through the field or getter the JPA provider maps it
+   * with. Values that cannot be read are null.
+   */
+  @AllArgsConstructor(access = AccessLevel.PRIVATE)
+  private static final class AttributeReader {
+    @Getter private final String name;
+
+    @Getter private final boolean association;
+
+    private final Field field;
+
+    private final Method getter;
+
+    static Map<String, AttributeReader> allOf(EntityType<?> model) {
+      Map<String, AttributeReader> readers = new HashMap<>();
+      for (SingularAttribute<?, ?> attribute : model.getSingularAttributes()) {
+        Member member = attribute.getJavaMember();
+        Field field = member instanceof Field ? (Field) member : null;
+        Method getter = member instanceof Method ? (Method) member : null;
+        if ((field != null && field.trySetAccessible())
+            || (getter != null && getter.trySetAccessible())) {
+          readers.put(
+              attribute.getName(),
+              new AttributeReader(attribute.getName(), attribute.isAssociation(), field, getter));
+        }
+      }
+      return Map.copyOf(readers);
+    }
+
+    Object read(Object entity) {
+      try {
+        return field != null ? field.get(entity) : getter.invoke(entity);
+      } catch (ReflectiveOperationException | RuntimeException e) {
+        return null;
+      }
+    }
+  }
+
+  @Value(staticConstructor = "of")
+  static class Fetched<E> {
+    List<E> records;
+
+    boolean truncated;
+  }
+}
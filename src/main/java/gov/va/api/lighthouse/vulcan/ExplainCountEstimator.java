@@ -0,0 +1,137 @@
+package gov.va.api.lighthouse.vulcan;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Estimates counts using the row estimates of the database query planner. The search is rendered
+ * to SQL by a SqlRenderer and then explained, but not executed, with a plain `EXPLAIN`. Databases
+ * without a supported explain strategy, or whose plans do not include a row estimate, fall back to
+ * an exact count.
+ */
+@Slf4j
+@Builder
+public class ExplainCountEstimator<EntityT> implements CountEstimator<EntityT> {
+  @NonNull private final EntityManager entityManager;
+
+  /** If not specified, the strategy is chosen based on the database product. */
+  private final ExplainStrategy strategy;
+
+  /** If not specified, SQL is rendered with the Hibernate 5 HQL translator. */
+  private final SqlRenderer sqlRenderer;
+
+  /** Create an estimator that chooses an explain strategy based on the database product. */
+  public static <E> ExplainCountEstimator<E> forEntityManager(EntityManager entityManager) {
+    return ExplainCountEstimator.<E>builder().entityManager(entityManager).build();
+  }
+
+  /** Explain strategy for PostgreSQL. */
+  public static ExplainStrategy postgres() {
+    return new RegexExplainStrategy("EXPLAIN ", Pattern.compile("rows=(\\d+)"));
+  }
+
+  private static ExplainStrategy strategyForProduct(String databaseProductName) {
+    String product = databaseProductName == null ? "" : databaseProductName.toLowerCase(Locale.US);
+    if (product.contains("postgres")) {
+      return postgres();
+    }
+    return null;
+  }
+
+  @Override
+  public long estimate(RequestContext<EntityT> context) {
+    EntityQueries<EntityT> queries = EntityQueries.of(entityManager, context.config().entityType());
+    try {
+      RenderedSql sql =
+          (sqlRenderer == null ? HibernateSqlRenderer.of(entityManager) : sqlRenderer)
+              .render(queries.selectQuery(context.specification(), Sort.unsorted()));
+      Long estimate = entityManager.unwrap(Session.class).doReturningWork(c -> explain(c, sql));
+      if (estimate != null) {
+        return estimate;
+      }
+    } catch (RuntimeException e) {
+      log.warn("Failed to estimate count, using exact count: {}", e.getMessage());
+    }
+    return queries.count(context.specification());
+  }
+
+  private Long explain(Connection connection, RenderedSql sql) throws SQLException {
+    ExplainStrategy explainStrategy =
+        strategy == null
+            ? strategyForProduct(connection.getMetaData().getDatabaseProductName())
+            : strategy;
+    if (explainStrategy == null) {
+      return null;
+    }
+    try (PreparedStatement statement =
+        connection.prepareStatement(explainStrategy.explain(sql.sql()))) {
+      for (int i = 0; i < sql.parameters().length; i++) {
+        statement.setObject(i + 1, sql.parameters()[i]);
+      }
+      try (ResultSet plan = statement.executeQuery()) {
+        return explainStrategy.estimatedRows(plan);
+      }
+    }
+  }
+
+  /** Database specific explain support. */
+  public interface ExplainStrategy {
+    /** Return the estimated number of rows from the plan, or null if unknown. */
+    Long estimatedRows(ResultSet plan) throws SQLException;
+
+    /** Return the statement that explains the given SQL. */
+    String explain(String sql);
+  }
+
+  /** Renders the query to SQL. JDBC parameter values are in the order of their placeholders. */
+  @FunctionalInterface
+  public interface SqlRenderer {
+    RenderedSql render(TypedQuery<?> query);
+  }
+
+  /** SQL with positional parameters, ready to be explained. */
+  @Value(staticConstructor = "of")
+  public static class RenderedSql {
+    String sql;
+
+    Object[] parameters;
+  }
+
+  /** Finds the first row estimate in the text form of the plan. */
+  @RequiredArgsConstructor
+  private static final class RegexExplainStrategy implements ExplainStrategy {
+    private final String prefix;
+
+    private final Pattern rows;
+
+    @Override
+    public Long estimatedRows(ResultSet plan) throws SQLException {
+      while (plan.next()) {
+        Matcher matcher = rows.matcher(String.valueOf(plan.getString(1)));
+        if (matcher.find()) {
+          return Long.parseLong(matcher.group(1));
+        }
+      }
+      return null;
+    }
+
+    @Override
+    public String explain(String sql) {
+      return prefix + sql;
+    }
+  }
+}
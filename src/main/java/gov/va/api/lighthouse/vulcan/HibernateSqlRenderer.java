@@ -0,0 +1,62 @@
+package gov.va.api.lighthouse.vulcan;
+
+import gov.va.api.lighthouse.vulcan.ExplainCountEstimator.RenderedSql;
+import gov.va.api.lighthouse.vulcan.ExplainCountEstimator.SqlRenderer;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Map;
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.hql.internal.ast.ASTQueryTranslatorFactory;
+import org.hibernate.hql.spi.NamedParameterInformation;
+import org.hibernate.hql.spi.QueryTranslator;
+import org.hibernate.query.Query;
+
+/**
+ * Renders criteria queries to SQL with the HQL translator of Hibernate 5. The translator is an
+ * internal Hibernate API, so this is the only class that uses it. If it is not available, e.g.
+ * with Hibernate 6, provide another SqlRenderer to the ExplainCountEstimator.
+ */
+@RequiredArgsConstructor(staticName = "of")
+class HibernateSqlRenderer implements SqlRenderer {
+  @NonNull private final EntityManager entityManager;
+
+  private static Object toJdbcValue(Object value) {
+    if (value instanceof Instant) {
+      return Timestamp.from((Instant) value);
+    }
+    if (value instanceof Collection) {
+      throw new IllegalStateException("Collection parameters cannot be explained.");
+    }
+    return value;
+  }
+
+  /**
+   * Translate the JPQL generated for the criteria query into SQL. Criteria literals are rendered as
+   * named parameters, which are mapped back to their positional JDBC locations.
+   */
+  @Override
+  public RenderedSql render(TypedQuery<?> typedQuery) {
+    Query<?> query = typedQuery.unwrap(Query.class);
+    SessionFactoryImplementor factory =
+        entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class);
+    String jpql = query.getQueryString();
+    QueryTranslator translator =
+        new ASTQueryTranslatorFactory().createQueryTranslator(jpql, jpql, Map.of(), factory, null);
+    translator.compile(Map.of(), false);
+    Object[] parameters = new Object[translator.getCollectedParameterSpecifications().size()];
+    for (String name : query.getParameterMetadata().getNamedParameterNames()) {
+      NamedParameterInformation info =
+          translator.getParameterTranslations().getNamedParameterInformation(name);
+      Object value = toJdbcValue(query.getParameterValue(name));
+      for (int location : info.getSourceLocations()) {
+        parameters[location] = value;
+      }
+    }
+    return RenderedSql.of(translator.getSQLString(), parameters);
+  }
+}
@@ -6,6 +6,8 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 /**
  * Indicate there parameter is not valid. This would indicate that a 404 Bad Request should be
  * returned to the user.
+ *
+ * <p>Rejections are expected and frequent, so stack traces are not captured.
  */
 @ResponseStatus(code = HttpStatus.BAD_REQUEST)
 public class InvalidRequest extends IllegalArgumentException {
@@ -15,7 +17,7 @@ public class InvalidRequest extends IllegalArgumentException {
 
   /** Create a new exception for bad value, like a number that cannot be parsed. */
   public static InvalidRequest badParameter(String parameter, String value, String message) {
-    return because("bad parameter: %s = %s : %s", parameter, value, message);
+    return Violation.badParameter(parameter, value, message).toException();
   }
 
   public static InvalidRequest because(String message) {
@@ -27,9 +29,15 @@ public class InvalidRequest extends IllegalArgumentException {
     return new InvalidRequest(String.format(format, messageValues));
   }
 
+  /** Stack traces are not captured. */
+  @Override
+  public synchronized Throwable fillInStackTrace() {
+    return this;
+  }
+
   /** Create a new exception for a parameter that has been repeated to much. */
   public static InvalidRequest noParametersSpecified() {
-    return because("No parameters specified.");
+    return Violation.noParametersSpecified().toException();
   }
 
   /** Create a new exception for a parameter that has been repeated to much. */
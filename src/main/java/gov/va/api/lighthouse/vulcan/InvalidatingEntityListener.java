@@ -0,0 +1,53 @@
+package gov.va.api.lighthouse.vulcan;
+
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * JPA entity listener that reports writes to a CacheInvalidator. Enable it on searchable entities
+ * with `@EntityListeners(InvalidatingEntityListener.class)` and register the invalidator at
+ * startup with use(). JPA creates listener instances itself, so the invalidator is held
+ * statically. Writes are ignored until an invalidator is registered.
+ */
+public class InvalidatingEntityListener {
+  private static volatile CacheInvalidator invalidator;
+
+  /** Report writes to the given invalidator, or stop reporting them if null. */
+  public static void use(CacheInvalidator cacheInvalidator) {
+    invalidator = cacheInvalidator;
+  }
+
+  @PostPersist
+  void inserted(Object entity) {
+    CacheInvalidator current = invalidator;
+    if (current != null) {
+      current.entityInserted(entity);
+    }
+  }
+
+  @PostLoad
+  void loaded(Object entity) {
+    CacheInvalidator current = invalidator;
+    if (current != null) {
+      current.entityLoaded(entity);
+    }
+  }
+
+  @PostRemove
+  void removed(Object entity) {
+    CacheInvalidator current = invalidator;
+    if (current != null) {
+      current.entityRemoved(entity);
+    }
+  }
+
+  @PostUpdate
+  void updated(Object entity) {
+    CacheInvalidator current = invalidator;
+    if (current != null) {
+      current.entityUpdated(entity);
+    }
+  }
+}
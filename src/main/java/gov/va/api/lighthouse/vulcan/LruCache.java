@@ -0,0 +1,123 @@
+package gov.va.api.lighthouse.vulcan;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * A small, thread safe, size bounded cache that evicts the least recently used entries. Entries can
+ * optionally expire after a fixed time to live.
+ */
+public class LruCache<K, V> {
+  private final int maxEntries;
+
+  private final Duration timeToLive;
+
+  private final Clock clock;
+
+  private final LinkedHashMap<K, Entry<V>> entries;
+
+  /**
+   * Create a new cache. The maximum number of entries is required. If not specified, entries do not
+   * expire and the system UTC clock is used.
+   */
+  @Builder
+  private LruCache(int maxEntries, Duration timeToLive, Clock clock) {
+    if (maxEntries <= 0) {
+      throw new IllegalArgumentException("maxEntries must be greater than 0");
+    }
+    this.maxEntries = maxEntries;
+    this.timeToLive = timeToLive;
+    this.clock = clock == null ? Clock.systemUTC() : clock;
+    this.entries =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+            return size() > LruCache.this.maxEntries;
+          }
+        };
+  }
+
+  /** Remove all entries. */
+  public synchronized void clear() {
+    entries.clear();
+  }
+
+  /**
+   * Visit every unexpired entry from least to most recently used. The expiration is null for
+   * entries that do not expire.
+   */
+  synchronized void forEach(EntryVisitor<? super K, ? super V> visitor) {
+    Instant now = clock.instant();
+    entries.forEach(
+        (key, entry) -> {
+          if (!entry.isExpired(now)) {
+            visitor.visit(key, entry.value(), entry.expiration());
+          }
+        });
+  }
+
+  /** Return the value for the key, or null if it is not present or has expired. */
+  public synchronized V get(K key) {
+    Entry<V> entry = entries.get(key);
+    if (entry == null) {
+      return null;
+    }
+    if (entry.isExpired(clock.instant())) {
+      entries.remove(key);
+      return null;
+    }
+    return entry.value();
+  }
+
+  /** Add or replace the value for the key. */
+  public synchronized void put(K key, V value) {
+    Instant expiration = timeToLive == null ? null : clock.instant().plus(timeToLive);
+    entries.put(key, new Entry<>(value, expiration));
+  }
+
+  /**
+   * Add or replace the value for the key with an explicit expiration, e.g. when restoring entries.
+   * A null expiration never expires.
+   */
+  synchronized void put(K key, V value, Instant expiration) {
+    entries.put(key, new Entry<>(value, expiration));
+  }
+
+  /** Remove the entry for the key, if present. */
+  public synchronized void remove(K key) {
+    entries.remove(key);
+  }
+
+  /** Remove every entry whose key matches. */
+  public synchronized void removeIf(Predicate<? super K> matchingKey) {
+    entries.keySet().removeIf(matchingKey);
+  }
+
+  /** The number of entries, including any that have expired but not yet been removed. */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /** Receives entries visited by forEach. */
+  @FunctionalInterface
+  interface EntryVisitor<K, V> {
+    void visit(K key, V value, Instant expiration);
+  }
+
+  @Value
+  private static class Entry<V> {
+    V value;
+
+    Instant expiration;
+
+    boolean isExpired(Instant now) {
+      return expiration != null && !now.isBefore(expiration);
+    }
+  }
+}
@@ -30,6 +30,34 @@ public interface Mapping<EntityT> {
    */
   Specification<EntityT> specificationFor(HttpServletRequest request);
 
+  /**
+   * Return the entity field names this mapping searches that are known without a request. These
+   * are checked when the configuration is bound with EntityFields. Mappings that choose fields per
+   * request may return an empty list.
+   */
+  default List<String> fieldNames() {
+    return List.of();
+  }
+
+  /**
+   * Return a copy of this mapping that uses the resolved attributes of its field names. This is
+   * invoked when the configuration is bound with EntityFields. By default, the mapping is returned
+   * unchanged and looks up its fields by name.
+   */
+  default Mapping<EntityT> bind(EntityFields fields) {
+    return this;
+  }
+
+  /**
+   * Produce the specification, or report that no results will be found or that the request is
+   * rejected, without throwing. This is invoked instead of specificationFor when processing
+   * requests. By default, it adapts specificationFor by catching CircuitBreaker and InvalidRequest
+   * exceptions.
+   */
+  default Outcome<Specification<EntityT>> evaluate(HttpServletRequest request) {
+    return Outcome.evaluate(() -> specificationFor(request));
+  }
+
   /** Return a list of parameter names that are supported by this mapping. */
   List<String> supportedParameterNames();
 }
@@ -0,0 +1,141 @@
+package gov.va.api.lighthouse.vulcan;
+
+import java.nio.ByteBuffer;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Caches serialized pages of search results outside of the heap, so hot searches can be answered
+ * with ready to send bytes without adding garbage collection pressure. Each page is copied once
+ * into its own direct buffer, which is never written again, and hits return read only views of
+ * it without copying. The least recently used pages are evicted to stay within the byte budget.
+ * Only small bookkeeping is kept on the heap.
+ *
+ * <p>The memory of an evicted page is released once the last view of it is no longer used, so the
+ * maximum direct memory of the JVM should leave room for pages that are still being sent. Pages
+ * larger than the byte budget are not cached.
+ *
+ * <p>Keys include the configuration, the serializer, and the base URL of the links, but use one
+ * instance per Vulcan configuration, e.g. as a bean next to it, so that one configuration cannot
+ * evict the pages of another.
+ */
+public class OffHeapPageCache implements SearchCache {
+  private final long maxBytes;
+
+  private final Duration timeToLive;
+
+  private final Clock clock;
+
+  private final LinkedHashMap<SearchPageKey, Entry> entries =
+      new LinkedHashMap<>(16, 0.75f, true);
+
+  private long bytesUsed;
+
+  /**
+   * Create a new cache. The byte budget is required. If not specified, entries do not expire and
+   * the system UTC clock is used.
+   */
+  @Builder
+  private OffHeapPageCache(long maxBytes, Duration timeToLive, Clock clock) {
+    if (maxBytes <= 0) {
+      throw new IllegalArgumentException("maxBytes must be greater than 0");
+    }
+    this.maxBytes = maxBytes;
+    this.timeToLive = timeToLive;
+    this.clock = clock == null ? Clock.systemUTC() : clock;
+  }
+
+  /** The number of bytes of cached pages. */
+  public synchronized long bytesUsed() {
+    return bytesUsed;
+  }
+
+  @Override
+  public synchronized void clear() {
+    entries.clear();
+    bytesUsed = 0;
+  }
+
+  /**
+   * Return a read only view of the serialized page, or null if it is not present or has expired.
+   * The view is positioned at the start of the page and remains valid after the page is evicted.
+   */
+  synchronized ByteBuffer get(SearchPageKey key) {
+    Entry entry = entries.get(key);
+    if (entry == null) {
+      return null;
+    }
+    if (entry.isExpired(clock.instant())) {
+      release(entries.remove(key));
+      return null;
+    }
+    return entry.page().duplicate();
+  }
+
+  @Override
+  public synchronized void invalidateIf(Predicate<SearchFingerprint> affected) {
+    Iterator<Map.Entry<SearchPageKey, Entry>> iterator = entries.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<SearchPageKey, Entry> entry = iterator.next();
+      if (affected.test(entry.getKey().fingerprint())) {
+        release(entry.getValue());
+        iterator.remove();
+      }
+    }
+  }
+
+  /**
+   * Add or replace the serialized page, evicting the least recently used pages to make room. Pages
+   * larger than the byte budget are ignored.
+   */
+  void put(SearchPageKey key, byte[] bytes) {
+    if (bytes.length > maxBytes) {
+      synchronized (this) {
+        release(entries.remove(key));
+      }
+      return;
+    }
+    /* Copy outside of the lock, the buffer is never written again. */
+    ByteBuffer page = ByteBuffer.allocateDirect(bytes.length).put(bytes).flip().asReadOnlyBuffer();
+    Instant expiration = timeToLive == null ? null : clock.instant().plus(timeToLive);
+    synchronized (this) {
+      release(entries.remove(key));
+      Iterator<Entry> eldest = entries.values().iterator();
+      while (bytesUsed + bytes.length > maxBytes) {
+        release(eldest.next());
+        eldest.remove();
+      }
+      entries.put(key, new Entry(page, expiration));
+      bytesUsed += bytes.length;
+    }
+  }
+
+  private void release(Entry entry) {
+    if (entry != null) {
+      bytesUsed -= entry.page().capacity();
+    }
+  }
+
+  /** The number of cached pages, including any that have expired but not yet been removed. */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  @Value
+  private static class Entry {
+    ByteBuffer page;
+
+    Instant expiration;
+
+    boolean isExpired(Instant now) {
+      return expiration != null && !now.isBefore(expiration);
+    }
+  }
+}
@@ -0,0 +1,83 @@
+package gov.va.api.lighthouse.vulcan;
+
+import java.util.function.Supplier;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+/**
+ * The result of evaluating part of a request without throwing exceptions. An outcome has a value,
+ * which may be null, or it is known that no results will be found, or the request is rejected
+ * with a violation. These are equivalent to returning, throwing a CircuitBreaker, and throwing an
+ * InvalidRequest exception respectively.
+ */
+@Value
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class Outcome<T> {
+  T value;
+
+  /** Why no results will be found, or null if the search can proceed. */
+  String noResultsReason;
+
+  /** Why the request is rejected, or null if it is not. */
+  Violation violation;
+
+  /**
+   * Adapt code that reports short circuits and rejections by throwing. CircuitBreaker and
+   * InvalidRequest exceptions are converted, other exceptions are not caught.
+   */
+  public static <T> Outcome<T> evaluate(Supplier<T> supplier) {
+    try {
+      return of(supplier.get());
+    } catch (CircuitBreaker e) {
+      return noResults(e.getMessage());
+    } catch (InvalidRequest e) {
+      return rejected(Violation.from(e));
+    }
+  }
+
+  public static <T> Outcome<T> noResults(String reason) {
+    return new Outcome<>(null, reason, null);
+  }
+
+  /** Create an outcome for a parameter value that cannot match any record. */
+  public static <T> Outcome<T> noResultsWillBeFound(
+      String parameter, String value, String message) {
+    return noResults(CircuitBreaker.noResultsWillBeFoundMessage(parameter, value, message));
+  }
+
+  public static <T> Outcome<T> of(T value) {
+    return new Outcome<>(value, null, null);
+  }
+
+  public static <T> Outcome<T> rejected(Violation violation) {
+    return new Outcome<>(null, null, violation);
+  }
+
+  /** Return true if there is a value, i.e. the outcome is neither no results nor rejected. */
+  public boolean hasValue() {
+    return noResultsReason == null && violation == null;
+  }
+
+  public boolean isNoResults() {
+    return noResultsReason != null;
+  }
+
+  public boolean isRejected() {
+    return violation != null;
+  }
+
+  /**
+   * Return the value, or throw the equivalent InvalidRequest or CircuitBreaker exception. This
+   * adapts outcomes for callers that expect exceptions.
+   */
+  public T orElseThrow() {
+    if (violation != null) {
+      throw violation.toException();
+    }
+    if (noResultsReason != null) {
+      throw new CircuitBreaker(noResultsReason);
+    }
+    return value;
+  }
+}
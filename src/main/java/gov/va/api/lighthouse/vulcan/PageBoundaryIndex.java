@@ -0,0 +1,122 @@
+package gov.va.api.lighthouse.vulcan;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+import lombok.Builder;
+import lombok.Value;
+import org.springframework.data.domain.Sort;
+
+/**
+ * A sparse index of page boundaries for recently served searches. As pages are served, the sort
+ * key of the last record of every Nth page is recorded. A request for a deep page, such as the last
+ * page, then seeks from the nearest recorded boundary and only skips the records after it, instead
+ * of skipping every record before the page.
+ *
+ * <p>Boundaries are recorded by record offset, so they can be reused regardless of the page size.
+ * Memory is bounded by max searches times max boundaries per search, least recently used searches
+ * are evicted.
+ */
+public class PageBoundaryIndex implements SearchCache {
+  private final LruCache<Key, Boundaries> index;
+
+  private final int pageInterval;
+
+  private final int maxBoundariesPerSearch;
+
+  @Builder
+  private PageBoundaryIndex(
+      int maxSearches,
+      int pageInterval,
+      int maxBoundariesPerSearch,
+      Duration timeToLive,
+      Clock clock) {
+    if (pageInterval <= 0) {
+      throw new IllegalArgumentException("pageInterval must be greater than 0");
+    }
+    if (maxBoundariesPerSearch <= 0) {
+      throw new IllegalArgumentException("maxBoundariesPerSearch must be greater than 0");
+    }
+    this.pageInterval = pageInterval;
+    this.maxBoundariesPerSearch = maxBoundariesPerSearch;
+    index =
+        LruCache.<Key, Boundaries>builder()
+            .maxEntries(maxSearches)
+            .timeToLive(timeToLive)
+            .clock(clock)
+            .build();
+  }
+
+  /** Forget every boundary. */
+  @Override
+  public void clear() {
+    index.clear();
+  }
+
+  /** Forget boundaries of searches that match. */
+  @Override
+  public void invalidateIf(Predicate<SearchFingerprint> affected) {
+    index.removeIf(key -> affected.test(key.fingerprint()));
+  }
+
+  /**
+   * Return the recorded boundary closest to, but not after, the offset. Null is returned if there
+   * is no such boundary.
+   */
+  Boundary nearest(SearchFingerprint fingerprint, Sort sort, long offset) {
+    Boundaries boundaries = index.get(new Key(fingerprint, sort.toString()));
+    return boundaries == null ? null : boundaries.floor(offset);
+  }
+
+  /** Record the position of the last record before the offset. */
+  void record(SearchFingerprint fingerprint, Sort sort, long offset, List<Object> position) {
+    if (position.isEmpty()) {
+      return;
+    }
+    Key key = new Key(fingerprint, sort.toString());
+    Boundaries boundaries = index.get(key);
+    if (boundaries == null) {
+      boundaries = new Boundaries();
+      index.put(key, boundaries);
+    }
+    boundaries.put(offset, position, maxBoundariesPerSearch);
+  }
+
+  /** Return true if the boundary after the given page should be recorded. */
+  boolean shouldRecordAfter(int page) {
+    return page % pageInterval == 0;
+  }
+
+  /** The sort key of the last record before the offset. */
+  @Value
+  static class Boundary {
+    long offset;
+
+    List<Object> position;
+  }
+
+  private static class Boundaries {
+    private final TreeMap<Long, List<Object>> positions = new TreeMap<>();
+
+    synchronized Boundary floor(long offset) {
+      Map.Entry<Long, List<Object>> entry = positions.floorEntry(offset);
+      return entry == null ? null : new Boundary(entry.getKey(), entry.getValue());
+    }
+
+    synchronized void put(long offset, List<Object> position, int maxBoundaries) {
+      if (positions.size() < maxBoundaries || positions.containsKey(offset)) {
+        positions.put(offset, position);
+      }
+    }
+  }
+
+  @Value
+  private static class Key {
+    SearchFingerprint fingerprint;
+
+    String sort;
+  }
+}
@@ -1,61 +1,165 @@
 package gov.va.api.lighthouse.vulcan;
 
-import static java.util.Map.Entry.comparingByKey;
-import static java.util.Optional.empty;
-import static java.util.stream.Collectors.joining;
+import static org.apache.commons.lang3.StringUtils.isBlank;
 
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
-import java.util.Map;
-import java.util.Optional;
-import java.util.stream.Stream;
+import java.util.Locale;
+import lombok.Getter;
 
+/**
+ * Builds paging links from a template that is computed once, when the builder is created. The
+ * template is the base URL followed by the already encoded, canonical search parameters shared with
+ * the search fingerprint and the requested sort, so each link only appends the page number. The
+ * builder keeps only plain values and not the request, so links can be produced after the request
+ * has been recycled.
+ *
+ * <p>If continuation tokens are enabled, the page and count are replaced by a signed token that
+ * also carries the accurate total, if known, and the position needed to seek to the next page.
+ *
+ * <p>Links keep the count of the request. Pages normally start at a multiple of the count, but a
+ * page that returned fewer records than its count, e.g. to stay within the byte budget, is followed
+ * by a page that starts right after its last record. Links to such pages, and to this page if it
+ * is one, also carry the offset of the page.
+ */
 class PageLinkBuilder {
-  private final RequestContext<?> context;
-  private final String urlWithOutPaging;
+  @Getter private final String urlWithoutPage;
 
-  private PageLinkBuilder(RequestContext<?> context) {
-    this.context = context;
-    urlWithOutPaging = determineUrlWithoutPaging();
+  private final int page;
+
+  private final int count;
+
+  private final Long totalRecords;
+
+  private final List<Object> nextPagePosition;
+
+  /** The offset of this page, which is carried by its link if not a multiple of the count. */
+  private final long thisPageOffset;
+
+  /** The offset of the next page, which is carried by its link if not a multiple of the count. */
+  private final long nextPageOffset;
+
+  private final String offsetParameter;
+
+  /** The tokens used for links, or null if links do not use continuation tokens. */
+  private final ContinuationTokens tokens;
+
+  private final long searchDigest;
+
+  private final List<Object> thisPagePosition;
+
+  private PageLinkBuilder(
+      RequestContext<?> context,
+      Long totalRecords,
+      List<Object> nextPagePosition,
+      long nextPageOffset) {
+    this.page = context.page();
+    this.count = context.count();
+    this.totalRecords = totalRecords;
+    this.nextPagePosition = nextPagePosition == null ? List.of() : nextPagePosition;
+    this.thisPageOffset = context.offset();
+    this.nextPageOffset = nextPageOffset;
+    this.offsetParameter = context.config().paging().offsetParameter();
+    boolean usesContinuationTokens =
+        context.config().paging().continuationTokens() != null && !context.countOnly();
+    tokens = usesContinuationTokens ? context.config().paging().continuationTokens() : null;
+    searchDigest =
+        usesContinuationTokens
+            ? ContinuationTokens.digestOf(context.fingerprint(), context.pageRequest().getSort())
+            : 0;
+    thisPagePosition =
+        context.continuation() == null ? List.of() : context.continuation().position();
+    urlWithoutPage = urlWithoutPageOf(context, count, usesContinuationTokens);
   }
 
   public static PageLinkBuilder of(RequestContext<?> context) {
-    return new PageLinkBuilder(context);
+    return new PageLinkBuilder(context, null, null, context.offset() + context.count());
   }
 
-  private Stream<String> asQueryParameters(Map.Entry<String, String[]> entry) {
-    return Stream.of(entry.getValue())
-        .map((value) -> entry.getKey() + '=' + URLEncoder.encode(value, StandardCharsets.UTF_8));
+  /**
+   * Create links that can carry state in continuation tokens. The total should only be provided if
+   * it is accurate. The position is the sort key of the last record on this page, and the offset
+   * of the next page is the offset of this page plus the records it returned.
+   */
+  public static PageLinkBuilder of(
+      RequestContext<?> context,
+      Long totalRecords,
+      List<Object> nextPagePosition,
+      long nextPageOffset) {
+    return new PageLinkBuilder(context, totalRecords, nextPagePosition, nextPageOffset);
   }
 
-  private String determineUrlWithoutPaging() {
+  private static String urlWithoutPageOf(
+      RequestContext<?> context, int count, boolean usesContinuationTokens) {
     StringBuilder url =
         new StringBuilder(context.config().paging().baseUrlStrategy().apply(context.request()))
             .append('?');
-    Map<String, String[]> parameters = context.request().getParameterMap();
-    List<String> allowedParameters = context.config().supportedParameters();
-    String queryString =
-        parameters.entrySet().stream()
-            .filter(entry -> !context.config().paging().isPagingRelatedParameter(entry.getKey()))
-            .filter(entry -> allowedParameters.contains(entry.getKey()))
-            .sorted(comparingByKey())
-            .flatMap(this::asQueryParameters)
-            .collect(joining("&"));
+    String queryString = context.fingerprint().parameters();
     if (!queryString.isEmpty()) {
       url.append(queryString).append('&');
     }
-    return url.toString();
+    String sort = context.request().getParameter("_sort");
+    if (!isBlank(sort)) {
+      url.append("_sort=").append(URLEncoder.encode(sort, StandardCharsets.UTF_8)).append('&');
+    }
+    if (context.totalMode() != context.config().paging().defaultTotalMode()) {
+      url.append(context.config().paging().totalParameter())
+          .append('=')
+          .append(context.totalMode().name().toLowerCase(Locale.US))
+          .append('&');
+    }
+    if (usesContinuationTokens) {
+      return url.append(context.config().paging().continuationParameter()).append('=').toString();
+    }
+    return url.append(context.config().paging().countParameter())
+        .append('=')
+        .append(count)
+        .append('&')
+        .append(context.config().paging().pageParameter())
+        .append('=')
+        .toString();
+  }
+
+  private long offsetOf(int linkedPage) {
+    if (linkedPage == page + 1) {
+      return nextPageOffset;
+    }
+    if (linkedPage == page) {
+      return thisPageOffset;
+    }
+    return (linkedPage - 1L) * count;
+  }
+
+  private List<Object> positionBefore(int linkedPage) {
+    if (linkedPage == page + 1) {
+      return nextPagePosition;
+    }
+    if (linkedPage == page) {
+      return thisPagePosition;
+    }
+    return List.of();
+  }
+
+  private String tokenForPage(int linkedPage) {
+    return tokens.encode(
+        ContinuationToken.builder()
+            .page(linkedPage)
+            .count(count)
+            .searchDigest(searchDigest)
+            .issued(tokens.now())
+            .totalRecords(totalRecords)
+            .position(positionBefore(linkedPage))
+            .build());
   }
 
-  public Optional<String> urlForPage(Integer page) {
-    if (page == null) {
-      return empty();
+  public String urlForPage(int linkedPage) {
+    String url =
+        tokens == null ? urlWithoutPage + linkedPage : urlWithoutPage + tokenForPage(linkedPage);
+    long offset = offsetOf(linkedPage);
+    if (count == 0 || offset == (linkedPage - 1L) * count) {
+      return url;
     }
-    return Optional.of(
-        urlWithOutPaging
-            + (context.config().paging().countParameter() + '=' + context.count())
-            + '&'
-            + (context.config().paging().pageParameter() + '=' + page));
+    return url + '&' + offsetParameter + '=' + offset;
   }
 }
@@ -0,0 +1,147 @@
+package gov.va.api.lighthouse.vulcan;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Speculatively fetches the records of the next page of searches that are being crawled
+ * sequentially, i.e. a request for page N follows a request for page N - 1 of the same search. The
+ * records are fetched in the background into a short lived, size bounded cache, so the following
+ * request does not fetch them. Only records are prefetched, the following request determines its
+ * total for its own total mode. Hits and misses are counted by VulcanMetrics.
+ *
+ * <p>Prefetched entities are loaded outside of the request, so they are detached. Only use the
+ * prefetcher for entities that can be used without lazy loading.
+ */
+@Slf4j
+public class PagePrefetcher<EntityT> implements SearchCache {
+  private final LruCache<PageKey, EntityQueries.Fetched<EntityT>> pages;
+
+  private final LruCache<SearchKey, Integer> lastServedPages;
+
+  private final Set<PageKey> inFlight = ConcurrentHashMap.newKeySet();
+
+  private final Executor executor;
+
+  /**
+   * Create a new prefetcher. The executor runs the background queries and should be bounded. Time
+   * to live should be short, since prefetched pages are not invalidated by writes unless
+   * invalidate is called.
+   */
+  @Builder
+  private PagePrefetcher(
+      int maxEntries, Duration timeToLive, @NonNull Executor executor, Clock clock) {
+    this.executor = executor;
+    pages =
+        LruCache.<PageKey, EntityQueries.Fetched<EntityT>>builder()
+            .maxEntries(maxEntries)
+            .timeToLive(timeToLive)
+            .clock(clock)
+            .build();
+    lastServedPages =
+        LruCache.<SearchKey, Integer>builder()
+            .maxEntries(maxEntries)
+            .timeToLive(timeToLive)
+            .clock(clock)
+            .build();
+  }
+
+  private static PageKey pageKey(RequestContext<?> context, long offset) {
+    return new PageKey(searchKey(context), offset);
+  }
+
+  private static SearchKey searchKey(RequestContext<?> context) {
+    return new SearchKey(
+        context.fingerprint(), context.pageRequest().getSort().toString(), context.count());
+  }
+
+  /** Forget every prefetched page. */
+  @Override
+  public void clear() {
+    pages.clear();
+    lastServedPages.clear();
+  }
+
+  /** Return the prefetched records for the request, or null if they have not been prefetched. */
+  EntityQueries.Fetched<EntityT> get(RequestContext<EntityT> context) {
+    return pages.get(pageKey(context, context.offset()));
+  }
+
+  /** Forget prefetched pages of searches that match. */
+  @Override
+  public void invalidateIf(Predicate<SearchFingerprint> affected) {
+    pages.removeIf(key -> affected.test(key.search().fingerprint()));
+    lastServedPages.removeIf(key -> affected.test(key.fingerprint()));
+  }
+
+  /**
+   * Record that the page of the request has been served. Return true if the previous page of the
+   * same search was the last page served, i.e. the search looks like it is being crawled.
+   */
+  boolean isSequential(RequestContext<EntityT> context) {
+    SearchKey key = searchKey(context);
+    Integer previous = lastServedPages.get(key);
+    lastServedPages.put(key, context.page());
+    return previous != null && previous == context.page() - 1;
+  }
+
+  /**
+   * Fetch the page after the page of the request, which starts at the offset, in the background,
+   * unless it is already cached or being fetched. The fetch may return null if the page should not
+   * be kept. Return true if a fetch was started.
+   */
+  boolean prefetchNextPage(
+      RequestContext<EntityT> context,
+      long nextOffset,
+      Supplier<EntityQueries.Fetched<EntityT>> fetch) {
+    PageKey key = pageKey(context, nextOffset);
+    if (pages.get(key) != null || !inFlight.add(key)) {
+      return false;
+    }
+    try {
+      executor.execute(
+          () -> {
+            try {
+              EntityQueries.Fetched<EntityT> fetched = fetch.get();
+              if (fetched != null) {
+                pages.put(key, fetched);
+              }
+            } catch (RuntimeException e) {
+              log.info("Failed to prefetch page at {}: {}", key.offset(), e.getMessage());
+            } finally {
+              inFlight.remove(key);
+            }
+          });
+    } catch (RuntimeException e) {
+      inFlight.remove(key);
+      log.info("Prefetch of page at {} rejected: {}", key.offset(), e.getMessage());
+      return false;
+    }
+    return true;
+  }
+
+  @Value
+  private static class PageKey {
+    SearchKey search;
+
+    long offset;
+  }
+
+  @Value
+  private static class SearchKey {
+    SearchFingerprint fingerprint;
+
+    String sort;
+
+    int count;
+  }
+}
@@ -0,0 +1,25 @@
+package gov.va.api.lighthouse.vulcan;
+
+import gov.va.api.lighthouse.vulcan.VulcanResult.Paging;
+import java.util.List;
+
+/**
+ * Renders a page of search results into the bytes sent to clients, e.g. a JSON bundle. Serialized
+ * pages can be cached with an OffHeapPageCache.
+ *
+ * @param <EntityT> The database entity being searched.
+ */
+@FunctionalInterface
+public interface PageSerializer<EntityT> {
+  /**
+   * Identifies the serializer in the keys of cached pages. By default, this is the serializer
+   * instance. Serializers that render pages the same way, e.g. a new instance per request, should
+   * return the same identity so that they share cached pages.
+   */
+  default String identity() {
+    return getClass().getName() + '@' + Integer.toHexString(System.identityHashCode(this));
+  }
+
+  /** Serialize the page of entities. */
+  byte[] serialize(Paging paging, List<EntityT> entities);
+}
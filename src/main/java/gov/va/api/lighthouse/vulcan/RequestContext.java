@@ -2,11 +2,15 @@ package gov.va.api.lighthouse.vulcan;
 
 import static org.apache.commons.lang3.StringUtils.isBlank;
 
-import java.util.Objects;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import javax.servlet.http.HttpServletRequest;
 import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NonNull;
+import lombok.ToString;
 import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
@@ -31,27 +35,52 @@ public class RequestContext<EntityT> {
 
   int count;
 
+  TotalMode totalMode;
+
+  /** The continuation token of the request, or null if the request does not have one. */
+  ContinuationToken continuation;
+
   PageRequest pageRequest;
 
+  /**
+   * The number of records before the page. This is the offset of the page request, unless the
+   * request carries an offset because a previous page returned fewer records than its count.
+   */
+  long offset;
+
   boolean abortSearch;
 
+  /** The canonical identity of the search, computed only if needed. */
+  @Getter(lazy = true)
+  @EqualsAndHashCode.Exclude
+  @ToString.Exclude
+  private final SearchFingerprint fingerprint = SearchFingerprint.of(config, request);
+
   @Builder
   private RequestContext(
       @NonNull VulcanConfiguration<EntityT> config, @NonNull HttpServletRequest request) {
     this.config = config;
     this.request = request;
-    page = pageValueOf(request);
-    count = countValueOf(request);
-    pageRequest = PageRequest.of(page - 1, Math.max(count, 1), sort(config, request));
+    Sort sort = sort(config, request);
+    continuation = continuationValueOf(request, sort);
+    page = continuation == null ? pageValueOf(request) : continuation.page();
+    count =
+        continuation == null
+            ? countValueOf(request)
+            : Math.min(continuation.count(), config.paging().maxCount());
+    totalMode = totalModeValueOf(request);
+    pageRequest = PageRequest.of(page - 1, Math.max(count, 1), sort);
+    offset = offsetValueOf(request, pageRequest.getOffset());
     checkRules();
-    Specification<EntityT> maybeSpecification;
-    try {
-      maybeSpecification = specificationOf(request);
-    } catch (CircuitBreaker e) {
-      maybeSpecification = null;
-      log.info("Circuit breaker thrown, skipping search: {}", e.getMessage());
+    Outcome<Specification<EntityT>> outcome = specificationOf(request);
+    if (outcome.isRejected()) {
+      log.info("Rejecting request: {}", outcome.violation().message());
+      throw outcome.violation().toException();
+    }
+    if (outcome.isNoResults()) {
+      log.info("Circuit breaker thrown, skipping search: {}", outcome.noResultsReason());
     }
-    specification = maybeSpecification;
+    specification = outcome.value();
     abortSearch = (specification == null);
   }
 
@@ -61,17 +90,42 @@ public class RequestContext<EntityT> {
 
   private void checkRules() {
     RuleContext ruleContext = new ProtectedRuleContext();
-    config
-        .rules()
-        .forEach(
-            r -> {
-              try {
-                r.check(ruleContext);
-              } catch (InvalidRequest e) {
-                log.info("Rejecting request: {}", e.getMessage());
-                throw e;
-              }
-            });
+    for (Rule rule : config.rules()) {
+      Violation violation = rule.violationOf(ruleContext);
+      if (violation != null) {
+        log.info("Rejecting request: {}", violation.message());
+        throw violation.toException();
+      }
+    }
+  }
+
+  /**
+   * Determine the continuation token from the request. Null is returned if continuation tokens are
+   * not enabled or the request does not include one. An InvalidRequest exception is thrown if the
+   * token cannot be verified or was issued for a different search.
+   */
+  private ContinuationToken continuationValueOf(HttpServletRequest request, Sort sort) {
+    ContinuationTokens tokens = config.paging().continuationTokens();
+    String parameter = config.paging().continuationParameter();
+    String value = request.getParameter(parameter);
+    if (tokens == null || isBlank(value)) {
+      return null;
+    }
+    ContinuationToken token;
+    try {
+      token = tokens.decode(value);
+    } catch (IllegalArgumentException e) {
+      log.info("Rejecting continuation token: {}", e.getMessage());
+      throw InvalidRequest.badParameter(parameter, value, "Invalid continuation token");
+    }
+    if (token.searchDigest() != ContinuationTokens.digestOf(fingerprint(), sort)) {
+      throw InvalidRequest.badParameter(
+          parameter, value, "Continuation token was issued for a different search");
+    }
+    if (token.page() < 1 || token.count() < 1) {
+      throw InvalidRequest.badParameter(parameter, value, "Invalid continuation token");
+    }
+    return token;
   }
 
   public boolean countOnly() {
@@ -114,6 +168,29 @@ public class RequestContext<EntityT> {
         config.paging().pageParameter(), value, "Expected number greater than or equal to 1");
   }
 
+  /**
+   * Determine the offset of the page from the request. This will return the offset of the page
+   * request if the request does not include an offset. It will throw an InvalidParameter exception
+   * if the offset is not a number or is beyond the offset of the page request, since pages only
+   * ever start early.
+   */
+  private long offsetValueOf(HttpServletRequest request, long pageOffset) {
+    String value = request.getParameter(config.paging().offsetParameter());
+    if (isBlank(value)) {
+      return pageOffset;
+    }
+    try {
+      long offset = Long.parseLong(value);
+      if (offset >= 0 && offset <= pageOffset) {
+        return offset;
+      }
+    } catch (NumberFormatException e) {
+      // Reported below
+    }
+    throw InvalidRequest.badParameter(
+        config.paging().offsetParameter(), value, "Expected number between 0 and " + pageOffset);
+  }
+
   /**
    * Determine a usable paging page value from the request. This will return the default page if the
    * request does not include any page parameters. It will thrown an InvalidParameter exception if
@@ -144,15 +221,56 @@ public class RequestContext<EntityT> {
             .orElse(config.paging().sortDefault());
   }
 
-  private Specification<EntityT> specificationOf(HttpServletRequest request) {
-    Specification<EntityT> all =
-        config.mappings().stream()
-            .filter(m -> m.appliesTo(request))
-            .peek(m -> log.info("Applying {}", m))
-            .map(m -> m.specificationFor(request))
-            .filter(Objects::nonNull)
-            .collect(Specifications.all());
-    return all == null ? config.defaultQuery().apply(request) : all;
+  /**
+   * Evaluate the applicable mappings and combine their specifications. The first mapping that
+   * rejects the request or knows no results will be found ends evaluation.
+   */
+  private Outcome<Specification<EntityT>> specificationOf(HttpServletRequest request) {
+    List<Specification<EntityT>> specifications = new ArrayList<>();
+    for (Mapping<EntityT> mapping : config.mappings()) {
+      if (!mapping.appliesTo(request)) {
+        continue;
+      }
+      log.info("Applying {}", mapping);
+      Outcome<Specification<EntityT>> outcome;
+      try {
+        outcome = mapping.evaluate(request);
+      } catch (CircuitBreaker e) {
+        /* Functions provided to built-in mappings may still throw. */
+        outcome = Outcome.noResults(e.getMessage());
+      } catch (InvalidRequest e) {
+        outcome = Outcome.rejected(Violation.from(e));
+      }
+      if (!outcome.hasValue()) {
+        return outcome;
+      }
+      if (outcome.value() != null) {
+        specifications.add(outcome.value());
+      }
+    }
+    Outcome<Specification<EntityT>> all = Specifications.fold(specifications);
+    if (!all.hasValue() || all.value() != null) {
+      return all;
+    }
+    return Outcome.evaluate(() -> config.defaultQuery().apply(request));
+  }
+
+  /**
+   * Determine the total mode from the request. This will return the default total mode if the
+   * request does not include a total parameter. It will throw an InvalidParameter exception if the
+   * value is not a FHIR total mode.
+   */
+  private TotalMode totalModeValueOf(HttpServletRequest request) {
+    String value = request.getParameter(config.paging().totalParameter());
+    if (isBlank(value)) {
+      return config.paging().defaultTotalMode();
+    }
+    TotalMode mode = TotalMode.forParameterValue(value);
+    if (mode == null) {
+      throw InvalidRequest.badParameter(
+          config.paging().totalParameter(), value, "Expected one of none, estimate, or accurate");
+    }
+    return mode;
   }
 
   /**
@@ -2,7 +2,8 @@ package gov.va.api.lighthouse.vulcan;
 
 /**
  * Instances are applied to request object and have the opportunity to reject the request by
- * throwing an instance of InvalidRequest exception.
+ * throwing an instance of InvalidRequest exception. Rules that report a Violation instead of
+ * throwing implement ViolationRule.
  */
 @FunctionalInterface
 public interface Rule {
@@ -12,4 +13,17 @@ public interface Rule {
    * not satisfied, e.g., a required parameter is not set.
    */
   void check(RuleContext context);
+
+  /**
+   * Check the request and return the violation, or null if the request satisfies the rule. By
+   * default, this adapts check by catching the InvalidRequest exception.
+   */
+  default Violation violationOf(RuleContext context) {
+    try {
+      check(context);
+      return null;
+    } catch (InvalidRequest e) {
+      return Violation.from(e);
+    }
+  }
 }
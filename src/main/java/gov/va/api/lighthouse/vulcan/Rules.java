@@ -14,60 +14,67 @@ import lombok.Value;
 import lombok.experimental.UtilityClass;
 
 /**
- * This provides some standard rules for HTTP request validation. If a rule fails and invalid
- * request exception will be thrown. Rules are aware of FHIR style modifiers (parameter:modifier),
- * e.g. string parameters have `name:exact` or `name:contains` parameter name modifier.
+ * This provides some standard rules for HTTP request validation. If a rule fails a violation is
+ * reported, or an invalid request exception is thrown if the rule is checked directly. Rules are
+ * aware of FHIR style modifiers (parameter:modifier), e.g. string parameters have `name:exact` or
+ * `name:contains` parameter name modifier.
  */
 @UtilityClass
 public class Rules {
   /** Requires that at least on of the parameters be specified. */
   public Rule atLeastOneParameterOf(String... parameter) {
-    return (ctx) -> {
-      var specifiedParameters = ctx.request().getParameterMap().keySet();
-      for (String p : parameter) {
-        if (isParameterOrModifiedParameterSpecified(specifiedParameters, p)) {
-          return;
-        }
-      }
-      throw InvalidRequest.because(
-          "At least one of %s must be specified", Arrays.toString(parameter));
-    };
+    return (ViolationRule)
+        (ctx) -> {
+          var specifiedParameters = ctx.request().getParameterMap().keySet();
+          for (String p : parameter) {
+            if (isParameterOrModifiedParameterSpecified(specifiedParameters, p)) {
+              return null;
+            }
+          }
+          return Violation.because(
+              "At least one of %s must be specified", Arrays.toString(parameter));
+        };
   }
 
   /** Requires that all parameters be known by some mapping. */
   public Rule forbidUnknownParameters() {
-    return (ctx) -> {
-      var knownParameters = ctx.config().supportedParameters();
-      var unknownParameters =
-          ctx.request().getParameterMap().keySet().stream()
-              .filter(p -> !ctx.config().paging().isPagingRelatedParameter(p))
-              .filter(p -> !knownParameters.contains(p))
-              .filter(p -> !isModifiedParameter(p))
-              .collect(toList());
-      if (!unknownParameters.isEmpty()) {
-        throw InvalidRequest.because(
-            "Unknown parameters %s, expecting %s", unknownParameters, knownParameters);
-      }
-    };
+    return (ViolationRule)
+        (ctx) -> {
+          var knownParameters = ctx.config().supportedParameters();
+          var unknownParameters =
+              ctx.request().getParameterMap().keySet().stream()
+                  .filter(p -> !ctx.config().paging().isPagingRelatedParameter(p))
+                  .filter(p -> !knownParameters.contains(p))
+                  .filter(p -> !isModifiedParameter(p))
+                  .collect(toList());
+          if (!unknownParameters.isEmpty()) {
+            return Violation.because(
+                "Unknown parameters %s, expecting %s", unknownParameters, knownParameters);
+          }
+          return null;
+        };
   }
 
   /** Requires that none of these parameters be specified. */
   public Rule forbiddenParameters(String... parameter) {
-    return (ctx) -> {
-      var specifiedParameters = ctx.request().getParameterMap().keySet();
-      for (String p : parameter) {
-        if (specifiedParameters.contains(p)) {
-          throw InvalidRequest.because(
-              "No parameter of %s can be specified", Arrays.toString(parameter));
-        }
-        var modified = specifiedParameters.stream().filter(isModifiedVersionOf(p)).findFirst();
-        if (modified.isPresent()) {
-          throw InvalidRequest.because(
-              "No parameter of %s can be specified. Found modified parameter %s",
-              Arrays.toString(parameter), modified.get());
-        }
-      }
-    };
+    return (ViolationRule)
+        (ctx) -> {
+          var specifiedParameters = ctx.request().getParameterMap().keySet();
+          for (String p : parameter) {
+            if (specifiedParameters.contains(p)) {
+              return Violation.because(
+                  "No parameter of %s can be specified", Arrays.toString(parameter));
+            }
+            var modified =
+                specifiedParameters.stream().filter(isModifiedVersionOf(p)).findFirst();
+            if (modified.isPresent()) {
+              return Violation.because(
+                  "No parameter of %s can be specified. Found modified parameter %s",
+                  Arrays.toString(parameter), modified.get());
+            }
+          }
+          return null;
+        };
   }
 
   /**
@@ -99,36 +106,40 @@ public class Rules {
    * longitude.
    */
   public Rule parametersAlwaysSpecifiedTogether(String... parameter) {
-    return (ctx) -> {
-      int specified = 0;
-      var specifiedParameters = ctx.request().getParameterMap().keySet();
-      for (String p : parameter) {
-        if (isParameterOrModifiedParameterSpecified(specifiedParameters, p)) {
-          specified++;
-        }
-      }
-      if (specified > 0 && specified != parameter.length) {
-        throw InvalidRequest.because(
-            "Parameters %s must be specified together", Arrays.toString(parameter));
-      }
-    };
+    return (ViolationRule)
+        (ctx) -> {
+          int specified = 0;
+          var specifiedParameters = ctx.request().getParameterMap().keySet();
+          for (String p : parameter) {
+            if (isParameterOrModifiedParameterSpecified(specifiedParameters, p)) {
+              specified++;
+            }
+          }
+          if (specified > 0 && specified != parameter.length) {
+            return Violation.because(
+                "Parameters %s must be specified together", Arrays.toString(parameter));
+          }
+          return null;
+        };
   }
 
   /** Create a rule that prevents parameters from being specified together. */
   public Rule parametersNeverSpecifiedTogether(String... parameter) {
-    return (ctx) -> {
-      int specified = 0;
-      var specifiedParameters = ctx.request().getParameterMap().keySet();
-      for (String p : parameter) {
-        if (isParameterOrModifiedParameterSpecified(specifiedParameters, p)) {
-          specified++;
-        }
-      }
-      if (specified > 0 && specified != 1) {
-        throw InvalidRequest.because(
-            "Parameters %s cannot be specified together", Arrays.toString(parameter));
-      }
-    };
+    return (ViolationRule)
+        (ctx) -> {
+          int specified = 0;
+          var specifiedParameters = ctx.request().getParameterMap().keySet();
+          for (String p : parameter) {
+            if (isParameterOrModifiedParameterSpecified(specifiedParameters, p)) {
+              specified++;
+            }
+          }
+          if (specified > 0 && specified != 1) {
+            return Violation.because(
+                "Parameters %s cannot be specified together", Arrays.toString(parameter));
+          }
+          return null;
+        };
   }
 
   @Value
@@ -141,49 +152,51 @@ public class Rules {
      * themselves, but also any provided to the method.
      */
     public Rule thenAllowOnlyKnownModifiers(String... additionalSupportedModifiers) {
-      return (ctx) -> {
-        // If parameter has no modifier, continue
-        if (ctx.request().getParameter(parameter()) != null) {
-          return;
-        }
-        var supportedParameters =
-            ctx.config().supportedParameters().stream()
+      return (ViolationRule)
+          (ctx) -> {
+            // If parameter has no modifier, continue
+            if (ctx.request().getParameter(parameter()) != null) {
+              return null;
+            }
+            var supportedParameters =
+                ctx.config().supportedParameters().stream()
+                    .filter(p -> p.startsWith(parameter()))
+                    .filter(p -> p.contains(":"))
+                    .collect(toSet());
+            var allowedParameters =
+                Stream.concat(
+                        supportedParameters.stream(),
+                        Arrays.stream(additionalSupportedModifiers)
+                            .map(m -> join(":", parameter(), m)))
+                    .collect(toSet());
+            return ctx.request().getParameterMap().keySet().stream()
                 .filter(p -> p.startsWith(parameter()))
-                .filter(p -> p.contains(":"))
-                .collect(toSet());
-        var allowedParameters =
-            Stream.concat(
-                    supportedParameters.stream(),
-                    Arrays.stream(additionalSupportedModifiers).map(m -> join(":", parameter(), m)))
-                .collect(toSet());
-        ctx.request().getParameterMap().keySet().stream()
-            .filter(p -> p.startsWith(parameter()))
-            .forEach(
-                p -> {
-                  if (!allowedParameters.contains(p)) {
-                    throw InvalidRequest.badParameter(
-                        p, ctx.request().getParameter(p), "Modifier not allowed.");
-                  }
-                });
-      };
+                .filter(p -> !allowedParameters.contains(p))
+                .findFirst()
+                .map(
+                    p ->
+                        Violation.badParameter(
+                            p, ctx.request().getParameter(p), "Modifier not allowed."))
+                .orElse(null);
+          };
     }
 
     /** Require at least one of the given parameters to be specified. */
     public Rule thenAlsoAtLeastOneParameterOf(String... requiredParameters) {
-      return (ctx) -> {
-        if (isNotBlank(ctx.request().getParameter(parameter))) {
-          atLeastOneParameterOf(requiredParameters).check(ctx);
-        }
-      };
+      return (ViolationRule)
+          (ctx) ->
+              isNotBlank(ctx.request().getParameter(parameter))
+                  ? atLeastOneParameterOf(requiredParameters).violationOf(ctx)
+                  : null;
     }
 
     /** Forbid all of the given parameters from being specified. */
     public Rule thenForbidParameters(String... forbiddenParameters) {
-      return (ctx) -> {
-        if (isNotBlank(ctx.request().getParameter(parameter))) {
-          forbiddenParameters(forbiddenParameters).check(ctx);
-        }
-      };
+      return (ViolationRule)
+          (ctx) ->
+              isNotBlank(ctx.request().getParameter(parameter))
+                  ? forbiddenParameters(forbiddenParameters).violationOf(ctx)
+                  : null;
     }
   }
 }
@@ -0,0 +1,175 @@
+package gov.va.api.lighthouse.vulcan;
+
+import java.time.Duration;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import lombok.Builder;
+
+/**
+ * Limits the number of searches that run at once, so that runaway search traffic cannot use up
+ * the connection pool that every endpoint depends on. Searches beyond the limit wait in a bounded
+ * queue for up to the maximum wait. Searches that cannot wait are rejected with TooManySearches
+ * before any rules run or queries are built.
+ *
+ * <p>If a target latency is specified, the limit adapts using additive increase and
+ * multiplicative decrease. Searches slower than the target shrink the limit by 10%, searches
+ * within the target grow it by one while the bulkhead is at least half used. By Little's law, the
+ * limit settles near the throughput the database sustains multiplied by the target latency.
+ *
+ * <p>Use a separate instance for each configuration and share it between Vulcan instances, e.g.
+ * as a bean.
+ */
+public class SearchBulkhead {
+  private static final double DECREASE_FACTOR = 0.9;
+
+  private final ReentrantLock lock = new ReentrantLock(true);
+
+  private final Condition permitAvailable = lock.newCondition();
+
+  private final int minConcurrent;
+
+  private final int maxConcurrent;
+
+  private final int maxQueued;
+
+  private final long maxWaitNanos;
+
+  private final long targetLatencyNanos;
+
+  private double limit;
+
+  private int inFlight;
+
+  private int queued;
+
+  /**
+   * Create a new bulkhead. The maximum concurrent searches is required. If not specified, searches
+   * are rejected immediately instead of waiting, and the limit is fixed. With a target latency,
+   * the limit starts at the maximum and adapts between the minimum, default 1, and the maximum.
+   */
+  @Builder
+  private SearchBulkhead(
+      int maxConcurrent,
+      Integer maxQueued,
+      Duration maxWait,
+      Duration targetLatency,
+      Integer minConcurrent) {
+    if (maxConcurrent <= 0) {
+      throw new IllegalArgumentException("maxConcurrent must be greater than 0");
+    }
+    this.maxConcurrent = maxConcurrent;
+    this.minConcurrent = minConcurrent == null ? 1 : Math.max(1, minConcurrent);
+    if (this.minConcurrent > maxConcurrent) {
+      throw new IllegalArgumentException("minConcurrent must not be greater than maxConcurrent");
+    }
+    this.maxQueued = maxQueued == null ? 0 : maxQueued;
+    this.maxWaitNanos = maxWait == null ? 0 : maxWait.toNanos();
+    this.targetLatencyNanos = targetLatency == null ? 0 : targetLatency.toNanos();
+    this.limit = maxConcurrent;
+  }
+
+  private void acquire() {
+    lock.lock();
+    try {
+      if (queued == 0 && inFlight < currentLimit()) {
+        inFlight++;
+        return;
+      }
+      if (queued >= maxQueued || maxWaitNanos <= 0) {
+        throw TooManySearches.limitReached(currentLimit(), queued);
+      }
+      queued++;
+      try {
+        long remaining = maxWaitNanos;
+        while (inFlight >= currentLimit()) {
+          if (remaining <= 0) {
+            throw TooManySearches.limitReached(currentLimit(), queued - 1);
+          }
+          remaining = permitAvailable.awaitNanos(remaining);
+        }
+        inFlight++;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw TooManySearches.limitReached(currentLimit(), queued - 1);
+      } finally {
+        queued--;
+        if (inFlight < currentLimit()) {
+          permitAvailable.signal();
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private int currentLimit() {
+    return (int) limit;
+  }
+
+  /**
+   * Run the search within the bulkhead. TooManySearches is thrown if the search cannot start
+   * within the wait limits.
+   */
+  <T> T execute(Supplier<T> search) {
+    acquire();
+    long start = System.nanoTime();
+    try {
+      return search.get();
+    } finally {
+      release(System.nanoTime() - start);
+    }
+  }
+
+  /** The number of searches in progress. */
+  public int inFlight() {
+    lock.lock();
+    try {
+      return inFlight;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** The current concurrency limit. */
+  public int limit() {
+    lock.lock();
+    try {
+      return currentLimit();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** The number of searches waiting to start. */
+  public int queued() {
+    lock.lock();
+    try {
+      return queued;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void release(long latencyNanos) {
+    lock.lock();
+    try {
+      int previousLimit = currentLimit();
+      if (targetLatencyNanos > 0) {
+        if (latencyNanos > targetLatencyNanos) {
+          limit = Math.max(minConcurrent, limit * DECREASE_FACTOR);
+        } else if (inFlight * 2 >= limit) {
+          limit = Math.min(maxConcurrent, limit + 1);
+        }
+      }
+      inFlight--;
+      if (currentLimit() > previousLimit) {
+        permitAvailable.signalAll();
+      } else {
+        permitAvailable.signal();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+}
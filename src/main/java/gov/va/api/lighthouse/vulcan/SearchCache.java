@@ -0,0 +1,20 @@
+package gov.va.api.lighthouse.vulcan;
+
+import java.util.function.Predicate;
+
+/**
+ * A cache of information about searches, keyed by search fingerprint. Entries must be invalidated
+ * when records they describe are written, either directly or with a CacheInvalidator.
+ */
+public interface SearchCache {
+  /** Forget every entry. */
+  void clear();
+
+  /** Forget entries of searches of the given entity type. */
+  default void invalidate(Class<?> entityType) {
+    invalidateIf(fingerprint -> fingerprint.isFor(entityType));
+  }
+
+  /** Forget entries of searches that match. */
+  void invalidateIf(Predicate<SearchFingerprint> affected);
+}
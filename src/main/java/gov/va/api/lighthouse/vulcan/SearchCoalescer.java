@@ -0,0 +1,86 @@
+package gov.va.api.lighthouse.vulcan;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces identical count only searches that are executing at the same time. The first search
+ * executes and every identical search that arrives while it is in flight waits for and shares its
+ * total. Searches are identical if they have the same fingerprint, sort, page, count, total mode,
+ * and continuation position. Nothing is cached, once the search completes the next identical search
+ * executes again.
+ *
+ * <p>Only totals are shared. Entities are attached to the persistence context of the search that
+ * loaded them and paging links belong to its request, so neither is shared with other searches.
+ *
+ * <p>Waiting searches only share an InvalidRequest, which applies to every identical request. If
+ * the first search fails in any other way, e.g. because its statement was cancelled when its own
+ * client went away, or does not complete within the count deadline, each waiting search executes
+ * on its own.
+ */
+public class SearchCoalescer {
+  private final ConcurrentMap<SearchPageKey, CompletableFuture<Object>> inFlight =
+      new ConcurrentHashMap<>();
+
+  /**
+   * Execute the search, unless an identical search is in flight, in which case wait for its result
+   * up to the count deadline of the configuration. If the search in flight is rejected as invalid,
+   * every waiting caller receives the same exception, otherwise callers that do not receive a
+   * result execute the search themselves.
+   */
+  @SuppressWarnings("unchecked")
+  <T> T coalesce(RequestContext<?> context, Supplier<T> search, Runnable whenCoalesced) {
+    SearchPageKey key = SearchPageKey.of(context);
+    CompletableFuture<Object> mine = new CompletableFuture<>();
+    CompletableFuture<Object> existing = inFlight.putIfAbsent(key, mine);
+    if (existing != null) {
+      whenCoalesced.run();
+      Object shared = waitFor(existing, context.config().paging().countDeadline());
+      return shared == null ? search.get() : (T) shared;
+    }
+    try {
+      T result = search.get();
+      mine.complete(result);
+      return result;
+    } catch (RuntimeException e) {
+      mine.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(key, mine);
+    }
+  }
+
+  /** The number of searches currently in flight. */
+  public int inFlight() {
+    return inFlight.size();
+  }
+
+  /**
+   * Wait for the result of the search in flight, returning null if the caller should execute the
+   * search on its own because it failed for reasons other than an invalid request or did not
+   * complete in time.
+   */
+  private Object waitFor(CompletableFuture<Object> result, Duration deadline) {
+    try {
+      return deadline == null
+          ? result.get()
+          : result.get(deadline.toNanos(), TimeUnit.NANOSECONDS);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof InvalidRequest) {
+        throw (InvalidRequest) e.getCause();
+      }
+      return null;
+    } catch (TimeoutException e) {
+      return null;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return null;
+    }
+  }
+}
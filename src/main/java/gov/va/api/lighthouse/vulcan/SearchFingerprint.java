@@ -0,0 +1,91 @@
+package gov.va.api.lighthouse.vulcan;
+
+import static java.util.Map.Entry.comparingByKey;
+import static java.util.stream.Collectors.joining;
+
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+import javax.servlet.http.HttpServletRequest;
+import lombok.AllArgsConstructor;
+import lombok.NonNull;
+import lombok.Value;
+
+/**
+ * Canonical identity of the records a request will match. Requests of the same configuration and
+ * search scope with the same search parameters, regardless of order, paging, sorting, or unknown
+ * parameters, have equal fingerprints. Fingerprints are suitable as cache keys for configurations
+ * that are cacheable.
+ */
+@Value
+@AllArgsConstructor
+public class SearchFingerprint {
+  @NonNull String entityType;
+
+  /** The identity of the configuration, see VulcanConfiguration.identity(). */
+  @NonNull String configuration;
+
+  /** The search scope of the request, or empty if the configuration does not have one. */
+  @NonNull String scope;
+
+  @NonNull String parameters;
+
+  /** Create a fingerprint without a configuration identity or scope. */
+  public SearchFingerprint(String entityType, String parameters) {
+    this(entityType, "", "", parameters);
+  }
+
+  /** Create the fingerprint for the request as understood by the configuration. */
+  public static SearchFingerprint of(VulcanConfiguration<?> config, HttpServletRequest request) {
+    Set<String> supportedParameters = new HashSet<>(config.supportedParameters());
+    String parameters =
+        request.getParameterMap().entrySet().stream()
+            .filter(entry -> !config.paging().isPagingRelatedParameter(entry.getKey()))
+            .filter(entry -> supportedParameters.contains(entry.getKey()))
+            .sorted(comparingByKey())
+            .flatMap(SearchFingerprint::asCanonicalQueryParameters)
+            .collect(joining("&"));
+    String scope = config.searchScope() == null ? null : config.searchScope().apply(request);
+    return new SearchFingerprint(
+        config.entityType() == null ? "" : config.entityType().getName(),
+        config.identity(),
+        scope == null ? "" : scope,
+        parameters);
+  }
+
+  private static Stream<String> asCanonicalQueryParameters(Map.Entry<String, String[]> entry) {
+    return Stream.of(entry.getValue())
+        .sorted()
+        .map(value -> entry.getKey() + '=' + URLEncoder.encode(value, StandardCharsets.UTF_8));
+  }
+
+  /** Return true if this fingerprint is for a search of the given entity type. */
+  public boolean isFor(Class<?> type) {
+    return entityType.equals(type.getName());
+  }
+
+  /**
+   * Return the decoded values of the parameter, or an empty set if the search does not use it.
+   * Comma separated values are included both as a whole and individually.
+   */
+  public Set<String> valuesOf(String parameter) {
+    if (parameters.isEmpty()) {
+      return Set.of();
+    }
+    String prefix = parameter + '=';
+    Set<String> values = new HashSet<>();
+    for (String pair : parameters.split("&", -1)) {
+      if (pair.startsWith(prefix)) {
+        String value = URLDecoder.decode(pair.substring(prefix.length()), StandardCharsets.UTF_8);
+        values.add(value);
+        values.addAll(Arrays.asList(value.split(",", -1)));
+      }
+    }
+    return values;
+  }
+}
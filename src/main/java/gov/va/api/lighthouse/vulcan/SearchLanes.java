@@ -0,0 +1,268 @@
+package gov.va.api.lighthouse.vulcan;
+
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+
+import gov.va.api.lighthouse.vulcan.VulcanConfiguration.PagingConfiguration;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import javax.servlet.http.HttpServletRequest;
+import lombok.Builder;
+import lombok.Singular;
+import lombok.Value;
+
+/**
+ * Schedules searches in lanes by workload class, so interactive page fetches stay fast while bulk
+ * crawls use the remaining database capacity. Each lane has its own concurrency budget and queue.
+ * When capacity is freed, waiting searches are started using smooth weighted round robin across
+ * the lanes that have waiters, so a lane with weight 4 starts four searches for every one of a
+ * lane with weight 1.
+ *
+ * <p>Searches run on the calling thread, since the EntityManager and any transaction are bound to
+ * it. Lanes therefore budget concurrency and order starts rather than moving work to other threads.
+ * Searches that cannot start within the lane limits are rejected with TooManySearches.
+ *
+ * <p>Share a single instance between Vulcan instances, e.g. as a bean.
+ */
+public class SearchLanes {
+  private final int maxConcurrent;
+
+  private final Duration maxWait;
+
+  private final Classifier classifier;
+
+  private final Map<WorkloadClass, LaneState> lanes = new EnumMap<>(WorkloadClass.class);
+
+  private final ReentrantLock lock = new ReentrantLock();
+
+  private final Condition started = lock.newCondition();
+
+  private int inFlight;
+
+  /**
+   * Create lanes sharing the maximum concurrent searches, which is required. Classes without a
+   * lane get a lane with weight 1 that may use all capacity and does not queue. If not specified,
+   * searches are classified with standardClassifier and wait up to one second.
+   */
+  @Builder
+  private SearchLanes(
+      int maxConcurrent,
+      @Singular Map<WorkloadClass, Lane> lanes,
+      Duration maxWait,
+      Classifier classifier) {
+    if (maxConcurrent <= 0) {
+      throw new IllegalArgumentException("maxConcurrent must be greater than 0");
+    }
+    this.maxConcurrent = maxConcurrent;
+    this.maxWait = maxWait == null ? Duration.ofSeconds(1) : maxWait;
+    this.classifier = classifier == null ? standardClassifier() : classifier;
+    for (WorkloadClass workloadClass : WorkloadClass.values()) {
+      Lane lane = lanes.getOrDefault(workloadClass, Lane.builder().build());
+      if (lane.weight() <= 0) {
+        throw new IllegalArgumentException(workloadClass + " weight must be greater than 0");
+      }
+      this.lanes.put(workloadClass, new LaneState(lane));
+    }
+  }
+
+  private static boolean isMaxCount(PagingConfiguration paging, String count) {
+    try {
+      return Integer.parseInt(count) >= paging.maxCount();
+    } catch (NumberFormatException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Classify requests with a count of zero as count only, requests with a continuation token or
+   * for the maximum count as bulk, and all other requests as interactive.
+   */
+  public static Classifier standardClassifier() {
+    return (paging, request) -> {
+      String count = request.getParameter(paging.countParameter());
+      if ("0".equals(count)) {
+        return WorkloadClass.COUNT_ONLY;
+      }
+      if (isNotBlank(request.getParameter(paging.continuationParameter()))
+          || (isNotBlank(count) && isMaxCount(paging, count))) {
+        return WorkloadClass.BULK;
+      }
+      return WorkloadClass.INTERACTIVE;
+    };
+  }
+
+  private LaneState acquire(WorkloadClass workloadClass) {
+    LaneState lane = lanes.get(workloadClass);
+    lock.lock();
+    try {
+      if (lane.waiting.isEmpty() && canStart(lane)) {
+        start(lane);
+        return lane;
+      }
+      if (lane.waiting.size() >= lane.lane.maxQueued()) {
+        throw TooManySearches.limitReached(lane.lane.maxConcurrent(), lane.waiting.size());
+      }
+      Waiter waiter = new Waiter();
+      lane.waiting.add(waiter);
+      long remaining = maxWait.toNanos();
+      try {
+        while (!waiter.started) {
+          if (remaining <= 0) {
+            throw TooManySearches.limitReached(lane.lane.maxConcurrent(), lane.waiting.size() - 1);
+          }
+          remaining = started.awaitNanos(remaining);
+        }
+        return lane;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        if (waiter.started) {
+          /* Interrupted after being started, give the capacity to the next waiting search. */
+          release(lane);
+        }
+        throw TooManySearches.limitReached(lane.lane.maxConcurrent(), lane.waiting.size() - 1);
+      } finally {
+        if (!waiter.started) {
+          lane.waiting.remove(waiter);
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private boolean canStart(LaneState lane) {
+    return inFlight < maxConcurrent && lane.inFlight < lane.lane.maxConcurrent();
+  }
+
+  /**
+   * Start waiting searches while there is capacity, choosing lanes by smooth weighted round robin.
+   */
+  private void dispatch() {
+    boolean startedAny = false;
+    while (inFlight < maxConcurrent) {
+      LaneState chosen = null;
+      int totalWeight = 0;
+      for (LaneState lane : lanes.values()) {
+        if (lane.waiting.isEmpty() || !canStart(lane)) {
+          continue;
+        }
+        lane.credit += lane.lane.weight();
+        totalWeight += lane.lane.weight();
+        if (chosen == null || lane.credit > chosen.credit) {
+          chosen = lane;
+        }
+      }
+      if (chosen == null) {
+        break;
+      }
+      chosen.credit -= totalWeight;
+      chosen.waiting.poll().started = true;
+      start(chosen);
+      startedAny = true;
+    }
+    if (startedAny) {
+      started.signalAll();
+    }
+  }
+
+  /**
+   * Run the search in the lane for its workload class. TooManySearches is thrown if the search
+   * cannot start within the lane limits.
+   */
+  <T> T execute(PagingConfiguration paging, HttpServletRequest request, Supplier<T> search) {
+    LaneState lane = acquire(classifier.classify(paging, request));
+    try {
+      return search.get();
+    } finally {
+      release(lane);
+    }
+  }
+
+  /** The number of searches in progress in all lanes. */
+  public int inFlight() {
+    lock.lock();
+    try {
+      return inFlight;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** The number of searches in progress in the lane. */
+  public int inFlight(WorkloadClass workloadClass) {
+    lock.lock();
+    try {
+      return lanes.get(workloadClass).inFlight;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** The number of searches waiting to start in the lane. */
+  public int queued(WorkloadClass workloadClass) {
+    lock.lock();
+    try {
+      return lanes.get(workloadClass).waiting.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void release(LaneState lane) {
+    lock.lock();
+    try {
+      inFlight--;
+      lane.inFlight--;
+      dispatch();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void start(LaneState lane) {
+    inFlight++;
+    lane.inFlight++;
+  }
+
+  /** Chooses the workload class of a request before it is processed. */
+  @FunctionalInterface
+  public interface Classifier {
+    WorkloadClass classify(PagingConfiguration paging, HttpServletRequest request);
+  }
+
+  /** The budget of a workload class. */
+  @Value
+  @Builder
+  public static class Lane {
+    /** The relative share of starts when several lanes have waiting searches. */
+    @Builder.Default int weight = 1;
+
+    /** The most searches of the class that run at once. */
+    @Builder.Default int maxConcurrent = Integer.MAX_VALUE;
+
+    /** The most searches of the class that wait to start, if none, searches do not wait. */
+    @Builder.Default int maxQueued = 0;
+  }
+
+  private static class LaneState {
+    private final Lane lane;
+
+    private final ArrayDeque<Waiter> waiting = new ArrayDeque<>();
+
+    private int inFlight;
+
+    private int credit;
+
+    LaneState(Lane lane) {
+      this.lane = lane;
+    }
+  }
+
+  private static class Waiter {
+    private boolean started;
+  }
+}
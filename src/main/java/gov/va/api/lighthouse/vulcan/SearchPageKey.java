@@ -0,0 +1,53 @@
+package gov.va.api.lighthouse.vulcan;
+
+import java.util.List;
+import lombok.Value;
+
+/**
+ * Canonical identity of a page of search results. Requests with equal keys produce the same page,
+ * so keys are suitable for sharing or caching whole pages. Serialized pages also depend on the
+ * serializer and on the base URL of their links, which are part of the key.
+ */
+@Value
+class SearchPageKey {
+  SearchFingerprint fingerprint;
+
+  String sort;
+
+  int page;
+
+  int count;
+
+  long offset;
+
+  TotalMode totalMode;
+
+  List<Object> position;
+
+  String baseUrl;
+
+  String serializer;
+
+  /** Create the key of the page of the request, without a serializer. */
+  static SearchPageKey of(RequestContext<?> context) {
+    return of(context, "");
+  }
+
+  /** Create the key of the page of the request as rendered by the serializer. */
+  static SearchPageKey of(RequestContext<?> context, PageSerializer<?> serializer) {
+    return of(context, serializer.identity());
+  }
+
+  private static SearchPageKey of(RequestContext<?> context, String serializer) {
+    return new SearchPageKey(
+        context.fingerprint(),
+        context.pageRequest().getSort().toString(),
+        context.page(),
+        context.count(),
+        context.offset(),
+        context.totalMode(),
+        context.continuation() == null ? List.of() : context.continuation().position(),
+        context.config().paging().baseUrlStrategy().apply(context.request()),
+        serializer);
+  }
+}
@@ -0,0 +1,80 @@
+package gov.va.api.lighthouse.vulcan;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.function.Predicate;
+import lombok.Builder;
+import lombok.Value;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Remembers the ordered IDs of recently executed searches so that later pages are answered by
+ * slicing the snapshot and fetching only the IDs on the page. Pages stay consistent while the
+ * snapshot lives, even if records are being written, and deep pages cost the same as the first.
+ *
+ * <p>Snapshots are stored as primitive long arrays, 8 bytes per record. Searches matching more
+ * than the maximum number of IDs are not snapshotted. Memory use is bounded by max entries times
+ * max IDs per snapshot.
+ */
+public class SearchSnapshots implements SearchCache {
+  /** Remembered in place of IDs for searches that match too many records to snapshot. */
+  static final long[] TOO_LARGE = new long[0];
+
+  private final LruCache<Key, long[]> snapshots;
+
+  private final int maxIdsPerSnapshot;
+
+  @Builder
+  private SearchSnapshots(int maxEntries, int maxIdsPerSnapshot, Duration timeToLive, Clock clock) {
+    if (maxIdsPerSnapshot <= 0) {
+      throw new IllegalArgumentException("maxIdsPerSnapshot must be greater than 0");
+    }
+    this.maxIdsPerSnapshot = maxIdsPerSnapshot;
+    snapshots =
+        LruCache.<Key, long[]>builder()
+            .maxEntries(maxEntries)
+            .timeToLive(timeToLive)
+            .clock(clock)
+            .build();
+  }
+
+  /** Forget every snapshot. */
+  @Override
+  public void clear() {
+    snapshots.clear();
+  }
+
+  /**
+   * Return the snapshot for the search, TOO_LARGE if the search cannot be snapshotted, or null if
+   * there is none. Do not modify the array.
+   */
+  long[] get(SearchFingerprint fingerprint, Sort sort) {
+    return snapshots.get(new Key(fingerprint, sort.toString()));
+  }
+
+  /** Forget snapshots of searches that match. */
+  @Override
+  public void invalidateIf(Predicate<SearchFingerprint> affected) {
+    snapshots.removeIf(key -> affected.test(key.fingerprint()));
+  }
+
+  /** The largest number of IDs a snapshot may hold. */
+  public int maxIdsPerSnapshot() {
+    return maxIdsPerSnapshot;
+  }
+
+  /**
+   * Remember the ordered IDs matching the search, or TOO_LARGE. The array must not be modified
+   * afterwards.
+   */
+  void put(SearchFingerprint fingerprint, Sort sort, long[] ids) {
+    snapshots.put(new Key(fingerprint, sort.toString()), ids);
+  }
+
+  @Value
+  private static class Key {
+    SearchFingerprint fingerprint;
+
+    String sort;
+  }
+}
@@ -1,15 +1,23 @@
 package gov.va.api.lighthouse.vulcan;
 
+import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toSet;
 
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collector;
 import java.util.stream.Collector.Characteristics;
+import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaBuilder.In;
+import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.metamodel.SingularAttribute;
 import lombok.Getter;
+import lombok.NonNull;
+import lombok.Value;
 import lombok.experimental.UtilityClass;
 import org.springframework.data.jpa.domain.Specification;
 
@@ -30,6 +38,12 @@ public class Specifications {
         Characteristics.UNORDERED);
   }
 
+  /** A specification that matches every record. Collectors drop it when combining. */
+  @SuppressWarnings("unchecked")
+  public static <E> Specification<E> always() {
+    return (Specification<E>) (Specification<?>) ConstantSpecification.ALWAYS;
+  }
+
   /**
    * Create a Stream collector for Specifications where the final form must match any specifications
    * that were collected.
@@ -44,24 +58,103 @@ public class Specifications {
         Characteristics.UNORDERED);
   }
 
+  /**
+   * Determine if two values could possibly be equal in the database. Values of different types
+   * cannot be compared reliably and strings may be compared by a case insensitive collation, so
+   * this errs on the side of caution.
+   */
+  private static boolean couldBeEqual(Object a, Object b) {
+    if (a instanceof CharSequence && b instanceof CharSequence) {
+      return a.toString().trim().equalsIgnoreCase(b.toString().trim());
+    }
+    if (a == null || b == null || !a.getClass().equals(b.getClass())) {
+      return true;
+    }
+    return a.equals(b);
+  }
+
+  /**
+   * Combine specifications that must all match after folding away constants, without throwing.
+   * This is the same as foldAll, except that unsatisfiable combinations are no results outcomes.
+   */
+  public static <E> Outcome<Specification<E>> fold(Collection<Specification<E>> specifications) {
+    List<Specification<E>> remaining =
+        specifications.stream().filter(Objects::nonNull).collect(toList());
+    if (remaining.isEmpty()) {
+      return Outcome.of(null);
+    }
+    if (remaining.stream().anyMatch(Specifications::isNever)) {
+      return Outcome.noResults(
+          CircuitBreaker.unsatisfiableMessage("A search parameter can never match."));
+    }
+    List<FieldValuesSpecification<?>> fieldValues =
+        remaining.stream()
+            .filter(s -> s instanceof FieldValuesSpecification)
+            .map(s -> (FieldValuesSpecification<?>) s)
+            .collect(toList());
+    for (int i = 0; i < fieldValues.size(); i++) {
+      for (int j = i + 1; j < fieldValues.size(); j++) {
+        if (fieldValues.get(i).contradicts(fieldValues.get(j))) {
+          return Outcome.noResults(
+              CircuitBreaker.unsatisfiableMessage(
+                  "Contradictory values for " + fieldValues.get(i).fieldName() + "."));
+        }
+      }
+    }
+    return Outcome.of(remaining.stream().collect(all()));
+  }
+
+  /**
+   * Combine specifications that must all match after folding away constants. Specifications that
+   * always match are removed. If any specification can never match, or two specifications require
+   * the same field to have values that can never be equal, a CircuitBreaker is thrown so that the
+   * database is not searched. Null is returned if there are no specifications.
+   */
+  public static <E> Specification<E> foldAll(Collection<Specification<E>> specifications) {
+    return fold(specifications).orElseThrow();
+  }
+
+  /** Return true if the specification is the constant that matches every record. */
+  public static boolean isAlways(Specification<?> specification) {
+    return specification == ConstantSpecification.ALWAYS;
+  }
+
+  /** Return true if the specification is the constant that matches no records. */
+  public static boolean isNever(Specification<?> specification) {
+    return specification == ConstantSpecification.NEVER;
+  }
+
+  /**
+   * A specification that matches no records. Searches that must match it are short circuited
+   * instead of being sent to the database.
+   */
+  @SuppressWarnings("unchecked")
+  public static <E> Specification<E> never() {
+    return (Specification<E>) (Specification<?>) ConstantSpecification.NEVER;
+  }
+
   public static <E> Specification<E> select(String fieldName, Object value) {
     return selectInList(fieldName, List.of(value));
   }
 
+  /** Like select, using the resolved attribute of the field if not null. */
+  public static <E> Specification<E> select(
+      String fieldName, SingularAttribute<?, ?> attribute, Object value) {
+    return selectInList(fieldName, attribute, List.of(value));
+  }
+
   /** Produces a specification than explicitly handles a lists of 0 and 1. */
   public static <E> Specification<E> selectInList(String fieldName, Collection<?> values) {
+    return selectInList(fieldName, null, values);
+  }
+
+  /** Like selectInList, using the resolved attribute of the field if not null. */
+  public static <E> Specification<E> selectInList(
+      String fieldName, SingularAttribute<?, ?> attribute, Collection<?> values) {
     if (values == null || values.isEmpty()) {
       return null;
     }
-    if (values.size() == 1) {
-      return (root, criteriaQuery, criteriaBuilder) ->
-          criteriaBuilder.equal(root.get(fieldName), values.stream().findFirst().orElseThrow());
-    }
-    return (root, criteriaQuery, criteriaBuilder) -> {
-      In<Object> in = criteriaBuilder.in(root.get(fieldName));
-      values.forEach(in::value);
-      return criteriaBuilder.or(in);
-    };
+    return new FieldValuesSpecification<>(fieldName, attribute, values);
   }
 
   /** Produces a specification that explicitly looks for non-null values. */
@@ -80,16 +173,61 @@ public class Specifications {
     return strings((Object[]) enumClass.getEnumConstants());
   }
 
+  private enum ConstantSpecification implements Specification<Object> {
+    ALWAYS,
+    NEVER;
+
+    @Override
+    public Predicate toPredicate(
+        Root<Object> root, CriteriaQuery<?> criteriaQuery, CriteriaBuilder criteriaBuilder) {
+      return this == ALWAYS ? criteriaBuilder.conjunction() : criteriaBuilder.disjunction();
+    }
+  }
+
+  /**
+   * Matches records where the field is equal to one of the values. Unlike a lambda, this can be
+   * inspected to find contradictory searches before reaching the database.
+   */
+  @Value
+  private static class FieldValuesSpecification<E> implements Specification<E> {
+    @NonNull String fieldName;
+
+    SingularAttribute<?, ?> attribute;
+
+    @NonNull Collection<?> values;
+
+    boolean contradicts(FieldValuesSpecification<?> other) {
+      if (!fieldName.equals(other.fieldName())) {
+        return false;
+      }
+      return values.stream()
+          .noneMatch(v -> other.values().stream().anyMatch(o -> couldBeEqual(v, o)));
+    }
+
+    @Override
+    public Predicate toPredicate(
+        Root<E> root, CriteriaQuery<?> criteriaQuery, CriteriaBuilder criteriaBuilder) {
+      if (values.size() == 1) {
+        Object value = values.stream().findFirst().orElseThrow();
+        return criteriaBuilder.equal(EntityFields.get(root, fieldName, attribute), value);
+      }
+      In<Object> in = criteriaBuilder.in(EntityFields.get(root, fieldName, attribute));
+      values.forEach(in::value);
+      return criteriaBuilder.or(in);
+    }
+  }
+
   private static class MatchesAllSpecifications<E> {
     @Getter Specification<E> specification;
 
     MatchesAllSpecifications<E> add(Specification<E> andMe) {
-      if (andMe != null) {
-        if (specification == null) {
-          specification = andMe;
-        } else {
-          specification = specification.and(andMe);
-        }
+      if (andMe == null || (isAlways(andMe) && specification != null) || isNever(specification)) {
+        return this;
+      }
+      if (specification == null || isAlways(specification) || isNever(andMe)) {
+        specification = andMe;
+      } else {
+        specification = specification.and(andMe);
       }
       return this;
     }
@@ -99,12 +237,13 @@ public class Specifications {
     @Getter Specification<E> specification;
 
     MatchesAnySpecifications<E> add(Specification<E> orMe) {
-      if (orMe != null) {
-        if (specification == null) {
-          specification = orMe;
-        } else {
-          specification = specification.or(orMe);
-        }
+      if (orMe == null || (isNever(orMe) && specification != null) || isAlways(specification)) {
+        return this;
+      }
+      if (specification == null || isNever(specification) || isAlways(orMe)) {
+        specification = orMe;
+      } else {
+        specification = specification.or(orMe);
       }
       return this;
     }
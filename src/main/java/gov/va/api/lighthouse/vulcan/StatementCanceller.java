@@ -0,0 +1,198 @@
+package gov.va.api.lighthouse.vulcan;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import javax.persistence.QueryTimeoutException;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.http.HttpServletRequest;
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Cancels the running statement of a search when the client is no longer waiting for it, so that
+ * neither the request thread nor the database keep working on results nobody will read. Statements
+ * are cancelled when the async request times out or fails, e.g. because the client disconnected,
+ * or when the search deadline passes. A search whose statement was cancelled fails with a
+ * QueryTimeoutException, which Vulcan counts as a cancelled statement.
+ *
+ * <p>Statements are cancelled with Hibernate's Session.cancelQuery, which is best effort: a
+ * statement that starts after the cancellation still runs, bounded only by the statement timeout
+ * of the paging configuration. Searches must run in a transaction, e.g. with
+ * `@Transactional(readOnly = true)`, so that their statements share a session. Share a single
+ * instance between Vulcan instances, e.g. as a bean.
+ */
+@Slf4j
+public class StatementCanceller {
+  private static final ThreadLocal<Guard> CURRENT = new ThreadLocal<>();
+
+  /**
+   * Runs the cancellations of statement deadlines, which are quick. The thread is a daemon, so it
+   * does not keep the application running.
+   */
+  private static final ScheduledExecutorService DEADLINES =
+      Executors.newSingleThreadScheduledExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "vulcan-statement-deadlines");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  private final Duration deadline;
+
+  private final ScheduledExecutorService scheduler;
+
+  /**
+   * Create a new canceller. If not specified, there is no deadline and statements are only
+   * cancelled when the async request is aborted. The scheduler is required with a deadline and
+   * only runs the cancellations, which are quick.
+   */
+  @Builder
+  private StatementCanceller(Duration deadline, ScheduledExecutorService scheduler) {
+    if (deadline != null && (deadline.isNegative() || deadline.isZero())) {
+      throw new IllegalArgumentException("deadline must be positive");
+    }
+    if (deadline != null && scheduler == null) {
+      throw new IllegalArgumentException("scheduler is required with a deadline");
+    }
+    this.deadline = deadline;
+    this.scheduler = scheduler;
+  }
+
+  /** Return true if the statements of the search running on this thread have been cancelled. */
+  static boolean isCancelled() {
+    Guard guard = CURRENT.get();
+    return guard != null && guard.reason() != null;
+  }
+
+  /**
+   * Run the statement, cancelling it if it runs longer than the deadline. This enforces deadlines
+   * more precisely than the query timeout hint, which most drivers round up to whole seconds. Once
+   * cancelled, a failed statement is reported as a QueryTimeoutException.
+   */
+  static <T> T withinDeadline(Duration deadline, Runnable cancelStatement, Supplier<T> statement) {
+    Guard guard = new Guard(cancelStatement);
+    ScheduledFuture<?> timer =
+        DEADLINES.schedule(
+            () -> guard.cancel("deadline " + deadline + " passed"),
+            deadline.toNanos(),
+            TimeUnit.NANOSECONDS);
+    try {
+      return statement.get();
+    } catch (RuntimeException e) {
+      String reason = guard.reason();
+      if (reason == null || e instanceof QueryTimeoutException) {
+        throw e;
+      }
+      throw new QueryTimeoutException("Statement cancelled: " + reason, e);
+    } finally {
+      guard.finish();
+      timer.cancel(false);
+    }
+  }
+
+  /**
+   * Run the search, cancelling its running statement if the async request is aborted or the
+   * deadline passes. Once cancelled, a failed search is reported as a QueryTimeoutException, which
+   * can be told apart from statements that timed out on their own by being Cancelled.
+   */
+  <T> T execute(HttpServletRequest request, Runnable cancelStatement, Supplier<T> search) {
+    Guard guard = new Guard(cancelStatement);
+    if (request.isAsyncStarted()) {
+      request.getAsyncContext().addListener(guard);
+    }
+    ScheduledFuture<?> timer =
+        deadline == null
+            ? null
+            : scheduler.schedule(
+                () -> guard.cancel("deadline " + deadline + " passed"),
+                deadline.toNanos(),
+                TimeUnit.NANOSECONDS);
+    Guard enclosing = CURRENT.get();
+    CURRENT.set(guard);
+    try {
+      return search.get();
+    } catch (RuntimeException e) {
+      String reason = guard.reason();
+      if (reason == null) {
+        throw e;
+      }
+      throw new Cancelled("Search cancelled: " + reason, e);
+    } finally {
+      guard.finish();
+      if (enclosing == null) {
+        CURRENT.remove();
+      } else {
+        CURRENT.set(enclosing);
+      }
+      if (timer != null) {
+        timer.cancel(false);
+      }
+    }
+  }
+
+  /** The failure of a search whose statement was cancelled by a StatementCanceller. */
+  static final class Cancelled extends QueryTimeoutException {
+    Cancelled(String message, Throwable cause) {
+      super(message, cause);
+    }
+  }
+
+  /** Cancels the statement at most once, and never after the search has finished. */
+  private static final class Guard implements AsyncListener {
+    private final Runnable cancelStatement;
+
+    private boolean finished;
+
+    private String reason;
+
+    Guard(Runnable cancelStatement) {
+      this.cancelStatement = cancelStatement;
+    }
+
+    synchronized void cancel(String why) {
+      if (finished || reason != null) {
+        return;
+      }
+      reason = why;
+      log.info("Cancelling search statement: {}", why);
+      try {
+        cancelStatement.run();
+      } catch (RuntimeException e) {
+        log.warn("Cannot cancel search statement: {}", e.getMessage());
+      }
+    }
+
+    synchronized void finish() {
+      finished = true;
+    }
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+      finish();
+    }
+
+    @Override
+    public void onError(AsyncEvent event) {
+      cancel("async request failed");
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+      // The listener is added after async processing has started.
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {
+      cancel("async request timed out");
+    }
+
+    synchronized String reason() {
+      return reason;
+    }
+  }
+}
@@ -49,9 +49,7 @@ public class SystemIdFields<EntityT> {
           return field.withSystemAndCode().apply(system, code);
         }
       }
-      return (root, criteriaQuery, criteriaBuilder) -> {
-        return criteriaBuilder.disjunction();
-      };
+      return Specifications.never();
     };
   }
 
@@ -63,9 +61,7 @@ public class SystemIdFields<EntityT> {
           return field.withSystem().apply(system);
         }
       }
-      return (root, criteriaQuery, criteriaBuilder) -> {
-        return criteriaBuilder.disjunction();
-      };
+      return Specifications.never();
     };
   }
 
@@ -0,0 +1,29 @@
+package gov.va.api.lighthouse.vulcan;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Indicates that a search was shed because too many searches are in progress. This would indicate
+ * that a 503 Service Unavailable should be returned to the user, who may retry later.
+ *
+ * <p>Searches are shed in bursts while overloaded, so stack traces are not captured.
+ */
+@ResponseStatus(code = HttpStatus.SERVICE_UNAVAILABLE)
+public class TooManySearches extends RuntimeException {
+  public TooManySearches(String message) {
+    super(message);
+  }
+
+  /** Stack traces are not captured. */
+  @Override
+  public synchronized Throwable fillInStackTrace() {
+    return this;
+  }
+
+  /** Create a new exception for a search that could not start within the wait limits. */
+  public static TooManySearches limitReached(int limit, int queued) {
+    return new TooManySearches(
+        String.format("Too many searches in progress: limit %d, waiting %d", limit, queued));
+  }
+}
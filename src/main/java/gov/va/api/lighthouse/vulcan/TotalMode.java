@@ -0,0 +1,28 @@
+package gov.va.api.lighthouse.vulcan;
+
+import java.util.Locale;
+
+/**
+ * FHIR total modes that control how much effort is spent determining the total number of matching
+ * records. See http://hl7.org/fhir/R4/search.html#total
+ */
+public enum TotalMode {
+  /** No total is computed. The total records reported is only a lower bound. */
+  NONE,
+  /** The total is estimated, e.g. from database planner statistics. */
+  ESTIMATE,
+  /** The total is computed exactly with a count query. */
+  ACCURATE;
+
+  /** Return the mode for a FHIR _total value, e.g. "estimate", or null if not known. */
+  public static TotalMode forParameterValue(String value) {
+    if (value == null) {
+      return null;
+    }
+    try {
+      return valueOf(value.toUpperCase(Locale.US));
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+}
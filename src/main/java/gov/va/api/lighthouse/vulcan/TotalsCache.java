@@ -0,0 +1,58 @@
+package gov.va.api.lighthouse.vulcan;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Predicate;
+import lombok.Builder;
+
+/**
+ * Remembers accurate totals of recently counted searches. Known totals allow Vulcan to skip count
+ * queries and to answer requests for pages beyond the last page without querying the database.
+ * Totals may be stale for up to the time to live, so choose it based on how quickly data changes.
+ */
+public class TotalsCache implements SearchCache {
+  private final LruCache<SearchFingerprint, Long> totals;
+
+  @Builder
+  private TotalsCache(int maxEntries, Duration timeToLive, Clock clock) {
+    totals =
+        LruCache.<SearchFingerprint, Long>builder()
+            .maxEntries(maxEntries)
+            .timeToLive(timeToLive)
+            .clock(clock)
+            .build();
+  }
+
+  /** Forget every total. */
+  @Override
+  public void clear() {
+    totals.clear();
+  }
+
+  /** Visit every unexpired total, e.g. to save them. */
+  void forEach(LruCache.EntryVisitor<SearchFingerprint, Long> visitor) {
+    totals.forEach(visitor);
+  }
+
+  /** Return the known total for the search, or null if it is not known. */
+  public Long get(SearchFingerprint fingerprint) {
+    return totals.get(fingerprint);
+  }
+
+  /** Forget totals for searches that match. */
+  @Override
+  public void invalidateIf(Predicate<SearchFingerprint> affected) {
+    totals.removeIf(affected);
+  }
+
+  /** Remember the accurate total for the search. */
+  public void put(SearchFingerprint fingerprint, long total) {
+    totals.put(fingerprint, total);
+  }
+
+  /** Restore a previously saved total that expires at the given time, or never if null. */
+  void restore(SearchFingerprint fingerprint, long total, Instant expiration) {
+    totals.put(fingerprint, total, expiration);
+  }
+}
@@ -0,0 +1,59 @@
+package gov.va.api.lighthouse.vulcan;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+import lombok.Value;
+
+/**
+ * Describes why a request is not valid. Rules and mappings that evaluate without throwing return
+ * a violation instead of throwing an InvalidRequest exception.
+ */
+@Value
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class Violation {
+  @NonNull String message;
+
+  /**
+   * The exception this violation was adapted from, if any, so that it is rethrown as is, keeping
+   * its type, response status, and cause.
+   */
+  @Getter(AccessLevel.NONE)
+  @EqualsAndHashCode.Exclude
+  @ToString.Exclude
+  InvalidRequest exception;
+
+  /** Create a violation for bad value, like a number that cannot be parsed. */
+  public static Violation badParameter(String parameter, String value, String message) {
+    return because("bad parameter: %s = %s : %s", parameter, value, message);
+  }
+
+  @SuppressWarnings("AnnotateFormatMethod")
+  public static Violation because(String format, Object... messageValues) {
+    return of(String.format(format, messageValues));
+  }
+
+  /** Adapt an exception thrown by a rule or mapping, which toException will rethrow. */
+  public static Violation from(@NonNull InvalidRequest exception) {
+    return new Violation(String.valueOf(exception.getMessage()), exception);
+  }
+
+  public static Violation noParametersSpecified() {
+    return of("No parameters specified.");
+  }
+
+  public static Violation of(String message) {
+    return new Violation(message, null);
+  }
+
+  /**
+   * Return the equivalent exception, for callers that report violations by throwing. Violations
+   * adapted from an exception return that same exception.
+   */
+  public InvalidRequest toException() {
+    return exception == null ? new InvalidRequest(message) : exception;
+  }
+}
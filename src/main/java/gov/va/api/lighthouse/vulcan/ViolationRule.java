@@ -0,0 +1,20 @@
+package gov.va.api.lighthouse.vulcan;
+
+/**
+ * A rule that reports a Violation instead of throwing an InvalidRequest exception. Check is
+ * provided for callers that expect an exception.
+ */
+@FunctionalInterface
+public interface ViolationRule extends Rule {
+  @Override
+  default void check(RuleContext context) {
+    Violation violation = violationOf(context);
+    if (violation != null) {
+      throw violation.toException();
+    }
+  }
+
+  /** Check some aspect of the request and return the violation, or null if it is satisfied. */
+  @Override
+  Violation violationOf(RuleContext context);
+}
@@ -1,15 +1,25 @@
 package gov.va.api.lighthouse.vulcan;
 
-import static java.util.Optional.empty;
+import static java.util.stream.Collectors.toUnmodifiableList;
 
 import gov.va.api.lighthouse.vulcan.VulcanResult.Paging;
-import java.util.Optional;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
+import javax.persistence.EntityManager;
+import javax.persistence.QueryTimeoutException;
 import javax.servlet.http.HttpServletRequest;
 import lombok.Builder;
 import lombok.NonNull;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 
@@ -17,13 +27,100 @@ import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
  * The request processor. This will accept an HTTP request object and generate a database query
  * based on mappings, then execute it. Any query clauses generated from parameters are combined with
  * using AND semantics.
+ *
+ * <p>Caches, snapshots, page boundaries, prefetching, and coalescing are only used for cacheable
+ * configurations, see VulcanConfiguration.isCacheable().
  */
+@Slf4j
 @Builder
 public class Vulcan<EntityT, JpaRepositoryT extends JpaSpecificationExecutor<EntityT>> {
   @NonNull private final JpaRepositoryT repository;
 
   @NonNull private final VulcanConfiguration<EntityT> config;
 
+  /**
+   * Optional. If available, Vulcan can execute queries that the repository cannot express, such as
+   * fetching a page of records without counting every matching record.
+   */
+  private final EntityManager entityManager;
+
+  /**
+   * Optional estimator used for `_total=estimate` requests. If not specified, the database planner
+   * estimates are used when an EntityManager is available.
+   */
+  private final CountEstimator<EntityT> countEstimator;
+
+  /**
+   * Optional cache of known totals. If available, totals are reused instead of counted and pages
+   * beyond the last page are answered without querying the database.
+   */
+  private final TotalsCache totalsCache;
+
+  /**
+   * Optional snapshots of the ordered IDs of searches. If available, and an EntityManager is
+   * available, pages are sliced from a snapshot so they stay consistent during a crawl.
+   */
+  private final SearchSnapshots snapshots;
+
+  /**
+   * Optional index of page boundaries. If available, and an EntityManager is available, deep pages
+   * seek from the nearest recorded boundary instead of skipping every earlier record.
+   */
+  private final PageBoundaryIndex pageBoundaries;
+
+  /**
+   * Optional prefetcher. If available, and an EntityManager is available, the records of the next
+   * page of searches that are being crawled sequentially are fetched in the background. The
+   * following request uses them instead of fetching, but determines its total as usual.
+   */
+  private final PagePrefetcher<EntityT> prefetcher;
+
+  /**
+   * Optional cache of searches that matched no records. If available, such searches are answered
+   * with an empty result without querying the database.
+   */
+  private final EmptyResultsCache emptyResults;
+
+  /**
+   * Optional coalescer. If available, identical count only searches that arrive while one is in
+   * flight share its total instead of querying the database again.
+   */
+  private final SearchCoalescer coalescer;
+
+  /**
+   * Optional batcher. If available, and an EntityManager is available, counts of the same entity
+   * type that arrive within a few milliseconds are executed as a single statement.
+   */
+  private final CountBatcher countBatcher;
+
+  /**
+   * Optional off heap cache of serialized pages, used by this Vulcan's configuration only. If
+   * available, searchSerialized answers repeated searches with cached bytes without querying the
+   * database or serializing again.
+   */
+  private final OffHeapPageCache pageCache;
+
+  /**
+   * Optional bulkhead. If available, searches beyond its concurrency limit wait or are rejected
+   * with TooManySearches before the request is processed.
+   */
+  private final SearchBulkhead bulkhead;
+
+  /**
+   * Optional lanes. If available, searches are classified by workload and started within the
+   * budget of their lane, after passing the bulkhead.
+   */
+  private final SearchLanes lanes;
+
+  /**
+   * Optional canceller. If available, and an EntityManager is available, the running statement is
+   * cancelled when the async request is aborted or the search deadline passes.
+   */
+  private final StatementCanceller statementCanceller;
+
+  /** Counters for how searches were processed. Share an instance to aggregate across searches. */
+  @NonNull @Builder.Default private final VulcanMetrics metrics = new VulcanMetrics();
+
   public static <E, R extends JpaSpecificationExecutor<E>> VulcanBuilder<E, R> forRepo(R repo) {
     return Vulcan.<E, R>builder().repository(repo);
   }
@@ -61,79 +158,555 @@ public class Vulcan<EntityT, JpaRepositoryT extends JpaSpecificationExecutor<Ent
     return r -> baseUrl;
   }
 
+  private static boolean isBeyondLastPage(RequestContext<?> context, long totalRecords) {
+    return context.offset() >= totalRecords;
+  }
+
+  private static int totalPagesFor(long totalRecords, int count) {
+    return (int) ((totalRecords + count - 1) / count);
+  }
+
+  /**
+   * Count the records, returning null if the count deadline is exceeded or the count exceeds the
+   * statement timeout. Only counts that ran at least as long as the count deadline are recorded as
+   * exceeding it.
+   */
+  private Long countWithinDeadline(
+      EntityQueries<EntityT> queries, RequestContext<EntityT> context) {
+    long start = System.nanoTime();
+    try {
+      if (countBatcher != null) {
+        return countBatcher.count(
+            queries,
+            context.specification(),
+            config.paging().countDeadline(),
+            metrics::countBatched);
+      }
+      return queries.count(context.specification(), config.paging().countDeadline());
+    } catch (QueryTimeoutException e) {
+      if (StatementCanceller.isCancelled()) {
+        throw e;
+      }
+      Duration deadline = config.paging().countDeadline();
+      if (deadline != null && System.nanoTime() - start >= deadline.toNanos()) {
+        metrics.countDeadlineExceeded();
+        log.info(
+            "Count deadline {} exceeded, returning results without total: {}",
+            deadline,
+            e.getMessage());
+      } else {
+        log.info("Count timed out, returning results without total: {}", e.getMessage());
+      }
+      return null;
+    }
+  }
+
+  /** The configuration used to process requests. */
+  VulcanConfiguration<EntityT> config() {
+    return config;
+  }
+
   private VulcanResult<EntityT> emptyVulcanResult(
-      RequestContext<EntityT> context, long totalRecords) {
+      RequestContext<EntityT> context, long totalRecords, TotalMode totalMode) {
     return VulcanResult.<EntityT>builder()
         .paging(
             Paging.builder()
                 .totalRecords(totalRecords)
                 .totalPages(0)
-                .firstPage(empty())
-                .firstPageUrl(empty())
-                .previousPage(empty())
-                .previousPageUrl(empty())
-                .thisPage(Optional.of(context.page()))
-                .thisPageUrl(PageLinkBuilder.of(context).urlForPage(context.page()))
-                .nextPage(empty())
-                .nextPageUrl(empty())
-                .lastPage(empty())
-                .lastPageUrl(empty())
+                .thisPageNumber(context.page())
+                .pageUrls(PageLinkBuilder.of(context)::urlForPage)
+                .totalMode(totalMode)
                 .build())
         .entities(Stream.empty())
         .build();
   }
 
+  private EntityQueries<EntityT> entityQueries() {
+    if (entityManager == null || config.entityType() == null) {
+      return null;
+    }
+    return EntityQueries.of(entityManager, config.entityType())
+        .withStatementTimeout(config.paging().statementTimeout())
+        .withMaxPageBytes(config.paging().maxPageBytes());
+  }
+
+  private CountEstimator<EntityT> estimator() {
+    if (countEstimator != null) {
+      return countEstimator;
+    }
+    if (entityQueries() != null) {
+      return ExplainCountEstimator.forEntityManager(entityManager);
+    }
+    return null;
+  }
+
+  /**
+   * Fetch records starting at the offset. The position from a continuation token is used if
+   * present, otherwise the nearest recorded page boundary, otherwise a plain offset query.
+   */
+  private EntityQueries.Fetched<EntityT> fetch(
+      RequestContext<EntityT> context, EntityQueries<EntityT> queries, long offset, int limit) {
+    Sort sort = context.pageRequest().getSort();
+    if (context.continuation() != null && !context.continuation().position().isEmpty()) {
+      return queries.fetchAfter(
+          context.specification(), sort, context.continuation().position(), 0, limit);
+    }
+    PageBoundaryIndex.Boundary boundary =
+        pageBoundaries == null || !config.isCacheable()
+            ? null
+            : pageBoundaries.nearest(context.fingerprint(), sort, offset);
+    if (boundary != null) {
+      return queries.fetchAfter(
+          context.specification(),
+          sort,
+          boundary.position(),
+          offset - boundary.offset(),
+          limit);
+    }
+    return queries.fetch(context.specification(), sort, offset, limit);
+  }
+
+  private Long knownTotal(RequestContext<EntityT> context) {
+    if (context.continuation() != null && context.continuation().totalRecords() != null) {
+      return context.continuation().totalRecords();
+    }
+    if (totalsCache == null || !config.isCacheable()) {
+      return null;
+    }
+    return totalsCache.get(context.fingerprint());
+  }
+
+  /**
+   * Build paging for a page of records. The last page is only known if the total records is not a
+   * lower bound. The next page is determined by the caller, since it may be known without a total.
+   * The next page position is only used by continuation tokens and may be empty. The next page
+   * starts at the given offset, which is only carried by its link if the page returned fewer
+   * records than its count.
+   */
+  private Paging paging(
+      RequestContext<EntityT> context,
+      long totalRecords,
+      TotalMode totalMode,
+      boolean hasNextPage,
+      List<Object> nextPagePosition,
+      long nextPageOffset) {
+    int thisPage = context.page();
+    int totalPages = totalPagesFor(totalRecords, Math.max(context.count(), 1));
+    boolean hasPages = totalRecords > 0;
+    int lastPage = hasPages && totalMode != TotalMode.NONE ? totalPages : 0;
+    boolean hasPreviousPage = hasPages && thisPage > 1 && (lastPage == 0 || thisPage <= lastPage);
+    PageLinkBuilder links =
+        PageLinkBuilder.of(
+            context,
+            totalMode == TotalMode.ACCURATE ? totalRecords : null,
+            nextPagePosition,
+            nextPageOffset);
+    return Paging.builder()
+        .totalPages(totalPages)
+        .totalRecords(totalRecords)
+        .firstPageNumber(hasPages ? 1 : 0)
+        .previousPageNumber(hasPreviousPage ? thisPage - 1 : 0)
+        .thisPageNumber(thisPage)
+        .nextPageNumber(hasNextPage ? thisPage + 1 : 0)
+        .lastPageNumber(lastPage)
+        .pageUrls(links::urlForPage)
+        .totalMode(totalMode)
+        .build();
+  }
+
   private VulcanResult<EntityT> resultsForAbortedSearch(RequestContext<EntityT> context) {
-    return emptyVulcanResult(context, 0);
+    return emptyVulcanResult(context, 0, TotalMode.ACCURATE);
+  }
+
+  private void rememberTotal(RequestContext<EntityT> context, Long totalRecords) {
+    if (totalRecords == null || !config.isCacheable()) {
+      return;
+    }
+    if (totalsCache != null) {
+      totalsCache.put(context.fingerprint(), totalRecords);
+    }
+    if (emptyResults != null && totalRecords == 0) {
+      emptyResults.put(context.fingerprint());
+    }
   }
 
+  private VulcanResult<EntityT> resultsBeyondLastPage(
+      RequestContext<EntityT> context, long totalRecords) {
+    return VulcanResult.<EntityT>builder()
+        .paging(
+            paging(
+                context,
+                totalRecords,
+                TotalMode.ACCURATE,
+                false,
+                List.of(),
+                context.offset() + context.count()))
+        .entities(Stream.empty())
+        .build();
+  }
+
+  /**
+   * Answer a count only request. If a coalescer is available, identical counts that arrive while
+   * one is in flight share its total, and each builds paging for its own request.
+   */
   private VulcanResult<EntityT> resultsForCountOnly(RequestContext<EntityT> context) {
-    long totalRecords = repository.count(context.specification());
-    return emptyVulcanResult(context, totalRecords);
+    Total total =
+        coalescer == null || !config.isCacheable()
+            ? totalForCountOnly(context)
+            : coalescer.coalesce(
+                context, () -> totalForCountOnly(context), metrics::searchCoalesced);
+    return emptyVulcanResult(context, total.records(), total.mode());
   }
 
+  /**
+   * Plan and execute the queries for a page of records. Known totals are used to answer pages
+   * beyond the last page without any query. If an EntityManager is available, accurate totals are
+   * counted first for pages after the first, so that out of range pages never run an offset query.
+   */
   private VulcanResult<EntityT> resultsForPageOfRecords(RequestContext<EntityT> context) {
+    Long knownTotal = knownTotal(context);
+    if (knownTotal != null && isBeyondLastPage(context, knownTotal)) {
+      return resultsBeyondLastPage(context, knownTotal);
+    }
+    EntityQueries<EntityT> queries = entityQueries();
+    if (queries == null) {
+      return resultsForPageOfRecordsWithRepository(context);
+    }
+    if (snapshots != null && config.isCacheable()) {
+      VulcanResult<EntityT> fromSnapshot = resultsFromSnapshot(context, queries);
+      if (fromSnapshot != null) {
+        return fromSnapshot;
+      }
+    }
+    boolean countAttempted = knownTotal != null;
+    if (!countAttempted && context.totalMode() == TotalMode.ACCURATE && context.page() > 1) {
+      knownTotal = countWithinDeadline(queries, context);
+      countAttempted = true;
+      rememberTotal(context, knownTotal);
+      if (knownTotal != null && isBeyondLastPage(context, knownTotal)) {
+        return resultsBeyondLastPage(context, knownTotal);
+      }
+    }
+    /*
+     * Fetch one more record than requested. If it is present, there is a next page and we have
+     * learned that without counting.
+     */
+    long offset = context.offset();
+    Sort sort = context.pageRequest().getSort();
+    boolean prefetching = prefetcher != null && config.isCacheable();
+    EntityQueries.Fetched<EntityT> fetched = prefetching ? prefetched(context) : null;
+    if (fetched == null) {
+      fetched = fetch(context, queries, offset, context.count() + 1);
+    }
+    List<EntityT> records = fetched.records();
+    int pageSize = context.count();
+    if (fetched.truncated() && records.size() < pageSize) {
+      /*
+       * The page would exceed the byte budget. Return fewer records with the same page number and
+       * count, the link of the next page carries the offset after the last record.
+       */
+      metrics.pageShortened();
+      log.info(
+          "Returning {} of {} records of page {} to stay within {} bytes",
+          records.size(),
+          pageSize,
+          context.page(),
+          config.paging().maxPageBytes());
+    }
+    boolean hasNextPage = fetched.truncated() || records.size() > pageSize;
+    List<EntityT> entities = records.size() > pageSize ? records.subList(0, pageSize) : records;
+    long nextPageOffset = offset + entities.size();
+    List<Object> nextPagePosition = List.of();
+    boolean recordsBoundaries = pageBoundaries != null && config.isCacheable();
+    if (hasNextPage && (config.paging().continuationTokens() != null || recordsBoundaries)) {
+      nextPagePosition = queries.positionOf(entities.get(entities.size() - 1), sort);
+      if (recordsBoundaries && pageBoundaries.shouldRecordAfter(context.page())) {
+        pageBoundaries.record(context.fingerprint(), sort, nextPageOffset, nextPagePosition);
+      }
+    }
+    if (prefetching && prefetcher.isSequential(context) && hasNextPage) {
+      prefetchNextPage(context, queries, nextPageOffset, nextPagePosition);
+    }
+    long totalRecords;
+    TotalMode totalMode;
+    if (!hasNextPage && (!entities.isEmpty() || offset == 0)) {
+      totalRecords = offset + entities.size();
+      totalMode = TotalMode.ACCURATE;
+      rememberTotal(context, totalRecords);
+    } else if (knownTotal != null) {
+      totalRecords = knownTotal;
+      totalMode = TotalMode.ACCURATE;
+    } else {
+      /* A truncated fetch stopped before a record that exists. */
+      long fetchedRecords = records.size() + (fetched.truncated() ? 1 : 0);
+      totalRecords = entities.isEmpty() ? 0 : offset + fetchedRecords;
+      totalMode = context.totalMode();
+      if (totalMode == TotalMode.ESTIMATE) {
+        totalRecords = Math.max(totalRecords, estimator().estimate(context));
+      } else if (totalMode == TotalMode.ACCURATE) {
+        Long count = countAttempted ? null : countWithinDeadline(queries, context);
+        rememberTotal(context, count);
+        if (count == null) {
+          totalMode = TotalMode.NONE;
+        } else {
+          totalRecords = count;
+        }
+      }
+    }
+    return VulcanResult.<EntityT>builder()
+        .paging(
+            paging(context, totalRecords, totalMode, hasNextPage, nextPagePosition, nextPageOffset))
+        .entities(entities.stream())
+        .build();
+  }
+
+  private VulcanResult<EntityT> resultsForPageOfRecordsWithRepository(
+      RequestContext<EntityT> context) {
     Page<EntityT> searchResult = repository.findAll(context.specification(), context.pageRequest());
-    boolean hasPages = searchResult.getTotalElements() > 0;
-    int thisPage = context.page();
-    Integer firstPage = hasPages ? 1 : null;
-    Integer lastPage = hasPages ? searchResult.getTotalPages() : null;
-    Integer previousPage = hasPages && thisPage > 1 && thisPage <= lastPage ? (thisPage - 1) : null;
-    Integer nextPage = hasPages && thisPage < lastPage ? (thisPage + 1) : null;
-    PageLinkBuilder links = PageLinkBuilder.of(context);
+    rememberTotal(context, searchResult.getTotalElements());
+    boolean hasNextPage = context.page() < searchResult.getTotalPages();
     return VulcanResult.<EntityT>builder()
         .paging(
-            Paging.builder()
-                .totalPages(searchResult.getTotalPages())
-                .totalRecords(searchResult.getTotalElements())
-                .firstPage(Optional.ofNullable(firstPage))
-                .firstPageUrl(links.urlForPage(firstPage))
-                .previousPage(Optional.ofNullable(previousPage))
-                .previousPageUrl(links.urlForPage(previousPage))
-                .thisPage(Optional.of(thisPage))
-                .thisPageUrl(links.urlForPage(thisPage))
-                .nextPage(Optional.ofNullable(nextPage))
-                .nextPageUrl(links.urlForPage(nextPage))
-                .lastPage(Optional.ofNullable(lastPage))
-                .lastPageUrl(links.urlForPage(lastPage))
-                .build())
+            paging(
+                context,
+                searchResult.getTotalElements(),
+                TotalMode.ACCURATE,
+                hasNextPage,
+                List.of(),
+                context.pageRequest().getOffset() + context.count()))
         .entities(searchResult.stream())
         .build();
   }
 
+  /**
+   * Answer the page by slicing a snapshot of the ordered IDs, taking the snapshot first if needed.
+   * Null is returned if the search cannot be snapshotted, because it matches too many records or
+   * the entity does not have a numeric ID.
+   */
+  private VulcanResult<EntityT> resultsFromSnapshot(
+      RequestContext<EntityT> context, EntityQueries<EntityT> queries) {
+    Sort sort = context.pageRequest().getSort();
+    long[] ids = snapshots.get(context.fingerprint(), sort);
+    if (ids == null) {
+      ids = queries.ids(context.specification(), sort, snapshots.maxIdsPerSnapshot() + 1);
+      if (ids == null || ids.length > snapshots.maxIdsPerSnapshot()) {
+        ids = SearchSnapshots.TOO_LARGE;
+      } else {
+        rememberTotal(context, (long) ids.length);
+      }
+      snapshots.put(context.fingerprint(), sort, ids);
+    }
+    if (ids == SearchSnapshots.TOO_LARGE) {
+      return null;
+    }
+    long offset = context.offset();
+    if (offset >= ids.length) {
+      return resultsBeyondLastPage(context, ids.length);
+    }
+    int from = (int) offset;
+    int to = (int) Math.min(ids.length, offset + context.count());
+    List<EntityT> entities = queries.fetchById(Arrays.copyOfRange(ids, from, to));
+    return VulcanResult.<EntityT>builder()
+        .paging(paging(context, ids.length, TotalMode.ACCURATE, to < ids.length, List.of(), to))
+        .entities(entities.stream())
+        .build();
+  }
+
+  /** Return the prefetched records of the page, or null if the page has not been prefetched. */
+  private EntityQueries.Fetched<EntityT> prefetched(RequestContext<EntityT> context) {
+    EntityQueries.Fetched<EntityT> fetched = prefetcher.get(context);
+    if (fetched == null) {
+      metrics.prefetchMiss();
+      return null;
+    }
+    metrics.prefetchHit();
+    return fetched;
+  }
+
+  /**
+   * Build the context and queries for the request, which renders their SQL and warms Hibernate's
+   * caches and the JIT. If requested, the count query is executed too, within the count deadline.
+   * Unlike searches, this bypasses the bulkhead, lanes, caches, batching, and metrics, so warming
+   * up neither fills caches nor skews the counters.
+   */
+  void prepare(HttpServletRequest request, boolean executeCount) {
+    RequestContext<EntityT> context = RequestContext.forConfig(config).request(request).build();
+    if (context.abortSearch()) {
+      return;
+    }
+    EntityQueries<EntityT> queries = entityQueries();
+    if (queries == null) {
+      if (executeCount) {
+        repository.count(context.specification());
+      }
+      return;
+    }
+    queries.selectQuery(context.specification(), context.pageRequest().getSort());
+    if (executeCount) {
+      queries.count(context.specification(), config.paging().countDeadline());
+    } else {
+      queries.countQuery(context.specification());
+    }
+  }
+
+  /**
+   * Start fetching the records of the next page in the background, one more than the count so the
+   * next page can tell whether there is a page after it. The fetch seeks past the position of the
+   * last record, if known, like the continuation token of the next page will. The list is fetched
+   * without streaming, since the background fetch does not run in the request transaction, and is
+   * discarded if it would exceed the byte budget.
+   */
+  private void prefetchNextPage(
+      RequestContext<EntityT> context,
+      EntityQueries<EntityT> queries,
+      long nextOffset,
+      List<Object> nextPagePosition) {
+    Specification<EntityT> specification = context.specification();
+    Sort sort = context.pageRequest().getSort();
+    int limit = context.count() + 1;
+    Long maxPageBytes = config.paging().maxPageBytes();
+    EntityQueries<EntityT> listQueries = queries.withMaxPageBytes(null);
+    boolean started =
+        prefetcher.prefetchNextPage(
+            context,
+            nextOffset,
+            () -> {
+              EntityQueries.Fetched<EntityT> fetched =
+                  nextPagePosition.isEmpty()
+                      ? listQueries.fetch(specification, sort, nextOffset, limit)
+                      : listQueries.fetchAfter(specification, sort, nextPagePosition, 0, limit);
+              if (maxPageBytes != null
+                  && fetched.records().stream().mapToLong(listQueries::estimatedBytesOf).sum()
+                      > maxPageBytes) {
+                return null;
+              }
+              return fetched;
+            });
+    if (started) {
+      metrics.prefetchStarted();
+    }
+  }
+
   /** Process the request and return a non-null list of database entities that apply. */
   public VulcanResult<EntityT> search(HttpServletRequest request) {
+    return withinLimits(
+        request, () -> search(RequestContext.forConfig(config).request(request).build()));
+  }
 
-    RequestContext<EntityT> context = RequestContext.forConfig(config).request(request).build();
+  private VulcanResult<EntityT> search(RequestContext<EntityT> context) {
     if (context.abortSearch()) {
       return resultsForAbortedSearch(context);
     }
-
+    if (emptyResults != null
+        && config.isCacheable()
+        && emptyResults.contains(context.fingerprint())) {
+      metrics.emptyResultsCacheHit();
+      return emptyVulcanResult(context, 0, TotalMode.ACCURATE);
+    }
     if (context.countOnly()) {
       return resultsForCountOnly(context);
     }
     return resultsForPageOfRecords(context);
   }
 
+  /**
+   * Process the request and return a read only buffer with the page of entities rendered by the
+   * serializer. If a page cache is available, serialized pages are cached off heap and repeated
+   * searches are answered with a view of the cached bytes, without copying them.
+   */
+  public ByteBuffer searchSerialized(
+      HttpServletRequest request, @NonNull PageSerializer<EntityT> serializer) {
+    return withinLimits(request, () -> serializedResults(request, serializer));
+  }
+
+  private byte[] serialize(VulcanResult<EntityT> results, PageSerializer<EntityT> serializer) {
+    return serializer.serialize(results.paging(), results.entities().collect(toUnmodifiableList()));
+  }
+
+  private ByteBuffer serializedResults(
+      HttpServletRequest request, PageSerializer<EntityT> serializer) {
+    RequestContext<EntityT> context = RequestContext.forConfig(config).request(request).build();
+    if (pageCache == null || !config.isCacheable()) {
+      return ByteBuffer.wrap(serialize(search(context), serializer)).asReadOnlyBuffer();
+    }
+    SearchPageKey key = SearchPageKey.of(context, serializer);
+    ByteBuffer cached = pageCache.get(key);
+    if (cached != null) {
+      metrics.pageCacheHit();
+      return cached;
+    }
+    metrics.pageCacheMiss();
+    byte[] serialized = serialize(search(context), serializer);
+    pageCache.put(key, serialized);
+    return ByteBuffer.wrap(serialized).asReadOnlyBuffer();
+  }
+
+  /** Determine the total of a count only request for its total mode. */
+  private Total totalForCountOnly(RequestContext<EntityT> context) {
+    if (context.totalMode() == TotalMode.NONE) {
+      return Total.of(0, TotalMode.NONE);
+    }
+    Long knownTotal = knownTotal(context);
+    if (knownTotal != null) {
+      return Total.of(knownTotal, TotalMode.ACCURATE);
+    }
+    CountEstimator<EntityT> estimator = estimator();
+    if (context.totalMode() == TotalMode.ESTIMATE && estimator != null) {
+      return Total.of(estimator.estimate(context), TotalMode.ESTIMATE);
+    }
+    EntityQueries<EntityT> queries = entityQueries();
+    if (queries != null) {
+      Long totalRecords = countWithinDeadline(queries, context);
+      rememberTotal(context, totalRecords);
+      return totalRecords == null
+          ? Total.of(0, TotalMode.NONE)
+          : Total.of(totalRecords, TotalMode.ACCURATE);
+    }
+    long totalRecords = repository.count(context.specification());
+    rememberTotal(context, totalRecords);
+    return Total.of(totalRecords, TotalMode.ACCURATE);
+  }
+
+  /**
+   * Run the search within the bulkhead and lanes, if available, counting searches that are shed.
+   * Searches that fail because a StatementCanceller cancelled their statement, or because a
+   * statement timed out on its own, are counted separately.
+   */
+  private <T> T withinLimits(HttpServletRequest request, Supplier<T> search) {
+    Supplier<T> cancellable =
+        statementCanceller == null || entityManager == null
+            ? search
+            : () -> {
+              /* The session is bound to this thread, cancellations run on another. */
+              Session session = entityManager.unwrap(Session.class);
+              return statementCanceller.execute(request, session::cancelQuery, search);
+            };
+    Supplier<T> laned =
+        lanes == null ? cancellable : () -> lanes.execute(config.paging(), request, cancellable);
+    try {
+      return bulkhead == null ? laned.get() : bulkhead.execute(laned);
+    } catch (TooManySearches e) {
+      metrics.searchShed();
+      log.info("Shedding search: {}", e.getMessage());
+      throw e;
+    } catch (StatementCanceller.Cancelled e) {
+      metrics.statementCancelled();
+      log.info("Search statement cancelled: {}", e.getMessage());
+      throw e;
+    } catch (QueryTimeoutException e) {
+      metrics.statementTimedOut();
+      log.info("Search statement timed out: {}", e.getMessage());
+      throw e;
+    }
+  }
+
   public interface BaseUrlStrategy extends Function<HttpServletRequest, String> {}
+
+  /** A total and how it was determined. */
+  @Value(staticConstructor = "of")
+  private static class Total {
+    long records;
+
+    TotalMode mode;
+  }
 }
@@ -1,5 +1,6 @@
 package gov.va.api.lighthouse.vulcan;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -11,7 +12,7 @@ import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 
 @Value
-@Builder
+@Builder(toBuilder = true)
 public class VulcanConfiguration<EntityT> {
   @NonNull PagingConfiguration paging;
 
@@ -21,9 +22,51 @@ public class VulcanConfiguration<EntityT> {
 
   List<Rule> rules;
 
-  public static <E> VulcanConfigurationBuilder<E> forEntity(
-      @SuppressWarnings("unused") Class<E> repo) {
-    return VulcanConfiguration.builder();
+  /**
+   * The entity type being searched. This is required for searches that are executed directly with
+   * an EntityManager instead of the repository.
+   */
+  Class<EntityT> entityType;
+
+  /**
+   * Identifies the configuration in search fingerprints, so that caches never share searches of
+   * different configurations, e.g. with different default queries. If not specified, the identity
+   * of this instance is used. Specify a name if configurations are created per request or if
+   * fingerprints must survive restarts, e.g. in a WarmCacheFile.
+   */
+  String name;
+
+  /**
+   * Declares that the records a search matches depend only on its parameters, and the search
+   * scope if specified, but not on headers, the path, or the principal. Caches, snapshots, page
+   * boundaries, prefetching, and coalescing are only used for configurations that declare this or
+   * specify a search scope.
+   */
+  boolean dependsOnlyOnParameters;
+
+  /**
+   * Optional. Determines the part of the request other than its parameters that the records it
+   * matches depend on, e.g. the patient scope of the principal. The scope is included in search
+   * fingerprints, so searches of different scopes are never shared.
+   */
+  Function<HttpServletRequest, String> searchScope;
+
+  public static <E> VulcanConfigurationBuilder<E> forEntity(Class<E> entity) {
+    return VulcanConfiguration.<E>builder().entityType(entity);
+  }
+
+  /** The identity of this configuration in search fingerprints. */
+  public String identity() {
+    if (name != null) {
+      return name;
+    }
+    String type = entityType == null ? "" : entityType.getName();
+    return type + '@' + Integer.toHexString(System.identityHashCode(this));
+  }
+
+  /** Return true if searches may be answered from caches or shared with other requests. */
+  public boolean isCacheable() {
+    return dependsOnlyOnParameters || searchScope != null;
   }
 
   /** Return the immutable list of rules. */
@@ -48,6 +91,12 @@ public class VulcanConfiguration<EntityT> {
 
     @NonNull String countParameter;
 
+    /** The FHIR style parameter that controls how totals are determined. */
+    @NonNull @Builder.Default String totalParameter = "_total";
+
+    /** The total mode used when the request does not specify one. */
+    @NonNull @Builder.Default TotalMode defaultTotalMode = TotalMode.ACCURATE;
+
     @Builder.Default int defaultCount = 10;
 
     @Builder.Default int maxCount = 20;
@@ -58,13 +107,61 @@ public class VulcanConfiguration<EntityT> {
 
     Function<SortRequest, Sort> sortableParameters;
 
+    /**
+     * Optional. If specified, count queries that take longer are cancelled and results are
+     * returned with only a lower bound total. This requires Vulcan to have an EntityManager.
+     * Deadlines that are not whole seconds, e.g. 200 ms, are enforced by cancelling the statement
+     * with Hibernate's Session.cancelQuery, which requires the search to run in a transaction.
+     */
+    Duration countDeadline;
+
+    /**
+     * Optional. If specified, count and fetch statements that take longer are cancelled by the
+     * database. A count that is cancelled returns results without a total, like the count deadline,
+     * while a fetch that is cancelled fails the search with a QueryTimeoutException. This requires
+     * Vulcan to have an EntityManager.
+     */
+    Duration statementTimeout;
+
+    /**
+     * Optional. If specified, records are streamed while a page is fetched and fetching stops once
+     * their estimated size in memory would exceed this many bytes. The page then returns fewer
+     * records than its count, at least one, and its next page link resumes right after the last
+     * record with the offset parameter. This requires Vulcan to have an EntityManager.
+     */
+    Long maxPageBytes;
+
+    /**
+     * Optional. If specified, paging links carry a signed continuation token instead of page and
+     * count parameters. Tokens let the next request reuse the total and, with an EntityManager,
+     * seek directly to the page by sort key instead of using an offset.
+     */
+    ContinuationTokens continuationTokens;
+
+    /** The parameter that carries continuation tokens. */
+    @NonNull @Builder.Default String continuationParameter = "_cursor";
+
+    /**
+     * The parameter that carries the offset of a page in paging links when the page does not start
+     * at a multiple of the count, i.e. after a page that was shortened to stay within the maximum
+     * page bytes. The offset is only used for searches executed with an EntityManager.
+     */
+    @NonNull @Builder.Default String offsetParameter = "_offset";
+
     public static Function<SortRequest, Sort> noSortableParameters() {
       return r -> null;
     }
 
-    /** Return true if the given parameter is either the page or count parameter. */
+    /**
+     * Return true if the given parameter is the page, count, total, continuation, or offset
+     * parameter.
+     */
     public boolean isPagingRelatedParameter(String param) {
-      return pageParameter().equals(param) || countParameter().equals(param);
+      return pageParameter().equals(param)
+          || countParameter().equals(param)
+          || totalParameter().equals(param)
+          || continuationParameter().equals(param)
+          || offsetParameter().equals(param);
     }
 
     public static final class PagingConfigurationBuilder {
@@ -0,0 +1,200 @@
+package gov.va.api.lighthouse.vulcan;
+
+import static java.util.Map.entry;
+
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters describing how Vulcan has processed searches. Vulcan instances are often short lived, so
+ * share a single instance between them (e.g. as a bean) to aggregate counts. Values can be
+ * published to any metrics system with snapshot().
+ */
+public class VulcanMetrics {
+  private final LongAdder countsBatched = new LongAdder();
+
+  private final LongAdder countDeadlinesExceeded = new LongAdder();
+
+  private final LongAdder emptyResultsCacheHits = new LongAdder();
+
+  private final LongAdder pageCacheHits = new LongAdder();
+
+  private final LongAdder pageCacheMisses = new LongAdder();
+
+  private final LongAdder pagesShortened = new LongAdder();
+
+  private final LongAdder prefetchHits = new LongAdder();
+
+  private final LongAdder prefetchMisses = new LongAdder();
+
+  private final LongAdder prefetchesStarted = new LongAdder();
+
+  private final LongAdder searchesCoalesced = new LongAdder();
+
+  private final LongAdder searchesShed = new LongAdder();
+
+  private final LongAdder statementsCancelled = new LongAdder();
+
+  private final LongAdder statementsTimedOut = new LongAdder();
+
+  /** Record that a count was answered by a statement shared with other counts. */
+  void countBatched() {
+    countsBatched.increment();
+  }
+
+  /** The number of counts answered by a statement shared with other counts. */
+  public long countsBatched() {
+    return countsBatched.sum();
+  }
+
+  /** Record that a count query did not complete before the configured deadline. */
+  void countDeadlineExceeded() {
+    countDeadlinesExceeded.increment();
+  }
+
+  /** The number of count queries abandoned because they exceeded the count deadline. */
+  public long countDeadlinesExceeded() {
+    return countDeadlinesExceeded.sum();
+  }
+
+  /** Record that a search was answered by the empty results cache. */
+  void emptyResultsCacheHit() {
+    emptyResultsCacheHits.increment();
+  }
+
+  /** The number of searches answered by the empty results cache without a query. */
+  public long emptyResultsCacheHits() {
+    return emptyResultsCacheHits.sum();
+  }
+
+  /** Record that a serialized page was answered from the page cache. */
+  void pageCacheHit() {
+    pageCacheHits.increment();
+  }
+
+  /** The number of serialized pages answered from the page cache. */
+  public long pageCacheHits() {
+    return pageCacheHits.sum();
+  }
+
+  /** Record that a serialized page was not found in the page cache. */
+  void pageCacheMiss() {
+    pageCacheMisses.increment();
+  }
+
+  /** The number of serialized pages looked up in the page cache that were not found. */
+  public long pageCacheMisses() {
+    return pageCacheMisses.sum();
+  }
+
+  /** Record that a page was shortened to stay within the page byte budget. */
+  void pageShortened() {
+    pagesShortened.increment();
+  }
+
+  /** The number of pages returned with fewer records than requested to stay within budget. */
+  public long pagesShortened() {
+    return pagesShortened.sum();
+  }
+
+  /** Record that a page was answered from a prefetched page. */
+  void prefetchHit() {
+    prefetchHits.increment();
+  }
+
+  /** The number of pages answered from prefetched pages. */
+  public long prefetchHits() {
+    return prefetchHits.sum();
+  }
+
+  /** The fraction of pages looked up in the prefetcher that were found, or 0 if none were. */
+  public double prefetchHitRate() {
+    long hits = prefetchHits();
+    long lookups = hits + prefetchMisses();
+    return lookups == 0 ? 0 : (double) hits / lookups;
+  }
+
+  /** Record that a page was not found in the prefetcher. */
+  void prefetchMiss() {
+    prefetchMisses.increment();
+  }
+
+  /** The number of pages looked up in the prefetcher that were not found. */
+  public long prefetchMisses() {
+    return prefetchMisses.sum();
+  }
+
+  /** Record that a background prefetch was started. */
+  void prefetchStarted() {
+    prefetchesStarted.increment();
+  }
+
+  /** The number of background prefetches started. */
+  public long prefetchesStarted() {
+    return prefetchesStarted.sum();
+  }
+
+  /** Record that a search shared the results of an identical search that was in flight. */
+  void searchCoalesced() {
+    searchesCoalesced.increment();
+  }
+
+  /** The number of searches that shared the results of an identical in flight search. */
+  public long searchesCoalesced() {
+    return searchesCoalesced.sum();
+  }
+
+  /** Record that a search was rejected by the bulkhead. */
+  void searchShed() {
+    searchesShed.increment();
+  }
+
+  /** The number of searches rejected by the bulkhead because too many were in progress. */
+  public long searchesShed() {
+    return searchesShed.sum();
+  }
+
+  /** Return the current value of every counter by name. */
+  public Map<String, Long> snapshot() {
+    return Map.ofEntries(
+        entry("vulcan.count.batched", countsBatched()),
+        entry("vulcan.count.deadline.exceeded", countDeadlinesExceeded()),
+        entry("vulcan.empty.results.cache.hits", emptyResultsCacheHits()),
+        entry("vulcan.page.cache.hits", pageCacheHits()),
+        entry("vulcan.page.cache.misses", pageCacheMisses()),
+        entry("vulcan.pages.shortened", pagesShortened()),
+        entry("vulcan.prefetch.hits", prefetchHits()),
+        entry("vulcan.prefetch.misses", prefetchMisses()),
+        entry("vulcan.prefetch.started", prefetchesStarted()),
+        entry("vulcan.searches.coalesced", searchesCoalesced()),
+        entry("vulcan.searches.shed", searchesShed()),
+        entry("vulcan.statements.cancelled", statementsCancelled()),
+        entry("vulcan.statements.timed.out", statementsTimedOut()));
+  }
+
+  /** Record that a search statement was cancelled by a StatementCanceller. */
+  void statementCancelled() {
+    statementsCancelled.increment();
+  }
+
+  /**
+   * The number of searches that failed because a StatementCanceller cancelled a statement, e.g.
+   * because the client disconnected or the search deadline passed.
+   */
+  public long statementsCancelled() {
+    return statementsCancelled.sum();
+  }
+
+  /** Record that a search statement timed out without being cancelled by a StatementCanceller. */
+  void statementTimedOut() {
+    statementsTimedOut.increment();
+  }
+
+  /**
+   * The number of searches that failed because a statement exceeded the statement timeout. Counts
+   * that time out return results without a total and are not included.
+   */
+  public long statementsTimedOut() {
+    return statementsTimedOut.sum();
+  }
+}
@@ -2,10 +2,13 @@ package gov.va.api.lighthouse.vulcan;
 
 import java.util.Optional;
 import java.util.function.Function;
+import java.util.function.IntFunction;
 import java.util.stream.Stream;
 import lombok.Builder;
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NonNull;
+import lombok.ToString;
 import lombok.Value;
 
 /*
@@ -26,21 +29,180 @@ public class VulcanResult<EntityT> {
     return transform.apply(this);
   }
 
+  /**
+   * Paging details of the result. Page numbers start at 1, a page number of 0 means there is no
+   * such page. Page URLs are produced only when they are accessed.
+   */
   @Value
   @Builder
-  @SuppressWarnings("OptionalUsedAsFieldOrParameterType")
   public static class Paging {
     long totalRecords;
     int totalPages;
-    @NonNull Optional<Integer> firstPage;
-    @NonNull Optional<Integer> previousPage;
-    @NonNull Optional<Integer> thisPage;
-    @NonNull Optional<Integer> nextPage;
-    @NonNull Optional<Integer> lastPage;
-    @NonNull Optional<String> firstPageUrl;
-    @NonNull Optional<String> previousPageUrl;
-    @NonNull Optional<String> thisPageUrl;
-    @NonNull Optional<String> nextPageUrl;
-    @NonNull Optional<String> lastPageUrl;
+    int firstPageNumber;
+    int previousPageNumber;
+    int thisPageNumber;
+    int nextPageNumber;
+    int lastPageNumber;
+
+    /** Produces the URL for a page number. If not specified, there are no page URLs. */
+    @EqualsAndHashCode.Exclude @ToString.Exclude IntFunction<String> pageUrls;
+
+    /**
+     * How the total records was determined. For NONE, the total records is only a lower bound
+     * derived from the records that have been fetched.
+     */
+    @NonNull @Builder.Default TotalMode totalMode = TotalMode.ACCURATE;
+
+    private static Optional<Integer> page(int pageNumber) {
+      return pageNumber > 0 ? Optional.of(pageNumber) : Optional.empty();
+    }
+
+    public Optional<Integer> firstPage() {
+      return page(firstPageNumber);
+    }
+
+    public Optional<String> firstPageUrl() {
+      return url(firstPageNumber);
+    }
+
+    public Optional<Integer> lastPage() {
+      return page(lastPageNumber);
+    }
+
+    public Optional<String> lastPageUrl() {
+      return url(lastPageNumber);
+    }
+
+    public Optional<Integer> nextPage() {
+      return page(nextPageNumber);
+    }
+
+    public Optional<String> nextPageUrl() {
+      return url(nextPageNumber);
+    }
+
+    public Optional<Integer> previousPage() {
+      return page(previousPageNumber);
+    }
+
+    public Optional<String> previousPageUrl() {
+      return url(previousPageNumber);
+    }
+
+    public Optional<Integer> thisPage() {
+      return page(thisPageNumber);
+    }
+
+    public Optional<String> thisPageUrl() {
+      return url(thisPageNumber);
+    }
+
+    private Optional<String> url(int pageNumber) {
+      if (pageNumber <= 0 || pageUrls == null) {
+        return Optional.empty();
+      }
+      return Optional.ofNullable(pageUrls.apply(pageNumber));
+    }
+
+    /**
+     * The Optional page and URL setters are kept for builders written before page numbers and page
+     * URL functions. Explicit URLs are matched by page number when they are accessed.
+     */
+    @SuppressWarnings({"OptionalUsedAsFieldOrParameterType", "DeprecatedIsStillUsed"})
+    public static class PagingBuilder {
+      private String explicitFirstPageUrl;
+
+      private String explicitPreviousPageUrl;
+
+      private String explicitThisPageUrl;
+
+      private String explicitNextPageUrl;
+
+      private String explicitLastPageUrl;
+
+      private String explicitUrl(int pageNumber) {
+        if (pageNumber == thisPageNumber && explicitThisPageUrl != null) {
+          return explicitThisPageUrl;
+        }
+        if (pageNumber == nextPageNumber && explicitNextPageUrl != null) {
+          return explicitNextPageUrl;
+        }
+        if (pageNumber == previousPageNumber && explicitPreviousPageUrl != null) {
+          return explicitPreviousPageUrl;
+        }
+        if (pageNumber == firstPageNumber && explicitFirstPageUrl != null) {
+          return explicitFirstPageUrl;
+        }
+        if (pageNumber == lastPageNumber) {
+          return explicitLastPageUrl;
+        }
+        return null;
+      }
+
+      /** Use firstPageNumber instead. */
+      @Deprecated
+      public PagingBuilder firstPage(@NonNull Optional<Integer> firstPage) {
+        return firstPageNumber(firstPage.orElse(0));
+      }
+
+      /** Use pageUrls instead. */
+      @Deprecated
+      public PagingBuilder firstPageUrl(@NonNull Optional<String> firstPageUrl) {
+        explicitFirstPageUrl = firstPageUrl.orElse(null);
+        return pageUrls(this::explicitUrl);
+      }
+
+      /** Use lastPageNumber instead. */
+      @Deprecated
+      public PagingBuilder lastPage(@NonNull Optional<Integer> lastPage) {
+        return lastPageNumber(lastPage.orElse(0));
+      }
+
+      /** Use pageUrls instead. */
+      @Deprecated
+      public PagingBuilder lastPageUrl(@NonNull Optional<String> lastPageUrl) {
+        explicitLastPageUrl = lastPageUrl.orElse(null);
+        return pageUrls(this::explicitUrl);
+      }
+
+      /** Use nextPageNumber instead. */
+      @Deprecated
+      public PagingBuilder nextPage(@NonNull Optional<Integer> nextPage) {
+        return nextPageNumber(nextPage.orElse(0));
+      }
+
+      /** Use pageUrls instead. */
+      @Deprecated
+      public PagingBuilder nextPageUrl(@NonNull Optional<String> nextPageUrl) {
+        explicitNextPageUrl = nextPageUrl.orElse(null);
+        return pageUrls(this::explicitUrl);
+      }
+
+      /** Use previousPageNumber instead. */
+      @Deprecated
+      public PagingBuilder previousPage(@NonNull Optional<Integer> previousPage) {
+        return previousPageNumber(previousPage.orElse(0));
+      }
+
+      /** Use pageUrls instead. */
+      @Deprecated
+      public PagingBuilder previousPageUrl(@NonNull Optional<String> previousPageUrl) {
+        explicitPreviousPageUrl = previousPageUrl.orElse(null);
+        return pageUrls(this::explicitUrl);
+      }
+
+      /** Use thisPageNumber instead. */
+      @Deprecated
+      public PagingBuilder thisPage(@NonNull Optional<Integer> thisPage) {
+        return thisPageNumber(thisPage.orElse(0));
+      }
+
+      /** Use pageUrls instead. */
+      @Deprecated
+      public PagingBuilder thisPageUrl(@NonNull Optional<String> thisPageUrl) {
+        explicitThisPageUrl = thisPageUrl.orElse(null);
+        return pageUrls(this::explicitUrl);
+      }
+    }
   }
 }
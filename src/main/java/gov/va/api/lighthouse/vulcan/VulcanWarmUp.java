@@ -0,0 +1,171 @@
+package gov.va.api.lighthouse.vulcan;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import javax.servlet.http.HttpServletRequest;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Singular;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Replays parameter maps through a Vulcan instance so that the first real requests do not pay for
+ * query rendering, statement preparation, and interpreted code. Parameter maps can be recorded
+ * from production traffic or generated from the supported parameters of the configuration.
+ *
+ * <p>Run the warm up before the application reports ready, e.g. from an ApplicationRunner, since
+ * Spring Boot accepts traffic only after runners have completed. Requests that fail are logged and
+ * skipped.
+ */
+@Slf4j
+@Builder
+public class VulcanWarmUp {
+  /**
+   * Values tried for generated parameters, in order, until one is accepted. These cover string,
+   * date, token, reference, and numeric mappings.
+   */
+  private static final List<String> SYNTHETIC_VALUES =
+      List.of("warmup", "ge2000-01-01", "http://warmup|warmup", "Warmup/1", "1");
+
+  /** Recorded parameter maps to replay. */
+  @Singular private final List<Map<String, String[]>> parameterMaps;
+
+  /** If true, a request is also generated for each supported parameter. */
+  private final boolean syntheticParameters;
+
+  /** How requests are processed. Counting is the default. */
+  @NonNull @Builder.Default private final Mode mode = Mode.COUNT_ONLY;
+
+  /** The number of times every request is replayed, more iterations give the JIT more to do. */
+  @Builder.Default private final int iterations = 1;
+
+  /**
+   * Create a request with the given parameters. Only the methods Vulcan uses are implemented, every
+   * other method returns null, false, or zero.
+   */
+  static HttpServletRequest requestOf(Map<String, String[]> parameters) {
+    Map<String, String[]> parameterMap = Collections.unmodifiableMap(parameters);
+    return (HttpServletRequest)
+        Proxy.newProxyInstance(
+            VulcanWarmUp.class.getClassLoader(),
+            new Class<?>[] {HttpServletRequest.class},
+            (proxy, method, args) -> {
+              switch (method.getName()) {
+                case "getParameter":
+                  String[] values = parameterMap.get(args[0]);
+                  return values == null || values.length == 0 ? null : values[0];
+                case "getParameterValues":
+                  return parameterMap.get(args[0]);
+                case "getParameterMap":
+                  return parameterMap;
+                case "getParameterNames":
+                  return Collections.enumeration(parameterMap.keySet());
+                case "getRequestURL":
+                  return new StringBuffer("http://localhost/warm-up");
+                case "getRequestURI":
+                  return "/warm-up";
+                case "getMethod":
+                  return "GET";
+                case "toString":
+                  return "warm up request " + parameterMap.keySet();
+                case "hashCode":
+                  return System.identityHashCode(proxy);
+                case "equals":
+                  return proxy == args[0];
+                default:
+                  return defaultValue(method.getReturnType());
+              }
+            });
+  }
+
+  private static Object defaultValue(Class<?> type) {
+    if (type == boolean.class) {
+      return false;
+    }
+    if (type == int.class) {
+      return 0;
+    }
+    if (type == long.class) {
+      return 0L;
+    }
+    return null;
+  }
+
+  /**
+   * Return true if the parameters are accepted, i.e. are not an invalid request. Any failure,
+   * including those of custom mappings, rejects the parameters.
+   */
+  private static boolean isAccepted(Vulcan<?, ?> vulcan, Map<String, String[]> parameters) {
+    try {
+      RequestContext.forConfig(vulcan.config()).request(requestOf(parameters)).build();
+      return true;
+    } catch (RuntimeException e) {
+      return false;
+    }
+  }
+
+  /** Return the generated request for the parameter, or null if no synthetic value is accepted. */
+  private static Map<String, String[]> syntheticRequestFor(
+      Vulcan<?, ?> vulcan, String parameter) {
+    return SYNTHETIC_VALUES.stream()
+        .map(value -> Map.of(parameter, new String[] {value}))
+        .filter(parameters -> isAccepted(vulcan, parameters))
+        .findFirst()
+        .orElse(null);
+  }
+
+  private List<Map<String, String[]>> requestsFor(Vulcan<?, ?> vulcan) {
+    List<Map<String, String[]>> requests = new ArrayList<>(parameterMaps);
+    if (syntheticParameters) {
+      for (String parameter : vulcan.config().supportedParameters()) {
+        try {
+          Map<String, String[]> parameters = syntheticRequestFor(vulcan, parameter);
+          if (parameters != null) {
+            requests.add(parameters);
+          }
+        } catch (RuntimeException e) {
+          log.debug("Cannot generate warm up request for {}: {}", parameter, e.getMessage());
+        }
+      }
+    }
+    return requests;
+  }
+
+  /** Replay every request through the Vulcan instance and return the number that completed. */
+  public int warmUp(@NonNull Vulcan<?, ?> vulcan) {
+    List<Map<String, String[]>> requests = requestsFor(vulcan);
+    long start = System.nanoTime();
+    int completed = 0;
+    for (int i = 0; i < iterations; i++) {
+      for (Map<String, String[]> parameters : requests) {
+        try {
+          vulcan.prepare(requestOf(parameters), mode == Mode.COUNT_ONLY);
+          completed++;
+        } catch (RuntimeException e) {
+          log.debug("Warm up request {} failed: {}", parameters.keySet(), e.getMessage());
+        }
+      }
+    }
+    log.info(
+        "Warmed up {} with {} of {} requests in {} ms",
+        vulcan.config().entityType() == null ? "search" : vulcan.config().entityType().getName(),
+        completed,
+        requests.size() * iterations,
+        (System.nanoTime() - start) / 1_000_000);
+    return completed;
+  }
+
+  /** How warm up requests are processed. */
+  public enum Mode {
+    /**
+     * Build the queries and execute the count query, without caches or metrics. The database must
+     * be available.
+     */
+    COUNT_ONLY,
+    /** Build the queries without executing them. No database access is needed. */
+    NO_EXECUTE
+  }
+}
@@ -0,0 +1,217 @@
+package gov.va.api.lighthouse.vulcan;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Saves the contents of Vulcan's caches to a memory mapped file and restores them, so that an
+ * application restarts with warm caches. Save on shutdown and load on startup, before searches
+ * are accepted.
+ *
+ * <p>Entries keep their original expiration and expired entries are not restored. If version
+ * stamps are provided, e.g. a row count or the latest modification time of each entity type,
+ * entries are only restored if the entity type has the same stamp as when they were saved. Files
+ * that are missing, corrupt, or from another version are ignored.
+ */
+@Slf4j
+public class WarmCacheFile {
+  private static final int MAGIC = 0x56554c43;
+
+  private static final byte VERSION = 2;
+
+  private static final byte TOTAL = 'T';
+
+  private static final byte EMPTY = 'E';
+
+  private static final long NO_VALUE = Long.MIN_VALUE;
+
+  private final Path path;
+
+  private final TotalsCache totals;
+
+  private final EmptyResultsCache emptyResults;
+
+  private final Function<String, Long> versionStamps;
+
+  private final Clock clock;
+
+  /**
+   * Create a new instance for the file. Caches that are not specified are not saved or restored.
+   * Version stamps are looked up by entity type name and may return null if unknown, in which case
+   * entries for that type are not restored. If not specified, stamps are not checked.
+   */
+  @Builder
+  private WarmCacheFile(
+      @NonNull Path path,
+      TotalsCache totals,
+      EmptyResultsCache emptyResults,
+      Function<String, Long> versionStamps,
+      Clock clock) {
+    this.path = path;
+    this.totals = totals;
+    this.emptyResults = emptyResults;
+    this.versionStamps = versionStamps;
+    this.clock = clock == null ? Clock.systemUTC() : clock;
+  }
+
+  private static String readString(ByteBuffer buffer) {
+    int length = buffer.getInt();
+    if (length < 0 || length > buffer.remaining()) {
+      throw new IllegalArgumentException("Invalid string length " + length);
+    }
+    byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private boolean isCurrent(String entityType, long stamp, Map<String, Long> currentStamps) {
+    if (versionStamps == null) {
+      return true;
+    }
+    Long current = currentStamps.computeIfAbsent(entityType, versionStamps);
+    return stamp != NO_VALUE && current != null && current == stamp;
+  }
+
+  /**
+   * Restore cache entries from the file and return the number restored. Zero is returned if the
+   * file does not exist or cannot be read.
+   */
+  public int load() {
+    if (!Files.isRegularFile(path)) {
+      return 0;
+    }
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (buffer.remaining() < 5 || buffer.getInt() != MAGIC || buffer.get() != VERSION) {
+        log.warn("Ignoring unrecognized warm cache file {}", path);
+        return 0;
+      }
+      Instant now = clock.instant();
+      Map<String, Long> currentStamps = new HashMap<>();
+      int restored = 0;
+      int count = buffer.getInt();
+      for (int i = 0; i < count; i++) {
+        byte kind = buffer.get();
+        SearchFingerprint fingerprint =
+            new SearchFingerprint(
+                readString(buffer), readString(buffer), readString(buffer), readString(buffer));
+        long total = buffer.getLong();
+        long expirationMillis = buffer.getLong();
+        long stamp = buffer.getLong();
+        Instant expiration =
+            expirationMillis == NO_VALUE ? null : Instant.ofEpochMilli(expirationMillis);
+        if ((expiration != null && !now.isBefore(expiration))
+            || !isCurrent(fingerprint.entityType(), stamp, currentStamps)) {
+          continue;
+        }
+        if (kind == TOTAL && totals != null) {
+          totals.restore(fingerprint, total, expiration);
+          restored++;
+        } else if (kind == EMPTY && emptyResults != null) {
+          emptyResults.restore(fingerprint, expiration);
+          restored++;
+        }
+      }
+      log.info("Restored {} cache entries from {}", restored, path);
+      return restored;
+    } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+      log.warn("Ignoring unreadable warm cache file {}: {}", path, e.getMessage());
+      return 0;
+    }
+  }
+
+  /**
+   * Save the unexpired cache entries to the file and return the number saved. The file is written
+   * next to the target and moved into place, so a crash never leaves a partial file behind.
+   */
+  public int save() throws IOException {
+    List<SavedEntry> saved = new ArrayList<>();
+    if (totals != null) {
+      totals.forEach(
+          (fingerprint, total, expiration) ->
+              saved.add(new SavedEntry(TOTAL, fingerprint, total, expiration)));
+    }
+    if (emptyResults != null) {
+      emptyResults.forEach(
+          (fingerprint, empty, expiration) ->
+              saved.add(new SavedEntry(EMPTY, fingerprint, 0, expiration)));
+    }
+    Map<String, Long> stamps = new HashMap<>();
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeInt(MAGIC);
+    out.writeByte(VERSION);
+    out.writeInt(saved.size());
+    for (SavedEntry entry : saved) {
+      out.writeByte(entry.kind());
+      writeString(out, entry.fingerprint().entityType());
+      writeString(out, entry.fingerprint().configuration());
+      writeString(out, entry.fingerprint().scope());
+      writeString(out, entry.fingerprint().parameters());
+      out.writeLong(entry.total());
+      out.writeLong(entry.expiration() == null ? NO_VALUE : entry.expiration().toEpochMilli());
+      Long stamp =
+          versionStamps == null
+              ? null
+              : stamps.computeIfAbsent(entry.fingerprint().entityType(), versionStamps);
+      out.writeLong(stamp == null ? NO_VALUE : stamp);
+    }
+    Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+    try (FileChannel channel =
+        FileChannel.open(
+            temporary,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE)) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes.size());
+      buffer.put(bytes.toByteArray());
+      buffer.force();
+    }
+    Files.move(
+        temporary,
+        path,
+        StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+    log.info("Saved {} cache entries to {}", saved.size(), path);
+    return saved.size();
+  }
+
+  @Value
+  private static class SavedEntry {
+    byte kind;
+
+    SearchFingerprint fingerprint;
+
+    long total;
+
+    Instant expiration;
+  }
+}
@@ -0,0 +1,11 @@
+package gov.va.api.lighthouse.vulcan;
+
+/** The kinds of search work that SearchLanes schedules separately. */
+public enum WorkloadClass {
+  /** A page of records for a person or UI waiting on the response. */
+  INTERACTIVE,
+  /** Pages of a crawl, such as continuation token requests or maximum size pages. */
+  BULK,
+  /** A request for only the total, i.e. a count of zero. */
+  COUNT_ONLY
+}
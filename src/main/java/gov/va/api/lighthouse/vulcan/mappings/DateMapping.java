@@ -4,6 +4,8 @@ import static gov.va.api.lighthouse.vulcan.Predicates.andUsing;
 import static java.util.stream.Collectors.toList;
 import static org.apache.commons.lang3.StringUtils.isBlank;
 
+import gov.va.api.lighthouse.vulcan.CircuitBreaker;
+import gov.va.api.lighthouse.vulcan.EntityFields;
 import gov.va.api.lighthouse.vulcan.InvalidRequest;
 import java.time.DateTimeException;
 import java.time.Duration;
@@ -16,11 +18,13 @@ import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Stream;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.Expression;
 import javax.persistence.criteria.Path;
 import javax.persistence.criteria.Predicate;
+import javax.persistence.metamodel.SingularAttribute;
 import javax.servlet.http.HttpServletRequest;
 import lombok.Builder;
 import lombok.ToString.Exclude;
@@ -36,7 +40,7 @@ import org.springframework.data.jpa.domain.Specification;
  * "ap2005-01-21"
  */
 @Value
-@Builder
+@Builder(toBuilder = true)
 public class DateMapping<EntityT, DateT> implements SingleParameterMapping<EntityT> {
   String parameterName;
 
@@ -44,6 +48,9 @@ public class DateMapping<EntityT, DateT> implements SingleParameterMapping<Entit
 
   @Exclude PredicateFactory<DateT> predicates;
 
+  /** The resolved attribute of the field, set when the configuration is bound. */
+  @Exclude SingularAttribute<?, ?> attribute;
+
   /**
    * Default date approximate will used fixed amounts that increased based on the fidelity of the
    * search. That is the search date range is larger for more general searches, e.g. ap2005 will
@@ -64,6 +71,16 @@ public class DateMapping<EntityT, DateT> implements SingleParameterMapping<Entit
         .build();
   }
 
+  @Override
+  public DateMapping<EntityT, DateT> bind(EntityFields fields) {
+    return toBuilder().attribute(fields.attribute(fieldName)).build();
+  }
+
+  @Override
+  public List<String> fieldNames() {
+    return List.of(fieldName);
+  }
+
   @Override
   public Specification<EntityT> specificationFor(HttpServletRequest request) {
     String[] dates = request.getParameterValues(parameterName());
@@ -72,14 +89,53 @@ public class DateMapping<EntityT, DateT> implements SingleParameterMapping<Entit
     }
     List<SearchableDate> searchableDates =
         Stream.of(dates).map(v -> new SearchableDate(parameterName(), v)).collect(toList());
+    checkRangeIsNotEmpty(dates, searchableDates.stream().map(SearchableDate::range));
+    if (predicates() instanceof RangePredicateFactory) {
+      return rangeSpecificationFor(dates, searchableDates);
+    }
     return (root, criteriaQuery, criteriaBuilder) -> {
-      Path<DateT> field = root.get(fieldName());
+      Path<DateT> field = EntityFields.get(root, fieldName(), attribute());
       return searchableDates.stream()
           .map(sd -> predicates().predicate(sd, field, criteriaBuilder))
           .collect(andUsing(criteriaBuilder));
     };
   }
 
+  private DateRange checkRangeIsNotEmpty(String[] dates, Stream<DateRange> ranges) {
+    DateRange range = ranges.reduce(DateRange.unbounded(), DateRange::intersect);
+    if (range.isEmpty()) {
+      throw CircuitBreaker.noResultsWillBeFound(
+          parameterName(), String.join(",", dates), "Date range is empty.");
+    }
+    return range;
+  }
+
+  /**
+   * Normalize every bound into a single range so the database can perform one index range scan
+   * instead of intersecting separate comparisons. Not equal searches cannot be expressed as a range
+   * and are applied separately.
+   */
+  private Specification<EntityT> rangeSpecificationFor(
+      String[] dates, List<SearchableDate> searchableDates) {
+    RangePredicateFactory<DateT> rangePredicates = (RangePredicateFactory<DateT>) predicates();
+    DateRange range =
+        checkRangeIsNotEmpty(
+            dates,
+            searchableDates.stream()
+                .filter(sd -> sd.operator() != DateOperator.NE)
+                .map(rangePredicates::range));
+    List<SearchableDate> notEqualDates =
+        searchableDates.stream().filter(sd -> sd.operator() == DateOperator.NE).collect(toList());
+    return (root, criteriaQuery, criteriaBuilder) -> {
+      Path<DateT> field = EntityFields.get(root, fieldName(), attribute());
+      Stream<Predicate> notEqual =
+          notEqualDates.stream().map(sd -> rangePredicates.predicate(sd, field, criteriaBuilder));
+      return Stream.concat(
+              Stream.of(rangePredicates.predicate(range, field, criteriaBuilder)), notEqual)
+          .collect(andUsing(criteriaBuilder));
+    };
+  }
+
   /** FHIR date prefixes or date operations. */
   public enum DateOperator {
     EQ,
@@ -114,6 +170,115 @@ public class DateMapping<EntityT, DateT> implements SingleParameterMapping<Entit
         SearchableDate date, Expression<? extends FieldT> field, CriteriaBuilder criteriaBuilder);
   }
 
+  /**
+   * A continuous range of instants. Null bounds are unbounded. Ranges are used to detect searches
+   * that can never match, e.g. date=gt2022&date=lt2010.
+   */
+  @Value
+  @Builder
+  public static class DateRange {
+    Instant lowerBound;
+
+    boolean lowerInclusive;
+
+    Instant upperBound;
+
+    boolean upperInclusive;
+
+    /** A range that includes every instant. */
+    public static DateRange unbounded() {
+      return DateRange.builder().build();
+    }
+
+    /** Return the range of instants that are in both this and the other range. */
+    public DateRange intersect(DateRange other) {
+      var builder = DateRange.builder();
+      if (lowerBound == null
+          || (other.lowerBound() != null && other.lowerBound().isAfter(lowerBound))) {
+        builder.lowerBound(other.lowerBound()).lowerInclusive(other.lowerInclusive());
+      } else if (lowerBound.equals(other.lowerBound())) {
+        builder.lowerBound(lowerBound).lowerInclusive(lowerInclusive && other.lowerInclusive());
+      } else {
+        builder.lowerBound(lowerBound).lowerInclusive(lowerInclusive);
+      }
+      if (upperBound == null
+          || (other.upperBound() != null && other.upperBound().isBefore(upperBound))) {
+        builder.upperBound(other.upperBound()).upperInclusive(other.upperInclusive());
+      } else if (upperBound.equals(other.upperBound())) {
+        builder.upperBound(upperBound).upperInclusive(upperInclusive && other.upperInclusive());
+      } else {
+        builder.upperBound(upperBound).upperInclusive(upperInclusive);
+      }
+      return builder.build();
+    }
+
+    /**
+     * Create a single predicate matching this range, using BETWEEN if both bounds are inclusive.
+     * Null is returned for unbounded ranges.
+     */
+    public <Y extends Comparable<? super Y>> Predicate predicate(
+        Expression<? extends Y> field,
+        Function<Instant, Y> valueOf,
+        CriteriaBuilder criteriaBuilder) {
+      if (lowerBound != null && upperBound != null && lowerInclusive && upperInclusive) {
+        return criteriaBuilder.between(field, valueOf.apply(lowerBound), valueOf.apply(upperBound));
+      }
+      Predicate lower = null;
+      if (lowerBound != null) {
+        lower =
+            lowerInclusive
+                ? criteriaBuilder.greaterThanOrEqualTo(field, valueOf.apply(lowerBound))
+                : criteriaBuilder.greaterThan(field, valueOf.apply(lowerBound));
+      }
+      Predicate upper = null;
+      if (upperBound != null) {
+        upper =
+            upperInclusive
+                ? criteriaBuilder.lessThanOrEqualTo(field, valueOf.apply(upperBound))
+                : criteriaBuilder.lessThan(field, valueOf.apply(upperBound));
+      }
+      if (lower == null || upper == null) {
+        return lower == null ? upper : lower;
+      }
+      return criteriaBuilder.and(lower, upper);
+    }
+
+    /** Return true if no instant can be in this range. */
+    public boolean isEmpty() {
+      if (lowerBound == null || upperBound == null) {
+        return false;
+      }
+      if (lowerBound.equals(upperBound)) {
+        return !lowerInclusive || !upperInclusive;
+      }
+      return lowerBound.isAfter(upperBound);
+    }
+  }
+
+  /**
+   * Field predicate generation for factories that can match a date range with a single predicate.
+   * DateMapping will combine every bound of a search into one range before using this factory.
+   */
+  public interface RangePredicateFactory<FieldT> extends PredicateFactory<FieldT> {
+    DateApproximation approximation();
+
+    Predicate predicate(
+        DateRange range, Expression<? extends FieldT> field, CriteriaBuilder criteriaBuilder);
+
+    /** The range of the date, using the approximation to expand approximate dates. */
+    default DateRange range(SearchableDate date) {
+      if (date.operator() != DateOperator.AP) {
+        return date.range();
+      }
+      return DateRange.builder()
+          .lowerBound(approximation().expandLowerBound(date))
+          .lowerInclusive(true)
+          .upperBound(approximation().expandUpperBound(date))
+          .upperInclusive(true)
+          .build();
+    }
+  }
+
   /** Pluggable date approximation. */
   public interface DateApproximation {
     /**
@@ -162,9 +327,15 @@ public class DateMapping<EntityT, DateT> implements SingleParameterMapping<Entit
   /** Approximation support for Instant JPA fields with pluggable approximation. */
   @Value
   @Builder
-  public static class InstantPredicateFactory implements PredicateFactory<Instant> {
+  public static class InstantPredicateFactory implements RangePredicateFactory<Instant> {
     DateApproximation approximation;
 
+    @Override
+    public Predicate predicate(
+        DateRange range, Expression<? extends Instant> field, CriteriaBuilder criteriaBuilder) {
+      return range.predicate(field, Function.identity(), criteriaBuilder);
+    }
+
     @SuppressWarnings("EnhancedSwitchMigration")
     @Override
     public Predicate predicate(
@@ -202,10 +373,16 @@ public class DateMapping<EntityT, DateT> implements SingleParameterMapping<Entit
 
   @Value
   @Builder
-  public static class LongPredicateFactory implements PredicateFactory<Long> {
+  public static class LongPredicateFactory implements RangePredicateFactory<Long> {
 
     DateApproximation approximation;
 
+    @Override
+    public Predicate predicate(
+        DateRange range, Expression<? extends Long> field, CriteriaBuilder criteriaBuilder) {
+      return range.predicate(field, Instant::toEpochMilli, criteriaBuilder);
+    }
+
     @SuppressWarnings("EnhancedSwitchMigration")
     @Override
     public Predicate predicate(
@@ -372,6 +549,36 @@ public class DateMapping<EntityT, DateT> implements SingleParameterMapping<Entit
       }
     }
 
+    /**
+     * The range of instants this date can match. Not equal and approximate searches are treated as
+     * unbounded since they cannot be represented as a single range without approximation details.
+     */
+    public DateRange range() {
+      switch (operator()) {
+        case EQ:
+          return DateRange.builder()
+              .lowerBound(lowerBound())
+              .lowerInclusive(true)
+              .upperBound(upperBound())
+              .upperInclusive(true)
+              .build();
+        case GT:
+          // fall-through
+        case SA:
+          return DateRange.builder().lowerBound(upperBound()).lowerInclusive(false).build();
+        case LT:
+          // fall-through
+        case EB:
+          return DateRange.builder().upperBound(lowerBound()).upperInclusive(false).build();
+        case GE:
+          return DateRange.builder().lowerBound(lowerBound()).lowerInclusive(true).build();
+        case LE:
+          return DateRange.builder().upperBound(upperBound()).upperInclusive(true).build();
+        default:
+          return DateRange.unbounded();
+      }
+    }
+
     private InvalidRequest invalidParameterValue() {
       return InvalidRequest.badParameter(
           parameterName,
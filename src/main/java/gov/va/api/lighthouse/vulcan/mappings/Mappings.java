@@ -3,6 +3,7 @@ package gov.va.api.lighthouse.vulcan.mappings;
 import static java.util.Collections.singletonList;
 
 import gov.va.api.lighthouse.vulcan.Mapping;
+import gov.va.api.lighthouse.vulcan.Specifications;
 import gov.va.api.lighthouse.vulcan.mappings.DateMapping.PredicateFactory;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -83,13 +84,16 @@ public class Mappings<EntityT> implements Supplier<List<Mapping<EntityT>>> {
       String defaultResourceType,
       Predicate<ReferenceParameter> supportedReference,
       Function<ReferenceParameter, String> valueSelector) {
-    return reference(
-        parameterName,
-        t -> singletonList(fieldName),
-        allowedResourceTypes,
-        defaultResourceType,
-        supportedReference,
-        valueSelector);
+    return add(
+        ReferenceMapping.<EntityT>builder()
+            .parameterName(parameterName)
+            .fieldNameSelector(t -> singletonList(fieldName))
+            .fieldNames(List.of(fieldName))
+            .defaultResourceType(defaultResourceType)
+            .allowedReferenceTypes(allowedResourceTypes)
+            .supportedReference(supportedReference)
+            .valueSelector(valueSelector)
+            .build());
   }
 
   /** Create a reference mapping where parameterName and fieldName are equal. */
@@ -134,7 +138,12 @@ public class Mappings<EntityT> implements Supplier<List<Mapping<EntityT>>> {
 
   /** Create a string mapping where request and field name are different. */
   public Mappings<EntityT> string(String parameterName, String fieldName) {
-    return string(parameterName, s -> singletonList(fieldName));
+    return add(
+        StringMapping.<EntityT>builder()
+            .parameterName(parameterName)
+            .fieldNameSelector(s -> singletonList(fieldName))
+            .fieldNames(List.of(fieldName))
+            .build());
   }
 
   /** Create a string mapping where the value should match one of many field names. */
@@ -147,6 +156,26 @@ public class Mappings<EntityT> implements Supplier<List<Mapping<EntityT>>> {
             .build());
   }
 
+  /**
+   * Create a token mapping that selects codes from a single field. Tokens must have a code. If
+   * systems are given, the system must be one of them or unspecified, e.g. `code`. Otherwise, the
+   * system must be unspecified or explicitly empty, e.g. `|code`.
+   */
+  public Mappings<EntityT> token(String parameterName, String fieldName, String... systems) {
+    return add(
+        TokenMapping.<EntityT>builder()
+            .parameterName(parameterName)
+            .supportedToken(
+                t ->
+                    t.hasAnySystem()
+                        || (systems.length == 0
+                            ? t.hasExplicitlyNoSystem()
+                            : t.isSystemExplicitlySetAndOneOf(systems) && t.hasExplicitCode()))
+            .toSpecification(t -> Specifications.select(fieldName, t.code()))
+            .fieldNames(List.of(fieldName))
+            .build());
+  }
+
   /** Create a token mapping where all aspects are configurable. */
   public Mappings<EntityT> tokens(
       String parameterName,
@@ -180,7 +209,12 @@ public class Mappings<EntityT> implements Supplier<List<Mapping<EntityT>>> {
   /** Create a value mapping where request and field name are different. */
   public Mappings<EntityT> value(
       String parameterName, String fieldName, Function<String, ?> converter) {
-    return values(parameterName, v -> Map.of(fieldName, converter.apply(v)));
+    return add(
+        ValueMapping.<EntityT>builder()
+            .parameterName(parameterName)
+            .converter(v -> Map.of(fieldName, converter.apply(v)))
+            .fieldNames(List.of(fieldName))
+            .build());
   }
 
   public Mappings<EntityT> values(
@@ -3,17 +3,21 @@ package gov.va.api.lighthouse.vulcan.mappings;
 import static org.apache.commons.lang3.StringUtils.isBlank;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
-import gov.va.api.lighthouse.vulcan.CircuitBreaker;
+import gov.va.api.lighthouse.vulcan.EntityFields;
 import gov.va.api.lighthouse.vulcan.InvalidRequest;
 import gov.va.api.lighthouse.vulcan.Mapping;
+import gov.va.api.lighthouse.vulcan.Outcome;
 import gov.va.api.lighthouse.vulcan.Specifications;
+import gov.va.api.lighthouse.vulcan.Violation;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import javax.persistence.metamodel.SingularAttribute;
 import javax.servlet.http.HttpServletRequest;
 import lombok.Builder;
 import lombok.ToString;
@@ -23,7 +27,7 @@ import org.springframework.data.jpa.domain.Specification;
 
 @Value
 @ToString(onlyExplicitlyIncluded = true)
-@Builder
+@Builder(toBuilder = true)
 public class ReferenceMapping<EntityT> implements Mapping<EntityT> {
   @Include String parameterName;
 
@@ -33,6 +37,12 @@ public class ReferenceMapping<EntityT> implements Mapping<EntityT> {
 
   Function<ReferenceParameter, Collection<String>> fieldNameSelector;
 
+  /** Field names known without a request, used to check the configuration when it is bound. */
+  @Builder.Default List<String> fieldNames = List.of();
+
+  /** The resolved attributes of the known field names, set when the configuration is bound. */
+  @Builder.Default Map<String, SingularAttribute<?, ?>> attributes = Map.of();
+
   Predicate<ReferenceParameter> supportedReference;
 
   Function<ReferenceParameter, String> valueSelector;
@@ -47,7 +57,12 @@ public class ReferenceMapping<EntityT> implements Mapping<EntityT> {
   }
 
   @Override
-  public Specification<EntityT> specificationFor(HttpServletRequest request) {
+  public ReferenceMapping<EntityT> bind(EntityFields fields) {
+    return toBuilder().attributes(fields.attributes(fieldNames)).build();
+  }
+
+  @Override
+  public Outcome<Specification<EntityT>> evaluate(HttpServletRequest request) {
     String parameterName = null;
     String parameterValue = null;
     for (String n : supportedParameterNames()) {
@@ -58,37 +73,50 @@ public class ReferenceMapping<EntityT> implements Mapping<EntityT> {
       }
     }
     if (isBlank(parameterValue) || isBlank(parameterName)) {
-      throw InvalidRequest.noParametersSpecified();
+      return Outcome.rejected(Violation.noParametersSpecified());
     }
 
-    ReferenceParameter referenceParameter =
-        ReferenceParameterParser.builder()
-            .parameterName(parameterName)
-            .parameterValue(parameterValue)
-            .allowedReferenceTypes(allowedReferenceTypes())
-            .formats(
-                ReferenceParameterParser.standardFormatsForResource(
-                    defaultResourceType(), allowedReferenceTypes()))
-            .build()
-            .parse();
+    ReferenceParameter referenceParameter;
+    try {
+      referenceParameter =
+          ReferenceParameterParser.builder()
+              .parameterName(parameterName)
+              .parameterValue(parameterValue)
+              .allowedReferenceTypes(allowedReferenceTypes())
+              .formats(
+                  ReferenceParameterParser.standardFormatsForResource(
+                      defaultResourceType(), allowedReferenceTypes()))
+              .build()
+              .parse();
+    } catch (InvalidRequest e) {
+      return Outcome.rejected(Violation.from(e));
+    }
 
     if (!supportedReference().test(referenceParameter)) {
-      throw CircuitBreaker.noResultsWillBeFound(
+      return Outcome.noResultsWillBeFound(
           parameterName(), request.getParameter(parameterName()), "Reference is not supported.");
     }
     Collection<String> fieldNames = fieldNameSelector().apply(referenceParameter);
     if (fieldNames.isEmpty()) {
-      throw CircuitBreaker.noResultsWillBeFound(
+      return Outcome.noResultsWillBeFound(
           parameterName(), request.getParameter(parameterName()), "No database column defined.");
     }
     String value = valueSelector().apply(referenceParameter);
-    return fieldNames.stream()
-        .map(
-            field ->
-                (Specification<EntityT>)
-                    (root, criteriaQuery, criteriaBuilder) ->
-                        criteriaBuilder.equal(root.get(field), value))
-        .collect(Specifications.any());
+    return Outcome.of(
+        fieldNames.stream()
+            .map(
+                field -> {
+                  SingularAttribute<?, ?> attribute = attributes.get(field);
+                  return (Specification<EntityT>)
+                      (root, criteriaQuery, criteriaBuilder) ->
+                          criteriaBuilder.equal(EntityFields.get(root, field, attribute), value);
+                })
+            .collect(Specifications.any()));
+  }
+
+  @Override
+  public Specification<EntityT> specificationFor(HttpServletRequest request) {
+    return evaluate(request).orElseThrow();
   }
 
   @Override
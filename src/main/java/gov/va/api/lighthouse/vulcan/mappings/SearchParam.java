@@ -0,0 +1,44 @@
+package gov.va.api.lighthouse.vulcan.mappings;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an entity field as searchable. When the {@link SearchParamProcessor} is enabled, a
+ * `[Entity]SearchMappings` class is generated next to each annotated entity with a constant for
+ * each parameter name and a `mappings()` method that returns the mappings for every annotated
+ * field.
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.FIELD)
+public @interface SearchParam {
+  /** The request parameter name. If not specified, the field name is used. */
+  String name() default "";
+
+  /** For reference parameters, the allowed resource types. The first is the default. */
+  String[] resourceTypes() default {};
+
+  /** For token parameters, the supported code systems. */
+  String[] systems() default {};
+
+  /** How the parameter is interpreted. */
+  Type type();
+
+  /** The kinds of mappings that can be generated. */
+  enum Type {
+    /** A string mapping, see {@link Mappings#string(String, String)}. */
+    STRING,
+    /** A token mapping that selects codes of the supported systems. */
+    TOKEN,
+    /** A date mapping for Instant or long milliseconds fields. */
+    DATE,
+    /** A reference mapping that selects public IDs of the allowed resource types. */
+    REFERENCE,
+    /** A value mapping without conversion, see {@link Mappings#value(String, String)}. */
+    VALUE
+  }
+}
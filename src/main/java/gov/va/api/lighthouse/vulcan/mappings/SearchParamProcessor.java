@@ -0,0 +1,230 @@
+package gov.va.api.lighthouse.vulcan.mappings;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+
+/**
+ * Generates a `[Entity]SearchMappings` class for each entity with {@link SearchParam} fields. The
+ * generated `mappings()` method uses the standard {@link Mappings} methods, so generated mappings
+ * behave, and perform, exactly like hand written ones. The benefit is that parameters are declared
+ * next to their fields and annotation errors are reported when the entity is compiled.
+ *
+ * <p>The processor is optional and is not registered as a service. Enable it with the compiler
+ * `-processor` option, e.g. with the `annotationProcessorPaths` of the maven-compiler-plugin.
+ */
+@SupportedAnnotationTypes("gov.va.api.lighthouse.vulcan.mappings.SearchParam")
+public class SearchParamProcessor extends AbstractProcessor {
+  /** Create an upper case Java identifier for the parameter name, e.g. `_ID` for `_id`. */
+  static String constantNameOf(String parameterName) {
+    StringBuilder name = new StringBuilder();
+    for (int i = 0; i < parameterName.length(); i++) {
+      char c = parameterName.charAt(i);
+      boolean afterLowerCase = i > 0 && Character.isLowerCase(parameterName.charAt(i - 1));
+      if (afterLowerCase && Character.isUpperCase(c)) {
+        name.append('_');
+      }
+      name.append(Character.isJavaIdentifierPart(c) ? c : '_');
+    }
+    if (name.length() == 0 || !Character.isJavaIdentifierStart(name.charAt(0))) {
+      name.insert(0, '_');
+    }
+    return name.toString().toUpperCase(Locale.ENGLISH);
+  }
+
+  private static String literal(String value) {
+    StringBuilder literal = new StringBuilder("\"");
+    for (char c : value.toCharArray()) {
+      if (c == '"' || c == '\\') {
+        literal.append('\\').append(c);
+      } else if (c < ' ') {
+        literal.append(String.format("\\u%04x", (int) c));
+      } else {
+        literal.append(c);
+      }
+    }
+    return literal.append('"').toString();
+  }
+
+  private static String literals(String[] values) {
+    List<String> literals = new ArrayList<>(values.length);
+    for (String value : values) {
+      literals.add(literal(value));
+    }
+    return String.join(", ", literals);
+  }
+
+  private void error(Element element, String message) {
+    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+  }
+
+  private void generate(TypeElement entity, List<VariableElement> fields) {
+    String packageName =
+        processingEnv.getElementUtils().getPackageOf(entity).getQualifiedName().toString();
+    String className = entity.getSimpleName() + "SearchMappings";
+    List<String> constants = new ArrayList<>();
+    List<String> calls = new ArrayList<>();
+    Set<String> parameterNames = new HashSet<>();
+    Set<String> constantNames = new HashSet<>();
+    boolean valid = true;
+    for (VariableElement field : fields) {
+      SearchParam annotation = field.getAnnotation(SearchParam.class);
+      String fieldName = field.getSimpleName().toString();
+      String parameterName = annotation.name().isEmpty() ? fieldName : annotation.name();
+      String constant = constantNameOf(parameterName);
+      if (!parameterNames.add(parameterName) || !constantNames.add(constant)) {
+        error(field, "Search parameter " + parameterName + " is declared more than once");
+        valid = false;
+        continue;
+      }
+      String call = mappingCall(field, annotation, constant, literal(fieldName));
+      if (call == null) {
+        valid = false;
+        continue;
+      }
+      constants.add(
+          "  /** The `" + parameterName + "` parameter, mapped to the " + fieldName + " field. */");
+      constants.add(
+          "  public static final String " + constant + " = " + literal(parameterName) + ";");
+      constants.add("");
+      if (annotation.type() == SearchParam.Type.REFERENCE) {
+        constants.add("  private static final java.util.Set<String> " + constant + "_TYPES =");
+        constants.add("      java.util.Set.of(" + literals(annotation.resourceTypes()) + ");");
+        constants.add("");
+      }
+      calls.add(call);
+    }
+    if (!valid) {
+      return;
+    }
+    String qualifiedName = packageName.isEmpty() ? className : packageName + "." + className;
+    try (PrintWriter out =
+        new PrintWriter(
+            processingEnv.getFiler().createSourceFile(qualifiedName, entity).openWriter())) {
+      if (!packageName.isEmpty()) {
+        out.println("package " + packageName + ";");
+        out.println();
+      }
+      out.println("import gov.va.api.lighthouse.vulcan.mappings.Mappings;");
+      out.println("import javax.annotation.processing.Generated;");
+      out.println();
+      out.println("/** Search mappings generated from the SearchParam fields of the entity. */");
+      out.println("@Generated(\"" + getClass().getName() + "\")");
+      out.println("public final class " + className + " {");
+      constants.forEach(out::println);
+      out.println("  private " + className + "() {}");
+      out.println();
+      out.println("  /** Create mappings for every SearchParam field, more may be added. */");
+      String entityName = entity.getQualifiedName().toString();
+      out.println("  public static Mappings<" + entityName + "> mappings() {");
+      out.println("    return Mappings.forEntity(" + entityName + ".class)");
+      for (int i = 0; i < calls.size(); i++) {
+        out.println("        " + calls.get(i) + (i == calls.size() - 1 ? ";" : ""));
+      }
+      out.println("  }");
+      out.println("}");
+    } catch (IOException e) {
+      error(entity, "Cannot write " + qualifiedName + ": " + e.getMessage());
+    }
+  }
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  private boolean isOneOf(TypeMirror type, String... names) {
+    String name = processingEnv.getTypeUtils().erasure(type).toString();
+    for (String candidate : names) {
+      if (candidate.equals(name)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Return the Mappings method call for the field, or null if the annotation is invalid. */
+  private String mappingCall(
+      VariableElement field, SearchParam annotation, String constant, String fieldName) {
+    switch (annotation.type()) {
+      case STRING:
+        return ".string(" + constant + ", " + fieldName + ")";
+      case VALUE:
+        return ".value(" + constant + ", " + fieldName + ")";
+      case TOKEN:
+        return annotation.systems().length == 0
+            ? ".token(" + constant + ", " + fieldName + ")"
+            : ".token(" + constant + ", " + fieldName + ", " + literals(annotation.systems()) + ")";
+      case DATE:
+        if (isOneOf(field.asType(), "java.time.Instant")) {
+          return ".dateAsInstant(" + constant + ", " + fieldName + ")";
+        }
+        if (isOneOf(field.asType(), "long", "java.lang.Long")) {
+          return ".dateAsLongMilliseconds(" + constant + ", " + fieldName + ")";
+        }
+        error(field, "DATE search parameters require an Instant or long field");
+        return null;
+      case REFERENCE:
+        String[] types = annotation.resourceTypes();
+        if (types.length == 0) {
+          error(field, "REFERENCE search parameters require resourceTypes");
+          return null;
+        }
+        String allowed = constant + "_TYPES";
+        return ".reference("
+            + constant
+            + ", "
+            + fieldName
+            + ", "
+            + allowed
+            + ", "
+            + literal(types[0])
+            + ", r -> "
+            + allowed
+            + ".contains(r.type()), r -> r.publicId())";
+      default:
+        error(field, "Unsupported search parameter type " + annotation.type());
+        return null;
+    }
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+    Map<TypeElement, List<VariableElement>> fieldsByEntity = new LinkedHashMap<>();
+    for (Element element : round.getElementsAnnotatedWith(SearchParam.class)) {
+      if (element.getKind() != ElementKind.FIELD) {
+        continue;
+      }
+      if (element.getModifiers().contains(Modifier.STATIC)) {
+        error(element, "SearchParam fields must not be static");
+        continue;
+      }
+      TypeElement entity = (TypeElement) element.getEnclosingElement();
+      if (entity.getNestingKind() != NestingKind.TOP_LEVEL) {
+        error(element, "SearchParam fields must be declared by a top level class");
+        continue;
+      }
+      fieldsByEntity.computeIfAbsent(entity, e -> new ArrayList<>()).add((VariableElement) element);
+    }
+    fieldsByEntity.forEach(this::generate);
+    return true;
+  }
+}
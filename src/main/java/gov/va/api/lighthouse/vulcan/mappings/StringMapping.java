@@ -4,13 +4,17 @@ import static org.apache.commons.lang3.StringUtils.isBlank;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
 import gov.va.api.lighthouse.vulcan.CircuitBreaker;
+import gov.va.api.lighthouse.vulcan.EntityFields;
 import gov.va.api.lighthouse.vulcan.Mapping;
 import gov.va.api.lighthouse.vulcan.Specifications;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Function;
+import javax.persistence.metamodel.SingularAttribute;
 import javax.servlet.http.HttpServletRequest;
 import lombok.Builder;
+import lombok.ToString.Exclude;
 import lombok.Value;
 import org.springframework.data.jpa.domain.Specification;
 
@@ -25,12 +29,18 @@ import org.springframework.data.jpa.domain.Specification;
  * <p>Supports name:exact=xxx for case sensitive equality behavior.
  */
 @Value
-@Builder
+@Builder(toBuilder = true)
 public class StringMapping<EntityT> implements Mapping<EntityT> {
   String parameterName;
 
   Function<String, Collection<String>> fieldNameSelector;
 
+  /** Field names known without a request, used to check the configuration when it is bound. */
+  @Builder.Default List<String> fieldNames = List.of();
+
+  /** The resolved attributes of the known field names, set when the configuration is bound. */
+  @Exclude @Builder.Default Map<String, SingularAttribute<?, ?>> attributes = Map.of();
+
   @Override
   public boolean appliesTo(HttpServletRequest request) {
     return isNotBlank(request.getParameter(asStartsWithParameterName()))
@@ -55,27 +65,32 @@ public class StringMapping<EntityT> implements Mapping<EntityT> {
     if (isBlank(value)) {
       return null;
     }
-    Collection<String> fieldNames = fieldNames(value);
+    Collection<String> fieldNames = fieldNamesFor(value);
     /* This query relies on the database for case insesitivity in order to prevent performance
      * degradation caused by the lower() method of criteria builder. */
     return fieldNames.stream()
         .map(
-            fieldName ->
-                (Specification<EntityT>)
-                    (root, criteriaQuery, criteriaBuilder) ->
-                        criteriaBuilder.like(root.get(fieldName), "%" + value + "%"))
+            fieldName -> {
+              SingularAttribute<?, ?> attribute = attributes.get(fieldName);
+              return (Specification<EntityT>)
+                  (root, criteriaQuery, criteriaBuilder) ->
+                      criteriaBuilder.like(
+                          EntityFields.get(root, fieldName, attribute), "%" + value + "%");
+            })
         .collect(Specifications.any());
   }
 
   private Specification<EntityT> clauseForExactMatch(HttpServletRequest request) {
     String value = request.getParameter(asExactParameterName());
-    Collection<String> fieldNames = fieldNames(value);
+    Collection<String> fieldNames = fieldNamesFor(value);
     return fieldNames.stream()
         .map(
-            fieldName ->
-                (Specification<EntityT>)
-                    (root, criteriaQuery, criteriaBuilder) ->
-                        criteriaBuilder.equal(root.get(fieldName), value))
+            fieldName -> {
+              SingularAttribute<?, ?> attribute = attributes.get(fieldName);
+              return (Specification<EntityT>)
+                  (root, criteriaQuery, criteriaBuilder) ->
+                      criteriaBuilder.equal(EntityFields.get(root, fieldName, attribute), value);
+            })
         .collect(Specifications.any());
   }
 
@@ -84,19 +99,22 @@ public class StringMapping<EntityT> implements Mapping<EntityT> {
     if (isBlank(value)) {
       return null;
     }
-    Collection<String> fieldNames = fieldNames(value);
+    Collection<String> fieldNames = fieldNamesFor(value);
     /* This query relies on the database for case insesitivity in order to prevent performance
      * degradation caused by the lower() method of criteria builder. */
     return fieldNames.stream()
         .map(
-            fieldName ->
-                (Specification<EntityT>)
-                    (root, criteriaQuery, criteriaBuilder) ->
-                        criteriaBuilder.like(root.get(fieldName), value + "%"))
+            fieldName -> {
+              SingularAttribute<?, ?> attribute = attributes.get(fieldName);
+              return (Specification<EntityT>)
+                  (root, criteriaQuery, criteriaBuilder) ->
+                      criteriaBuilder.like(
+                          EntityFields.get(root, fieldName, attribute), value + "%");
+            })
         .collect(Specifications.any());
   }
 
-  private Collection<String> fieldNames(String value) {
+  private Collection<String> fieldNamesFor(String value) {
     var fieldNames = fieldNameSelector().apply(value);
     if (fieldNames == null || fieldNames.isEmpty()) {
       throw CircuitBreaker.noResultsWillBeFound(
@@ -105,6 +123,11 @@ public class StringMapping<EntityT> implements Mapping<EntityT> {
     return fieldNames;
   }
 
+  @Override
+  public StringMapping<EntityT> bind(EntityFields fields) {
+    return toBuilder().attributes(fields.attributes(fieldNames)).build();
+  }
+
   @Override
   public Specification<EntityT> specificationFor(HttpServletRequest request) {
     Specification<EntityT> specification = clauseForStartsWithMatch(request);
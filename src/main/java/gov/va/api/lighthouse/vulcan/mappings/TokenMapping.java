@@ -2,8 +2,10 @@ package gov.va.api.lighthouse.vulcan.mappings;
 
 import static java.util.stream.Collectors.toList;
 
-import gov.va.api.lighthouse.vulcan.CircuitBreaker;
+import gov.va.api.lighthouse.vulcan.InvalidRequest;
+import gov.va.api.lighthouse.vulcan.Outcome;
 import gov.va.api.lighthouse.vulcan.Specifications;
+import gov.va.api.lighthouse.vulcan.Violation;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
@@ -26,24 +28,37 @@ public class TokenMapping<EntityT> implements SingleParameterMapping<EntityT> {
   Predicate<TokenParameter> supportedToken;
   Function<TokenParameter, Specification<EntityT>> toSpecification;
 
+  /** Field names known without a request, used to check the configuration when it is bound. */
+  @Builder.Default List<String> fieldNames = List.of();
+
   @Override
-  public Specification<EntityT> specificationFor(HttpServletRequest request) {
+  public Outcome<Specification<EntityT>> evaluate(HttpServletRequest request) {
     String parameterValue = request.getParameter(parameterName());
     if (parameterValue == null) {
-      throw CircuitBreaker.noResultsWillBeFound(
-          parameterName(), "null", "Parameter value is null.");
+      return Outcome.noResultsWillBeFound(parameterName(), "null", "Parameter value is null.");
+    }
+    List<TokenParameter> tokens;
+    try {
+      tokens =
+          Arrays.stream(parameterValue.split(",", -1))
+              .map(StringUtils::trimToNull)
+              .filter(Objects::nonNull)
+              .map(v -> TokenParameter.parse(parameterName(), v))
+              .filter(supportedToken())
+              .collect(toList());
+    } catch (InvalidRequest e) {
+      return Outcome.rejected(Violation.from(e));
     }
-    List<TokenParameter> tokens =
-        Arrays.stream(parameterValue.split(",", -1))
-            .map(StringUtils::trimToNull)
-            .filter(Objects::nonNull)
-            .map(v -> TokenParameter.parse(parameterName(), v))
-            .filter(supportedToken())
-            .collect(toList());
     if (tokens.isEmpty()) {
-      throw CircuitBreaker.noResultsWillBeFound(
+      return Outcome.noResultsWillBeFound(
           parameterName(), parameterValue, "No supported tokens were found.");
     }
-    return tokens.stream().map(toSpecification()).collect(Specifications.any());
+    return Outcome.evaluate(
+        () -> tokens.stream().map(toSpecification()).collect(Specifications.any()));
+  }
+
+  @Override
+  public Specification<EntityT> specificationFor(HttpServletRequest request) {
+    return evaluate(request).orElseThrow();
   }
 }
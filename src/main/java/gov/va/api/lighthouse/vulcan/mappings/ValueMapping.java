@@ -1,11 +1,14 @@
 package gov.va.api.lighthouse.vulcan.mappings;
 
-import gov.va.api.lighthouse.vulcan.CircuitBreaker;
+import gov.va.api.lighthouse.vulcan.EntityFields;
+import gov.va.api.lighthouse.vulcan.Outcome;
 import gov.va.api.lighthouse.vulcan.Specifications;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.function.Function;
+import javax.persistence.metamodel.SingularAttribute;
 import javax.servlet.http.HttpServletRequest;
 import lombok.Builder;
 import lombok.ToString.Exclude;
@@ -19,7 +22,7 @@ import org.springframework.data.jpa.domain.Specification;
  * Columns will use AND semantics when searching.
  */
 @Value
-@Builder
+@Builder(toBuilder = true)
 public class ValueMapping<EntityT> implements SingleParameterMapping<EntityT> {
 
   String parameterName;
@@ -27,27 +30,47 @@ public class ValueMapping<EntityT> implements SingleParameterMapping<EntityT> {
   /** Produce a JPA entity field name to query value. */
   @Exclude Function<String, Map<String, ?>> converter;
 
+  /** Field names known without a request, used to check the configuration when it is bound. */
+  @Builder.Default List<String> fieldNames = List.of();
+
+  /** The resolved attributes of the known field names, set when the configuration is bound. */
+  @Exclude @Builder.Default Map<String, SingularAttribute<?, ?>> attributes = Map.of();
+
   /** Simple converter that allows a single field to be mapped to the parameter value. */
   public static Function<String, Map<String, ?>> singleFieldValue(String fieldName) {
     return value -> Map.of(fieldName, value);
   }
 
   @Override
-  public Specification<EntityT> specificationFor(HttpServletRequest request) {
+  public ValueMapping<EntityT> bind(EntityFields fields) {
+    return toBuilder().attributes(fields.attributes(fieldNames)).build();
+  }
+
+  @Override
+  public Outcome<Specification<EntityT>> evaluate(HttpServletRequest request) {
     String parameterValue = request.getParameter(parameterName());
     if (parameterValue == null) {
-      throw CircuitBreaker.noResultsWillBeFound(
-          parameterName(), "null", "Parameter value is null.");
+      return Outcome.noResultsWillBeFound(parameterName(), "null", "Parameter value is null.");
     }
-    return Arrays.stream(parameterValue.split(",", -1))
-        .map(StringUtils::trimToNull)
-        .filter(Objects::nonNull)
-        .map(paramValue -> converter().apply(paramValue).entrySet())
-        .map(
-            v ->
-                v.stream()
-                    .map(cv -> Specifications.<EntityT>select(cv.getKey(), cv.getValue()))
-                    .collect(Specifications.all()))
-        .collect(Specifications.any());
+    return Outcome.evaluate(
+        () ->
+            Arrays.stream(parameterValue.split(",", -1))
+                .map(StringUtils::trimToNull)
+                .filter(Objects::nonNull)
+                .map(paramValue -> converter().apply(paramValue).entrySet())
+                .map(
+                    v ->
+                        v.stream()
+                            .map(
+                                cv ->
+                                    Specifications.<EntityT>select(
+                                        cv.getKey(), attributes.get(cv.getKey()), cv.getValue()))
+                            .collect(Specifications.all()))
+                .collect(Specifications.any()));
+  }
+
+  @Override
+  public Specification<EntityT> specificationFor(HttpServletRequest request) {
+    return evaluate(request).orElseThrow();
   }
 }
@@ -0,0 +1,186 @@
+package gov.va.api.lighthouse.vulcan;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import gov.va.api.lighthouse.vulcan.fugazi.FugaziEntity;
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class CacheInvalidatorTest {
+  TotalsCache totals = TotalsCache.builder().maxEntries(10).build();
+
+  SearchFingerprint tacos = fingerprint("food=TACOS");
+
+  SearchFingerprint nachos = fingerprint("food=NACHOS");
+
+  SearchFingerprint tacosOrNachos = fingerprint("food=TACOS%2CNACHOS");
+
+  SearchFingerprint burritos = fingerprint("food=BURRITOS");
+
+  SearchFingerprint named = fingerprint("name=tacos2005");
+
+  SearchFingerprint other = new SearchFingerprint(String.class.getName(), "food=TACOS");
+
+  private static SearchFingerprint fingerprint(String parameters) {
+    return new SearchFingerprint(FugaziEntity.class.getName(), parameters);
+  }
+
+  /** Run as if in a transaction, completing its synchronizations afterwards. */
+  private static void inTransaction(boolean readOnly, Runnable work) {
+    TransactionSynchronizationManager.initSynchronization();
+    TransactionSynchronizationManager.setCurrentTransactionReadOnly(readOnly);
+    try {
+      work.run();
+      TransactionSynchronizationManager.getSynchronizations()
+          .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+    } finally {
+      TransactionSynchronizationManager.clear();
+    }
+  }
+
+  private CacheInvalidator invalidator() {
+    return CacheInvalidator.builder()
+        .cache(totals)
+        .tag(CacheInvalidator.Tag.of(FugaziEntity.class, "food", FugaziEntity::getFood))
+        .build();
+  }
+
+  private void remember(SearchFingerprint... fingerprints) {
+    for (SearchFingerprint fingerprint : fingerprints) {
+      totals.put(fingerprint, 1);
+    }
+  }
+
+  @Test
+  void insertsEvictSearchesThatCouldMatchTheEntity() {
+    remember(tacos, nachos, tacosOrNachos, burritos, named, other);
+    invalidator().entityInserted(FugaziEntity.builder().name("new").food("TACOS").build());
+    assertThat(totals.get(tacos)).isNull();
+    assertThat(totals.get(tacosOrNachos)).isNull();
+    assertThat(totals.get(named)).isNull();
+    assertThat(totals.get(nachos)).isEqualTo(1);
+    assertThat(totals.get(burritos)).isEqualTo(1);
+    assertThat(totals.get(other)).isEqualTo(1);
+  }
+
+  @Test
+  void loadsInReadOnlyTransactionsAreNotRemembered() {
+    var invalidator = invalidator();
+    var entity = FugaziEntity.builder().id(1).name("tacos2005").food("TACOS").build();
+    inTransaction(
+        true,
+        () -> {
+          invalidator.entityLoaded(entity);
+          assertThat(TransactionSynchronizationManager.getResourceMap()).isEmpty();
+        });
+    remember(tacos, burritos);
+    inTransaction(
+        false,
+        () -> {
+          entity.setFood("NACHOS");
+          invalidator.entityUpdated(entity);
+        });
+    assertThat(totals.get(burritos)).isNull();
+  }
+
+  @Test
+  void loadedValuesAreTrackedByIdentityAndForgottenWithTheTransaction() {
+    var invalidator = invalidator();
+    var first = FugaziEntity.builder().name("first").food("TACOS").build();
+    var second = FugaziEntity.builder().name("second").food("NACHOS").build();
+    assertThat(first).isEqualTo(second);
+    inTransaction(
+        false,
+        () -> {
+          invalidator.entityLoaded(first);
+          invalidator.entityLoaded(second);
+          remember(tacos, nachos, burritos);
+          first.setFood("BURRITOS");
+          invalidator.entityUpdated(first);
+          assertThat(totals.get(tacos)).isNull();
+          assertThat(totals.get(burritos)).isNull();
+          assertThat(totals.get(nachos)).isEqualTo(1);
+        });
+    assertThat(TransactionSynchronizationManager.getResourceMap()).isEmpty();
+  }
+
+  @Test
+  void subclassesAndProxiesEvictSearchesOfTheirEntityType() {
+    remember(tacos, nachos, other);
+    var proxy = new FugaziEntity() {};
+    proxy.setFood("TACOS");
+    invalidator().entityInserted(proxy);
+    assertThat(totals.get(tacos)).isNull();
+    assertThat(totals.get(nachos)).isEqualTo(1);
+    assertThat(totals.get(other)).isEqualTo(1);
+  }
+
+  @Test
+  void untaggedEntitiesEvictTheirEntityType() {
+    remember(tacos, nachos, other);
+    CacheInvalidator.builder().cache(totals).build().entityInserted(new FugaziEntity());
+    assertThat(totals.get(tacos)).isNull();
+    assertThat(totals.get(nachos)).isNull();
+    assertThat(totals.get(other)).isEqualTo(1);
+  }
+
+  @Test
+  void updatesEvictSearchesMatchingTheValuesBeforeAndAfter() {
+    var invalidator = invalidator();
+    var entity = FugaziEntity.builder().id(1).name("tacos2005").food("TACOS").build();
+    inTransaction(
+        false,
+        () -> {
+          invalidator.entityLoaded(entity);
+          remember(tacos, nachos, burritos, named);
+          entity.setFood("NACHOS");
+          invalidator.entityUpdated(entity);
+        });
+    assertThat(totals.get(tacos)).isNull();
+    assertThat(totals.get(nachos)).isNull();
+    assertThat(totals.get(named)).isNull();
+    assertThat(totals.get(burritos)).isEqualTo(1);
+  }
+
+  @Test
+  void updatesOfEntitiesThatWereNotLoadedEvictTheirEntityType() {
+    remember(tacos, burritos, other);
+    invalidator()
+        .entityUpdated(FugaziEntity.builder().id(2).name("tacos2006").food("TACOS").build());
+    assertThat(totals.get(tacos)).isNull();
+    assertThat(totals.get(burritos)).isNull();
+    assertThat(totals.get(other)).isEqualTo(1);
+  }
+
+  @Test
+  void valuesThatCannotBeComparedExactlyEvict() {
+    var invalidator =
+        CacheInvalidator.builder()
+            .cache(totals)
+            .tag(CacheInvalidator.Tag.of(FugaziEntity.class, "food", FugaziEntity::getFood))
+            .tag(CacheInvalidator.Tag.of(FugaziEntity.class, "date", FugaziEntity::getDate))
+            .tag(CacheInvalidator.Tag.of(FugaziEntity.class, "millis", FugaziEntity::getMillis))
+            .build();
+    var lowerCase = fingerprint("food=tacos");
+    var token = fingerprint("food=http%3A%2F%2Ffood%7CBURRITOS");
+    var date = fingerprint("date=2005");
+    var sameMillis = fingerprint("millis=5.0");
+    var otherMillis = fingerprint("millis=7");
+    remember(lowerCase, token, date, sameMillis, otherMillis, burritos);
+    invalidator.entityInserted(
+        FugaziEntity.builder()
+            .name("new")
+            .food("TACOS")
+            .date(Instant.parse("2005-01-21T07:57:00Z"))
+            .millis(5)
+            .build());
+    assertThat(totals.get(lowerCase)).isNull();
+    assertThat(totals.get(token)).isNull();
+    assertThat(totals.get(date)).isNull();
+    assertThat(totals.get(sameMillis)).isNull();
+    assertThat(totals.get(otherMillis)).isEqualTo(1);
+    assertThat(totals.get(burritos)).isEqualTo(1);
+  }
+}
@@ -0,0 +1,103 @@
+package gov.va.api.lighthouse.vulcan;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+class ContinuationTokensTest {
+  static final Instant NOW = Instant.parse("2021-06-01T12:00:00Z");
+
+  ContinuationToken token() {
+    return ContinuationToken.builder()
+        .page(3)
+        .count(20)
+        .searchDigest(
+            ContinuationTokens.digestOf(
+                new SearchFingerprint("Fugazi", "name=a"), Sort.by("date", "id")))
+        .issued(NOW)
+        .totalRecords(42L)
+        .position(List.of("tacos", 7L, 8, NOW))
+        .build();
+  }
+
+  ContinuationTokens tokens(String secret, Duration maxAge) {
+    Clock clock = mock(Clock.class);
+    when(clock.instant()).thenReturn(NOW.plusSeconds(60));
+    return ContinuationTokens.builder()
+        .secret(secret.getBytes(StandardCharsets.UTF_8))
+        .maxAge(maxAge)
+        .clock(clock)
+        .build();
+  }
+
+  @Test
+  void defaultMaxAgeExpiresCarriedState() {
+    var issuer = tokens("secret", null);
+    var old = token().toBuilder().issued(NOW.minus(ContinuationTokens.DEFAULT_MAX_AGE)).build();
+    var decoded = issuer.decode(issuer.encode(old));
+    assertThat(decoded.page()).isEqualTo(3);
+    assertThat(decoded.totalRecords()).isNull();
+    assertThat(issuer.decode(issuer.encode(token())).totalRecords()).isEqualTo(42L);
+  }
+
+  @Test
+  void digestDependsOnSearchAndSort() {
+    var fingerprint = new SearchFingerprint("Fugazi", "name=a");
+    assertThat(ContinuationTokens.digestOf(fingerprint, Sort.by("id")))
+        .isEqualTo(ContinuationTokens.digestOf(fingerprint, Sort.by("id")))
+        .isNotEqualTo(ContinuationTokens.digestOf(fingerprint, Sort.by("date")))
+        .isNotEqualTo(
+            ContinuationTokens.digestOf(new SearchFingerprint("Fugazi", "name=b"), Sort.by("id")))
+        .isNotEqualTo(
+            ContinuationTokens.digestOf(
+                new SearchFingerprint("Fugazi", "", "p1", "name=a"), Sort.by("id")))
+        .isNotEqualTo(
+            ContinuationTokens.digestOf(
+                new SearchFingerprint("Fugazi", "fugazi", "", "name=a"), Sort.by("id")));
+    assertThat(
+            ContinuationTokens.digestOf(
+                new SearchFingerprint("Fugazi", "", "p1", "name=a"), Sort.by("id")))
+        .isNotEqualTo(
+            ContinuationTokens.digestOf(
+                new SearchFingerprint("Fugazi", "", "p2", "name=a"), Sort.by("id")));
+  }
+
+  @Test
+  void staleTokensOnlyKeepThePage() {
+    var tokens = tokens("secret", Duration.ofSeconds(30));
+    var decoded = tokens.decode(tokens.encode(token()));
+    assertThat(decoded.page()).isEqualTo(3);
+    assertThat(decoded.totalRecords()).isNull();
+    assertThat(decoded.position()).isEmpty();
+  }
+
+  @Test
+  void tamperedTokensAreRejected() {
+    var encoded = tokens("secret", null).encode(token());
+    assertThatExceptionOfType(IllegalArgumentException.class)
+        .isThrownBy(() -> tokens("other", null).decode(encoded));
+    char[] chars = encoded.toCharArray();
+    chars[2] = chars[2] == 'A' ? 'B' : 'A';
+    assertThatExceptionOfType(IllegalArgumentException.class)
+        .isThrownBy(() -> tokens("secret", null).decode(new String(chars)));
+    assertThatExceptionOfType(IllegalArgumentException.class)
+        .isThrownBy(() -> tokens("secret", null).decode("not a token!"));
+  }
+
+  @Test
+  void tokensRoundTrip() {
+    var tokens = tokens("secret", Duration.ofMinutes(5));
+    assertThat(tokens.decode(tokens.encode(token()))).isEqualTo(token());
+    var withoutState = token().withoutReusableState();
+    assertThat(tokens.decode(tokens.encode(withoutState))).isEqualTo(withoutState);
+  }
+}
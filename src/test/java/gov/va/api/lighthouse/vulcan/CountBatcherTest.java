@@ -0,0 +1,185 @@
+package gov.va.api.lighthouse.vulcan;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import gov.va.api.lighthouse.vulcan.fugazi.FugaziEntity;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.persistence.QueryTimeoutException;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.jpa.domain.Specification;
+
+class CountBatcherTest {
+  @SuppressWarnings("unchecked")
+  private static EntityQueries<FugaziEntity> queries() {
+    EntityQueries<FugaziEntity> queries = mock(EntityQueries.class);
+    when(queries.entityType()).thenReturn(FugaziEntity.class);
+    return queries;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Specification<FugaziEntity> specification() {
+    return mock(Specification.class);
+  }
+
+  /** Start a count that stays in progress until the latch is released, so counts batch. */
+  private static CompletableFuture<Long> busy(
+      CountBatcher batcher, EntityQueries<FugaziEntity> queries, CountDownLatch release)
+      throws InterruptedException {
+    var started = new CountDownLatch(1);
+    var specification = specification();
+    when(queries.count(specification, null))
+        .thenAnswer(
+            invocation -> {
+              started.countDown();
+              release.await(5, TimeUnit.SECONDS);
+              return 1L;
+            });
+    CompletableFuture<Long> busy =
+        CompletableFuture.supplyAsync(() -> batcher.count(queries, specification, null, () -> {}));
+    assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+    return busy;
+  }
+
+  @Test
+  void countsArrivingWithinTheWindowShareOneStatement() throws Exception {
+    var batcher = CountBatcher.builder().window(Duration.ofMillis(500)).build();
+    var queries = queries();
+    var first = specification();
+    var second = specification();
+    when(queries.countEach(anyList(), any())).thenReturn(new long[] {3, 5});
+    var batched = new AtomicInteger();
+    var release = new CountDownLatch(1);
+    var busy = busy(batcher, queries, release);
+    CompletableFuture<Long> leader =
+        CompletableFuture.supplyAsync(
+            () -> batcher.count(queries, first, null, batched::incrementAndGet));
+    Thread.sleep(100);
+    assertThat(batcher.count(queries, second, null, batched::incrementAndGet)).isEqualTo(5);
+    assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo(3);
+    release.countDown();
+    assertThat(busy.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+    assertThat(batched.get()).isEqualTo(2);
+    verify(queries, times(1)).countEach(anyList(), any());
+    verify(queries, never()).count(first, null);
+    verify(queries, never()).count(second, null);
+  }
+
+  @Test
+  void countsThatCannotShareAStatementAreCountedIndividually() throws Exception {
+    var batcher = CountBatcher.builder().window(Duration.ofMillis(500)).build();
+    var queries = queries();
+    var first = specification();
+    var second = specification();
+    when(queries.countEach(anyList(), any())).thenReturn(null);
+    when(queries.count(first, null)).thenReturn(3L);
+    when(queries.count(second, null)).thenReturn(5L);
+    var release = new CountDownLatch(1);
+    var busy = busy(batcher, queries, release);
+    CompletableFuture<Long> leader =
+        CompletableFuture.supplyAsync(() -> batcher.count(queries, first, null, () -> {}));
+    Thread.sleep(100);
+    assertThat(batcher.count(queries, second, null, () -> {})).isEqualTo(5);
+    assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo(3);
+    release.countDown();
+    busy.get(5, TimeUnit.SECONDS);
+  }
+
+  @Test
+  void countsWithDifferentDeadlinesAreNotBatched() throws Exception {
+    var batcher = CountBatcher.builder().window(Duration.ofMillis(200)).build();
+    var queries = queries();
+    var first = specification();
+    var second = specification();
+    when(queries.count(first, Duration.ofSeconds(1))).thenReturn(3L);
+    when(queries.count(second, Duration.ofSeconds(2))).thenReturn(5L);
+    var release = new CountDownLatch(1);
+    var busy = busy(batcher, queries, release);
+    CompletableFuture<Long> leader =
+        CompletableFuture.supplyAsync(
+            () -> batcher.count(queries, first, Duration.ofSeconds(1), () -> {}));
+    assertThat(batcher.count(queries, second, Duration.ofSeconds(2), () -> {})).isEqualTo(5);
+    assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo(3);
+    release.countDown();
+    busy.get(5, TimeUnit.SECONDS);
+    verify(queries, never()).countEach(anyList(), any());
+  }
+
+  @Test
+  void failedBatchesAreCountedIndividually() throws Exception {
+    var batcher = CountBatcher.builder().window(Duration.ofMillis(500)).build();
+    var queries = queries();
+    var first = specification();
+    var second = specification();
+    when(queries.countEach(anyList(), any()))
+        .thenThrow(new QueryTimeoutException("Statement cancelled: async request failed"));
+    when(queries.count(first, null)).thenReturn(3L);
+    when(queries.count(second, null)).thenReturn(5L);
+    var batched = new AtomicInteger();
+    var release = new CountDownLatch(1);
+    var busy = busy(batcher, queries, release);
+    CompletableFuture<Long> leader =
+        CompletableFuture.supplyAsync(
+            () -> batcher.count(queries, first, null, batched::incrementAndGet));
+    Thread.sleep(100);
+    assertThat(batcher.count(queries, second, null, batched::incrementAndGet)).isEqualTo(5);
+    assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo(3);
+    release.countDown();
+    busy.get(5, TimeUnit.SECONDS);
+    assertThat(batched.get()).isZero();
+    verify(queries, times(1)).countEach(anyList(), any());
+  }
+
+  @Test
+  void followersCountIndividuallyIfTheBatchDoesNotComplete() throws Exception {
+    var batcher =
+        CountBatcher.builder()
+            .window(Duration.ofMillis(200))
+            .maxWait(Duration.ofMillis(300))
+            .build();
+    var queries = queries();
+    var first = specification();
+    var second = specification();
+    var release = new CountDownLatch(1);
+    when(queries.countEach(anyList(), any()))
+        .thenAnswer(
+            invocation -> {
+              release.await(5, TimeUnit.SECONDS);
+              return new long[] {3, 5};
+            });
+    when(queries.count(second, null)).thenReturn(5L);
+    var busy = busy(batcher, queries, release);
+    CompletableFuture<Long> leader =
+        CompletableFuture.supplyAsync(() -> batcher.count(queries, first, null, () -> {}));
+    Thread.sleep(50);
+    assertThat(batcher.count(queries, second, null, () -> {})).isEqualTo(5);
+    verify(queries).count(second, null);
+    release.countDown();
+    assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo(3);
+    busy.get(5, TimeUnit.SECONDS);
+  }
+
+  @Test
+  void singleCountsAreNotBatchedOrDelayed() {
+    var batcher = CountBatcher.builder().window(Duration.ofSeconds(5)).build();
+    var queries = queries();
+    var only = specification();
+    when(queries.count(only, null)).thenReturn(7L);
+    var batched = new AtomicInteger();
+    long start = System.nanoTime();
+    assertThat(batcher.count(queries, only, null, batched::incrementAndGet)).isEqualTo(7);
+    assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+    assertThat(batched.get()).isZero();
+    verify(queries, never()).countEach(anyList(), any());
+  }
+}
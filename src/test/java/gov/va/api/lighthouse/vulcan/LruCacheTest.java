@@ -0,0 +1,53 @@
+package gov.va.api.lighthouse.vulcan;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+
+class LruCacheTest {
+  @Test
+  void entriesExpire() {
+    Clock clock = mock(Clock.class);
+    Instant now = Instant.parse("2005-01-21T07:57:00Z");
+    when(clock.instant()).thenReturn(now);
+    LruCache<String, String> cache =
+        LruCache.<String, String>builder()
+            .maxEntries(10)
+            .timeToLive(Duration.ofSeconds(30))
+            .clock(clock)
+            .build();
+    cache.put("a", "A");
+    when(clock.instant()).thenReturn(now.plusSeconds(29));
+    assertThat(cache.get("a")).isEqualTo("A");
+    when(clock.instant()).thenReturn(now.plusSeconds(30));
+    assertThat(cache.get("a")).isNull();
+    assertThat(cache.size()).isZero();
+  }
+
+  @Test
+  void leastRecentlyUsedEntriesAreEvicted() {
+    LruCache<String, String> cache = LruCache.<String, String>builder().maxEntries(2).build();
+    cache.put("a", "A");
+    cache.put("b", "B");
+    assertThat(cache.get("a")).isEqualTo("A");
+    cache.put("c", "C");
+    assertThat(cache.get("b")).isNull();
+    assertThat(cache.get("a")).isEqualTo("A");
+    assertThat(cache.get("c")).isEqualTo("C");
+    cache.removeIf(k -> k.equals("a"));
+    assertThat(cache.get("a")).isNull();
+    assertThat(cache.size()).isEqualTo(1);
+  }
+
+  @Test
+  void maxEntriesIsRequired() {
+    assertThatExceptionOfType(IllegalArgumentException.class)
+        .isThrownBy(() -> LruCache.<String, String>builder().build());
+  }
+}
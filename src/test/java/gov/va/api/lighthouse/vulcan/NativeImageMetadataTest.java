@@ -0,0 +1,66 @@
+package gov.va.api.lighthouse.vulcan;
+
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.StreamSupport;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+
+class NativeImageMetadataTest {
+  private static final String METADATA = "META-INF/native-image/gov.va.api.lighthouse/vulcan/";
+
+  @SneakyThrows
+  private static JsonNode metadata(String file) {
+    try (InputStream in =
+        NativeImageMetadataTest.class.getClassLoader().getResourceAsStream(METADATA + file)) {
+      assertThat(in).as(file).isNotNull();
+      return new ObjectMapper().readTree(in);
+    }
+  }
+
+  @SneakyThrows
+  private static Class<?>[] typesOf(JsonNode names) {
+    List<Class<?>> types = new ArrayList<>();
+    for (JsonNode name : names) {
+      types.add(Class.forName(name.asText()));
+    }
+    return types.toArray(new Class<?>[0]);
+  }
+
+  @Test
+  void proxiesMatchTheWarmUpRequest() {
+    var request = VulcanWarmUp.requestOf(Map.of());
+    assertThat(Proxy.isProxyClass(request.getClass())).isTrue();
+    List<List<Class<?>>> configured =
+        StreamSupport.stream(metadata("proxy-config.json").spliterator(), false)
+            .map(proxy -> Arrays.asList(typesOf(proxy.get("interfaces"))))
+            .collect(toList());
+    assertThat(configured).contains(Arrays.asList(request.getClass().getInterfaces()));
+  }
+
+  @Test
+  @SneakyThrows
+  void reflectedMembersExist() {
+    for (JsonNode entry : metadata("reflect-config.json")) {
+      Class<?> type = Class.forName(entry.get("name").asText());
+      for (JsonNode method : entry.get("methods")) {
+        String name = method.get("name").asText();
+        Class<?>[] parameterTypes = typesOf(method.get("parameterTypes"));
+        if (name.equals("<init>")) {
+          assertThat(type.getDeclaredConstructor(parameterTypes)).isNotNull();
+        } else {
+          assertThat(type.getDeclaredMethod(name, parameterTypes)).isNotNull();
+        }
+      }
+    }
+  }
+}
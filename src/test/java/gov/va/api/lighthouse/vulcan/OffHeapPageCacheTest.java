@@ -0,0 +1,138 @@
+package gov.va.api.lighthouse.vulcan;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class OffHeapPageCacheTest {
+  private static byte[] bytes(int length) {
+    byte[] bytes = new byte[length];
+    for (int i = 0; i < length; i++) {
+      bytes[i] = (byte) i;
+    }
+    return bytes;
+  }
+
+  private static byte[] bytesOf(ByteBuffer page) {
+    if (page == null) {
+      return null;
+    }
+    byte[] bytes = new byte[page.remaining()];
+    page.get(bytes);
+    return bytes;
+  }
+
+  private static SearchPageKey key(String entityType, int page) {
+    return key(entityType, page, "http://localhost/foo", "json");
+  }
+
+  private static SearchPageKey key(String entityType, int page, String baseUrl, String serializer) {
+    return new SearchPageKey(
+        new SearchFingerprint(entityType, "name=a"),
+        "UNSORTED",
+        page,
+        10,
+        (page - 1) * 10L,
+        TotalMode.ACCURATE,
+        List.of(),
+        baseUrl,
+        serializer);
+  }
+
+  @Test
+  void expiredPagesAreNotReturned() {
+    var now = Instant.parse("2005-01-21T07:57:00Z");
+    Clock clock = mock(Clock.class);
+    when(clock.instant()).thenReturn(now);
+    var cache =
+        OffHeapPageCache.builder()
+            .maxBytes(64)
+            .timeToLive(Duration.ofMinutes(1))
+            .clock(clock)
+            .build();
+    cache.put(key("Foo", 1), bytes(10));
+    when(clock.instant()).thenReturn(now.plusSeconds(59));
+    assertThat(bytesOf(cache.get(key("Foo", 1)))).isEqualTo(bytes(10));
+    when(clock.instant()).thenReturn(now.plusSeconds(60));
+    assertThat(cache.get(key("Foo", 1))).isNull();
+    assertThat(cache.bytesUsed()).isZero();
+  }
+
+  @Test
+  void hitsAreReadOnlyViewsThatSurviveEviction() {
+    var cache = OffHeapPageCache.builder().maxBytes(32).build();
+    cache.put(key("Foo", 1), bytes(20));
+    ByteBuffer page = cache.get(key("Foo", 1));
+    assertThat(page.isReadOnly()).isTrue();
+    assertThat(page.isDirect()).isTrue();
+    assertThat(cache.get(key("Foo", 1))).isNotSameAs(page);
+    cache.put(key("Foo", 2), bytes(30));
+    assertThat(cache.get(key("Foo", 1))).isNull();
+    assertThat(bytesOf(page)).isEqualTo(bytes(20));
+  }
+
+  @Test
+  void invalidatedPagesReleaseTheirBytes() {
+    var cache = OffHeapPageCache.builder().maxBytes(64).build();
+    cache.put(key("Foo", 1), bytes(20));
+    cache.put(key("Bar", 1), bytes(20));
+    assertThat(cache.bytesUsed()).isEqualTo(40);
+    cache.invalidateIf(fingerprint -> fingerprint.entityType().equals("Foo"));
+    assertThat(cache.get(key("Foo", 1))).isNull();
+    assertThat(bytesOf(cache.get(key("Bar", 1)))).isEqualTo(bytes(20));
+    assertThat(cache.bytesUsed()).isEqualTo(20);
+    cache.clear();
+    assertThat(cache.size()).isZero();
+    assertThat(cache.bytesUsed()).isZero();
+  }
+
+  @Test
+  void leastRecentlyUsedPagesAreEvictedToStayWithinBudget() {
+    var cache = OffHeapPageCache.builder().maxBytes(64).build();
+    cache.put(key("Foo", 1), bytes(32));
+    cache.put(key("Foo", 2), bytes(32));
+    assertThat(bytesOf(cache.get(key("Foo", 1)))).isEqualTo(bytes(32));
+    cache.put(key("Foo", 3), bytes(17));
+    assertThat(cache.get(key("Foo", 2))).isNull();
+    assertThat(bytesOf(cache.get(key("Foo", 1)))).isEqualTo(bytes(32));
+    assertThat(bytesOf(cache.get(key("Foo", 3)))).isEqualTo(bytes(17));
+    assertThat(cache.bytesUsed()).isEqualTo(49);
+  }
+
+  @Test
+  void pagesAreKeyedByBaseUrlAndSerializer() {
+    var cache = OffHeapPageCache.builder().maxBytes(64).build();
+    cache.put(key("Foo", 1, "http://localhost/foo", "json"), bytes(10));
+    assertThat(cache.get(key("Foo", 1, "http://example.com/foo", "json"))).isNull();
+    assertThat(cache.get(key("Foo", 1, "http://localhost/foo", "xml"))).isNull();
+    assertThat(bytesOf(cache.get(key("Foo", 1, "http://localhost/foo", "json"))))
+        .isEqualTo(bytes(10));
+  }
+
+  @Test
+  void pagesLargerThanTheBudgetAreNotCached() {
+    var cache = OffHeapPageCache.builder().maxBytes(64).build();
+    cache.put(key("Foo", 1), bytes(65));
+    assertThat(cache.get(key("Foo", 1))).isNull();
+    assertThat(cache.bytesUsed()).isZero();
+  }
+
+  @Test
+  void pagesAreReturnedIntact() {
+    var cache = OffHeapPageCache.builder().maxBytes(1024).build();
+    var json = "{\"resourceType\":\"Bundle\",\"entry\":[]}".repeat(10);
+    cache.put(key("Foo", 1), json.getBytes(StandardCharsets.UTF_8));
+    cache.put(key("Foo", 2), new byte[0]);
+    assertThat(new String(bytesOf(cache.get(key("Foo", 1))), StandardCharsets.UTF_8))
+        .isEqualTo(json);
+    assertThat(bytesOf(cache.get(key("Foo", 2)))).isEmpty();
+  }
+}
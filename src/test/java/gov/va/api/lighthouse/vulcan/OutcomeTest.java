@@ -0,0 +1,72 @@
+package gov.va.api.lighthouse.vulcan;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import org.junit.jupiter.api.Test;
+
+class OutcomeTest {
+  @Test
+  void adaptedExceptionsAreRethrownAsIs() {
+    var cause = new IllegalStateException("cause");
+    var thrown = new ForbiddenFood("pizza", cause);
+    Outcome<String> rejected =
+        Outcome.evaluate(
+            () -> {
+              throw thrown;
+            });
+    assertThat(rejected.violation()).isEqualTo(Violation.of("pizza is forbidden"));
+    assertThatExceptionOfType(ForbiddenFood.class)
+        .isThrownBy(rejected::orElseThrow)
+        .withCause(cause)
+        .satisfies(e -> assertThat(e).isSameAs(thrown));
+  }
+
+  @Test
+  void evaluateAdaptsThrowingCode() {
+    assertThat(Outcome.evaluate(() -> "ok")).isEqualTo(Outcome.of("ok"));
+    Outcome<String> noResults =
+        Outcome.evaluate(
+            () -> {
+              throw CircuitBreaker.noResultsWillBeFound("food", "pizza", "Unknown food.");
+            });
+    assertThat(noResults)
+        .isEqualTo(Outcome.noResultsWillBeFound("food", "pizza", "Unknown food."));
+    assertThat(noResults.hasValue()).isFalse();
+    Outcome<String> rejected =
+        Outcome.evaluate(
+            () -> {
+              throw InvalidRequest.badParameter("count", "x", "Expected number");
+            });
+    assertThat(rejected.isRejected()).isTrue();
+    assertThat(rejected.violation())
+        .isEqualTo(Violation.badParameter("count", "x", "Expected number"));
+    assertThatExceptionOfType(IllegalStateException.class)
+        .isThrownBy(
+            () ->
+                Outcome.evaluate(
+                    () -> {
+                      throw new IllegalStateException("not adapted");
+                    }));
+  }
+
+  @Test
+  void orElseThrowThrowsStacklessExceptions() {
+    assertThat(Outcome.of(null).orElseThrow()).isNull();
+    assertThatExceptionOfType(CircuitBreaker.class)
+        .isThrownBy(() -> Outcome.noResults("No results will be found: nope").orElseThrow())
+        .withMessage("No results will be found: nope")
+        .satisfies(e -> assertThat(e.getStackTrace()).isEmpty());
+    assertThatExceptionOfType(InvalidRequest.class)
+        .isThrownBy(() -> Outcome.rejected(Violation.of("nope")).orElseThrow())
+        .withMessage("nope")
+        .satisfies(e -> assertThat(e.getStackTrace()).isEmpty());
+  }
+
+  static class ForbiddenFood extends InvalidRequest {
+    ForbiddenFood(String food, Throwable cause) {
+      super(food + " is forbidden");
+      initCause(cause);
+    }
+  }
+}
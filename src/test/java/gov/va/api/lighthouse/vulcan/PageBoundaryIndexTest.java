@@ -0,0 +1,58 @@
+package gov.va.api.lighthouse.vulcan;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+class PageBoundaryIndexTest {
+  SearchFingerprint fingerprint = new SearchFingerprint("Fugazi", "name=a");
+
+  @Test
+  void boundariesArePerSearchAndSort() {
+    var index =
+        PageBoundaryIndex.builder()
+            .maxSearches(10)
+            .pageInterval(1)
+            .maxBoundariesPerSearch(10)
+            .build();
+    index.record(fingerprint, Sort.by("id"), 20, List.of(20L));
+    assertThat(index.nearest(fingerprint, Sort.by("date", "id"), 30)).isNull();
+    assertThat(index.nearest(new SearchFingerprint("Fugazi", "name=b"), Sort.by("id"), 30))
+        .isNull();
+    index.invalidate(String.class);
+    assertThat(index.nearest(fingerprint, Sort.by("id"), 30)).isNotNull();
+    index.clear();
+    assertThat(index.nearest(fingerprint, Sort.by("id"), 30)).isNull();
+  }
+
+  @Test
+  void nearestBoundaryIsNotAfterOffset() {
+    var index =
+        PageBoundaryIndex.builder()
+            .maxSearches(10)
+            .pageInterval(5)
+            .maxBoundariesPerSearch(2)
+            .build();
+    Sort sort = Sort.by("id");
+    index.record(fingerprint, sort, 50, List.of(50L));
+    index.record(fingerprint, sort, 100, List.of(100L));
+    index.record(fingerprint, sort, 150, List.of(150L));
+    assertThat(index.nearest(fingerprint, sort, 49)).isNull();
+    assertThat(index.nearest(fingerprint, sort, 50))
+        .isEqualTo(new PageBoundaryIndex.Boundary(50, List.of(50L)));
+    assertThat(index.nearest(fingerprint, sort, 500))
+        .isEqualTo(new PageBoundaryIndex.Boundary(100, List.of(100L)));
+    assertThat(index.shouldRecordAfter(10)).isTrue();
+    assertThat(index.shouldRecordAfter(11)).isFalse();
+  }
+
+  @Test
+  void pageIntervalIsRequired() {
+    assertThatExceptionOfType(IllegalArgumentException.class)
+        .isThrownBy(
+            () -> PageBoundaryIndex.builder().maxSearches(10).maxBoundariesPerSearch(10).build());
+  }
+}
@@ -93,12 +93,31 @@ class RequestContextTest {
     assertThatExceptionOfType(InvalidRequest.class).isThrownBy(() -> context(page, "10"));
   }
 
+  @Test
+  void exceptionIsThrownForInvalidTotal() {
+    HttpServletRequest req = mock(HttpServletRequest.class);
+    when(req.getParameter("_total")).thenReturn("nope");
+    assertThatExceptionOfType(InvalidRequest.class)
+        .isThrownBy(() -> RequestContext.forConfig(config()).request(req).build());
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"none", "ESTIMATE", "Accurate"})
+  void totalModeIsCaseInsensitive(String total) {
+    HttpServletRequest req = mock(HttpServletRequest.class);
+    when(req.getParameter("_total")).thenReturn(total);
+    assertThat(RequestContext.forConfig(config()).request(req).build().totalMode())
+        .isEqualTo(TotalMode.forParameterValue(total))
+        .isNotNull();
+  }
+
   @MethodSource
   @ParameterizedTest
   void pageAndCount(String page, String count, int expectedPage, int expectedCount) {
     var ctx = context(page, count);
     assertThat(ctx.page()).as("page").isEqualTo(expectedPage);
     assertThat(ctx.count()).as("count").isEqualTo(expectedCount);
+    assertThat(ctx.totalMode()).as("total mode").isEqualTo(TotalMode.ACCURATE);
     // Request paging is 1 based, Database paging is 0 based.
     assertThat(ctx.pageRequest().getPageNumber())
         .as("page request page number")
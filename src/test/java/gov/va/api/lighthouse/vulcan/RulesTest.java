@@ -1,6 +1,7 @@
 package gov.va.api.lighthouse.vulcan;
 
 import static gov.va.api.lighthouse.vulcan.Vulcan.useRequestUrl;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 
 import gov.va.api.lighthouse.vulcan.VulcanConfiguration.PagingConfiguration;
@@ -323,6 +324,31 @@ class RulesTest {
                     .check(requestWithParameters("foo", "str:whatever")));
   }
 
+  @Test
+  void violationsAreReportedWithoutThrowing() {
+    assertThat(Rules.atLeastOneParameterOf("foo", "bar").violationOf(requestWithParameters("foo")))
+        .isNull();
+    assertThat(Rules.atLeastOneParameterOf("foo", "bar").violationOf(requestWithParameters("nope")))
+        .isEqualTo(Violation.of("At least one of [foo, bar] must be specified"));
+    assertThat(
+            Rules.ifParameter("foo")
+                .thenForbidParameters("bar")
+                .violationOf(requestWithParameters("foo", "bar")))
+        .isEqualTo(Violation.of("No parameter of [bar] can be specified"));
+    Rule throwing =
+        ctx -> {
+          throw InvalidRequest.because("nope");
+        };
+    assertThat(throwing.violationOf(requestWithParameters("foo"))).isEqualTo(Violation.of("nope"));
+    var thrown = InvalidRequest.because("nope");
+    Rule rethrowing =
+        ctx -> {
+          throw thrown;
+        };
+    assertThat(rethrowing.violationOf(requestWithParameters("foo")).toException()).isSameAs(thrown);
+    assertThat(InvalidRequest.because("nope").getStackTrace()).isEmpty();
+  }
+
   private FugaziRuleContext requestWithParameters(String... parameters) {
     var req = new MockHttpServletRequest();
     for (String p : parameters) {
@@ -0,0 +1,112 @@
+package gov.va.api.lighthouse.vulcan;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class SearchBulkheadTest {
+  ExecutorService executor = Executors.newCachedThreadPool();
+
+  @SneakyThrows
+  private static void await(CountDownLatch latch) {
+    assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+  }
+
+  @SneakyThrows
+  private static String sleepMillis(long millis) {
+    Thread.sleep(millis);
+    return "slept";
+  }
+
+  private CompletableFuture<String> blockedSearch(
+      SearchBulkhead bulkhead, CountDownLatch started, CountDownLatch release) {
+    return CompletableFuture.supplyAsync(
+        () ->
+            bulkhead.execute(
+                () -> {
+                  started.countDown();
+                  await(release);
+                  return "done";
+                }),
+        executor);
+  }
+
+  @Test
+  void limitAdaptsToLatency() {
+    var bulkhead =
+        SearchBulkhead.builder()
+            .maxConcurrent(10)
+            .minConcurrent(2)
+            .targetLatency(Duration.ofNanos(1))
+            .build();
+    for (int i = 0; i < 20; i++) {
+      bulkhead.execute(() -> sleepMillis(1));
+    }
+    assertThat(bulkhead.limit()).isEqualTo(2);
+    var fast =
+        SearchBulkhead.builder()
+            .maxConcurrent(10)
+            .minConcurrent(2)
+            .targetLatency(Duration.ofHours(1))
+            .build();
+    fast.execute(() -> "fast");
+    assertThat(fast.limit()).isEqualTo(10);
+    assertThat(fast.inFlight()).isZero();
+  }
+
+  @Test
+  @SneakyThrows
+  void queuedSearchesStartWhenPermitsAreReleased() {
+    var bulkhead =
+        SearchBulkhead.builder()
+            .maxConcurrent(1)
+            .maxQueued(1)
+            .maxWait(Duration.ofSeconds(10))
+            .build();
+    var started = new CountDownLatch(1);
+    var release = new CountDownLatch(1);
+    var first = blockedSearch(bulkhead, started, release);
+    await(started);
+    var second = CompletableFuture.supplyAsync(() -> bulkhead.execute(() -> "second"), executor);
+    while (bulkhead.queued() == 0) {
+      Thread.sleep(1);
+    }
+    assertThatExceptionOfType(TooManySearches.class)
+        .isThrownBy(() -> bulkhead.execute(() -> "third"));
+    release.countDown();
+    assertThat(first.get(10, TimeUnit.SECONDS)).isEqualTo("done");
+    assertThat(second.get(10, TimeUnit.SECONDS)).isEqualTo("second");
+    assertThat(bulkhead.inFlight()).isZero();
+    assertThat(bulkhead.queued()).isZero();
+  }
+
+  @Test
+  @SneakyThrows
+  void searchesBeyondTheLimitAreShedImmediately() {
+    var bulkhead = SearchBulkhead.builder().maxConcurrent(1).build();
+    var started = new CountDownLatch(1);
+    var release = new CountDownLatch(1);
+    var first = blockedSearch(bulkhead, started, release);
+    await(started);
+    assertThatExceptionOfType(TooManySearches.class)
+        .isThrownBy(() -> bulkhead.execute(() -> "second"))
+        .satisfies(e -> assertThat(e.getStackTrace()).isEmpty());
+    release.countDown();
+    assertThat(first.get(10, TimeUnit.SECONDS)).isEqualTo("done");
+    assertThat(bulkhead.execute(() -> "third")).isEqualTo("third");
+  }
+
+  @AfterEach
+  void shutdown() {
+    executor.shutdownNow();
+  }
+}
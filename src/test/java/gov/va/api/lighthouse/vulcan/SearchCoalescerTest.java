@@ -0,0 +1,150 @@
+package gov.va.api.lighthouse.vulcan;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.persistence.QueryTimeoutException;
+import org.junit.jupiter.api.Test;
+
+class SearchCoalescerTest {
+  @Test
+  void differentPagesAreNotCoalesced() {
+    var coalescer = new SearchCoalescer();
+    var coalesced = new AtomicInteger();
+    assertThat(
+            coalescer.coalesce(
+                RequestContextTest.context("1", "10"),
+                () ->
+                    coalescer.coalesce(
+                        RequestContextTest.context("2", "10"),
+                        () -> "page 2",
+                        coalesced::incrementAndGet),
+                coalesced::incrementAndGet))
+        .isEqualTo("page 2");
+    assertThat(coalesced.get()).isZero();
+    assertThat(coalescer.inFlight()).isZero();
+  }
+
+  @Test
+  void cancelledSearchesLetWaitingSearchesExecute() throws Exception {
+    var coalescer = new SearchCoalescer();
+    var started = new CountDownLatch(1);
+    var release = new CountDownLatch(1);
+    var coalesced = new CountDownLatch(1);
+    CompletableFuture<Object> leader =
+        CompletableFuture.supplyAsync(
+            () ->
+                coalescer.coalesce(
+                    RequestContextTest.context("1", "10"),
+                    () -> {
+                      started.countDown();
+                      await(release);
+                      throw new QueryTimeoutException("Search cancelled: async request failed");
+                    },
+                    () -> {}));
+    assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+    CompletableFuture<Object> follower =
+        CompletableFuture.supplyAsync(
+            () ->
+                coalescer.coalesce(
+                    RequestContextTest.context("1", "10"),
+                    () -> "own total",
+                    coalesced::countDown));
+    assertThat(coalesced.await(5, TimeUnit.SECONDS)).isTrue();
+    release.countDown();
+    assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo("own total");
+    assertThatExceptionOfType(Exception.class)
+        .isThrownBy(() -> leader.get(5, TimeUnit.SECONDS))
+        .withRootCauseInstanceOf(QueryTimeoutException.class);
+    assertThat(coalescer.inFlight()).isZero();
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @Test
+  void invalidRequestsAreSharedWithWaitingSearches() throws Exception {
+    var coalescer = new SearchCoalescer();
+    var started = new CountDownLatch(1);
+    var release = new CountDownLatch(1);
+    var coalesced = new CountDownLatch(1);
+    CompletableFuture<Object> leader =
+        CompletableFuture.supplyAsync(
+            () ->
+                coalescer.coalesce(
+                    RequestContextTest.context("1", "10"),
+                    () -> {
+                      started.countDown();
+                      await(release);
+                      throw InvalidRequest.because("boom");
+                    },
+                    () -> {}));
+    assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+    CompletableFuture<Object> follower =
+        CompletableFuture.supplyAsync(
+            () ->
+                coalescer.coalesce(
+                    RequestContextTest.context("1", "10"),
+                    () -> "unexpected",
+                    coalesced::countDown));
+    assertThat(coalesced.await(5, TimeUnit.SECONDS)).isTrue();
+    release.countDown();
+    assertThatExceptionOfType(Exception.class)
+        .isThrownBy(() -> follower.get(5, TimeUnit.SECONDS))
+        .withRootCauseInstanceOf(InvalidRequest.class);
+    assertThatExceptionOfType(Exception.class)
+        .isThrownBy(() -> leader.get(5, TimeUnit.SECONDS))
+        .withRootCauseInstanceOf(InvalidRequest.class);
+    assertThat(coalescer.inFlight()).isZero();
+  }
+
+  @Test
+  void identicalSearchesShareOneExecution() throws Exception {
+    var coalescer = new SearchCoalescer();
+    var executions = new AtomicInteger();
+    var started = new CountDownLatch(1);
+    var release = new CountDownLatch(1);
+    var coalesced = new CountDownLatch(1);
+    CompletableFuture<String> leader =
+        CompletableFuture.supplyAsync(
+            () ->
+                coalescer.coalesce(
+                    RequestContextTest.context("1", "10"),
+                    () -> {
+                      executions.incrementAndGet();
+                      started.countDown();
+                      await(release);
+                      return "results";
+                    },
+                    () -> {}));
+    assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+    CompletableFuture<String> follower =
+        CompletableFuture.supplyAsync(
+            () ->
+                coalescer.coalesce(
+                    RequestContextTest.context("1", "10"),
+                    () -> {
+                      executions.incrementAndGet();
+                      return "unexpected";
+                    },
+                    coalesced::countDown));
+    assertThat(coalesced.await(5, TimeUnit.SECONDS)).isTrue();
+    release.countDown();
+    assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("results");
+    assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo("results");
+    assertThat(executions.get()).isEqualTo(1);
+    assertThat(coalescer.inFlight()).isZero();
+    assertThat(coalescer.coalesce(RequestContextTest.context("1", "10"), () -> "again", () -> {}))
+        .isEqualTo("again");
+  }
+}
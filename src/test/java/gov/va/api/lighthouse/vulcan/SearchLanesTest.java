@@ -0,0 +1,195 @@
+package gov.va.api.lighthouse.vulcan;
+
+import static gov.va.api.lighthouse.vulcan.Vulcan.useRequestUrl;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import gov.va.api.lighthouse.vulcan.VulcanConfiguration.PagingConfiguration;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import javax.servlet.http.HttpServletRequest;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+class SearchLanesTest {
+  static final PagingConfiguration PAGING =
+      PagingConfiguration.builder()
+          .pageParameter("page")
+          .countParameter("count")
+          .maxCount(20)
+          .baseUrlStrategy(useRequestUrl())
+          .sortDefault(Sort.unsorted())
+          .build();
+
+  ExecutorService executor = Executors.newCachedThreadPool();
+
+  @SneakyThrows
+  private static boolean awaitQuietly(CountDownLatch latch) {
+    return latch.await(10, TimeUnit.SECONDS);
+  }
+
+  private static HttpServletRequest request(String... parameters) {
+    var request = new MockHttpServletRequest();
+    for (int i = 0; i < parameters.length; i += 2) {
+      request.addParameter(parameters[i], parameters[i + 1]);
+    }
+    return request;
+  }
+
+  @SneakyThrows
+  private static void waitUntil(BooleanSupplier condition) {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (!condition.getAsBoolean()) {
+      assertThat(System.nanoTime()).isLessThan(deadline);
+      Thread.sleep(1);
+    }
+  }
+
+  @Test
+  @SneakyThrows
+  void interruptedWaitersDoNotKeepCapacity() {
+    var lanes = SearchLanes.builder().maxConcurrent(1).maxWait(Duration.ofSeconds(10)).build();
+    for (int i = 0; i < 50; i++) {
+      var blocking = new CountDownLatch(1);
+      var release = new CountDownLatch(1);
+      var first =
+          CompletableFuture.runAsync(
+              () ->
+                  lanes.execute(
+                      PAGING,
+                      request("name", "x"),
+                      () -> {
+                        blocking.countDown();
+                        return awaitQuietly(release);
+                      }),
+              executor);
+      assertThat(blocking.await(10, TimeUnit.SECONDS)).isTrue();
+      var waiter =
+          new Thread(
+              () -> {
+                try {
+                  lanes.execute(PAGING, request("name", "y"), () -> "waiter");
+                } catch (TooManySearches e) {
+                  // Interrupted while waiting
+                }
+              });
+      waiter.start();
+      waitUntil(() -> lanes.queued(WorkloadClass.INTERACTIVE) == 1);
+      /* Race the interrupt with the waiter being started by the release. */
+      release.countDown();
+      waiter.interrupt();
+      first.get(10, TimeUnit.SECONDS);
+      waiter.join(TimeUnit.SECONDS.toMillis(10));
+      assertThat(lanes.inFlight()).isZero();
+    }
+  }
+
+  @Test
+  void lanesHaveTheirOwnBudgets() {
+    var lanes =
+        SearchLanes.builder()
+            .maxConcurrent(10)
+            .lane(WorkloadClass.BULK, SearchLanes.Lane.builder().maxConcurrent(1).build())
+            .build();
+    var crawl = request("_cursor", "abc");
+    var nested =
+        lanes.execute(
+            PAGING,
+            crawl,
+            () -> {
+              assertThat(lanes.inFlight(WorkloadClass.BULK)).isEqualTo(1);
+              assertThatExceptionOfType(TooManySearches.class)
+                  .isThrownBy(() -> lanes.execute(PAGING, crawl, () -> "second crawl"));
+              return lanes.execute(PAGING, request("name", "x"), () -> "interactive");
+            });
+    assertThat(nested).isEqualTo("interactive");
+    assertThat(lanes.inFlight()).isZero();
+  }
+
+  @Test
+  void standardClassification() {
+    var classifier = SearchLanes.standardClassifier();
+    assertThat(classifier.classify(PAGING, request("name", "x")))
+        .isEqualTo(WorkloadClass.INTERACTIVE);
+    assertThat(classifier.classify(PAGING, request("count", "5")))
+        .isEqualTo(WorkloadClass.INTERACTIVE);
+    assertThat(classifier.classify(PAGING, request("count", "nope")))
+        .isEqualTo(WorkloadClass.INTERACTIVE);
+    assertThat(classifier.classify(PAGING, request("count", "0")))
+        .isEqualTo(WorkloadClass.COUNT_ONLY);
+    assertThat(classifier.classify(PAGING, request("count", "20")))
+        .isEqualTo(WorkloadClass.BULK);
+    assertThat(classifier.classify(PAGING, request("_cursor", "abc")))
+        .isEqualTo(WorkloadClass.BULK);
+  }
+
+  @Test
+  @SneakyThrows
+  void waitingSearchesStartByWeight() {
+    var queue = SearchLanes.Lane.builder().maxQueued(10);
+    var lanes =
+        SearchLanes.builder()
+            .maxConcurrent(1)
+            .maxWait(Duration.ofSeconds(10))
+            .lane(WorkloadClass.INTERACTIVE, queue.weight(3).build())
+            .lane(WorkloadClass.BULK, queue.weight(1).build())
+            .build();
+    var blocking = new CountDownLatch(1);
+    var release = new CountDownLatch(1);
+    var first =
+        CompletableFuture.runAsync(
+            () ->
+                lanes.execute(
+                    PAGING,
+                    request("count", "0"),
+                    () -> {
+                      blocking.countDown();
+                      return awaitQuietly(release);
+                    }),
+            executor);
+    assertThat(blocking.await(10, TimeUnit.SECONDS)).isTrue();
+    List<WorkloadClass> starts = Collections.synchronizedList(new ArrayList<>());
+    List<CompletableFuture<?>> waiting = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      waiting.add(waitingSearch(lanes, WorkloadClass.INTERACTIVE, request("count", "5"), starts));
+      waiting.add(waitingSearch(lanes, WorkloadClass.BULK, request("count", "20"), starts));
+    }
+    waitUntil(
+        () ->
+            lanes.queued(WorkloadClass.INTERACTIVE) == 4 && lanes.queued(WorkloadClass.BULK) == 4);
+    release.countDown();
+    first.get(10, TimeUnit.SECONDS);
+    CompletableFuture.allOf(waiting.toArray(new CompletableFuture<?>[0])).get(10, TimeUnit.SECONDS);
+    assertThat(starts.subList(0, 4))
+        .containsExactly(
+            WorkloadClass.INTERACTIVE,
+            WorkloadClass.INTERACTIVE,
+            WorkloadClass.BULK,
+            WorkloadClass.INTERACTIVE);
+  }
+
+  private CompletableFuture<?> waitingSearch(
+      SearchLanes lanes,
+      WorkloadClass workloadClass,
+      HttpServletRequest request,
+      List<WorkloadClass> starts) {
+    return CompletableFuture.runAsync(
+        () -> lanes.execute(PAGING, request, () -> starts.add(workloadClass)), executor);
+  }
+
+  @AfterEach
+  void shutdown() {
+    executor.shutdownNow();
+  }
+}
@@ -1,6 +1,7 @@
 package gov.va.api.lighthouse.vulcan;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
@@ -72,4 +73,42 @@ class SpecificationsTest {
     verify(all).or(specs.get(1));
     verify(all).or(specs.get(0));
   }
+
+  @Test
+  void collectedConstantsAreFolded() {
+    Specification<FugaziEntity> food = Specifications.select("food", "TACOS");
+    assertThat(Stream.of(Specifications.<FugaziEntity>always(), food).collect(Specifications.all()))
+        .isSameAs(food);
+    assertThat(Stream.of(food, Specifications.<FugaziEntity>never()).collect(Specifications.all()))
+        .matches(Specifications::isNever);
+    assertThat(Stream.of(Specifications.<FugaziEntity>never(), food).collect(Specifications.any()))
+        .isSameAs(food);
+    assertThat(Stream.of(food, Specifications.<FugaziEntity>always()).collect(Specifications.any()))
+        .matches(Specifications::isAlways);
+  }
+
+  @Test
+  void foldAll() {
+    Specification<FugaziEntity> food = Specifications.select("food", "TACOS");
+    assertThat(Specifications.<FugaziEntity>foldAll(List.of())).isNull();
+    assertThat(Specifications.foldAll(List.of(Specifications.always(), food))).isSameAs(food);
+    assertThat(Specifications.foldAll(List.of(food, Specifications.select("food", " tacos "))))
+        .isNotNull();
+    assertThat(Specifications.foldAll(List.of(food, Specifications.select("name", "NACHOS"))))
+        .isNotNull();
+    assertThat(
+            Specifications.foldAll(
+                List.of(food, Specifications.selectInList("food", List.of("NACHOS", "TACOS")))))
+        .isNotNull();
+  }
+
+  @Test
+  void foldAllThrowsCircuitBreakerForContradictions() {
+    Specification<FugaziEntity> food = Specifications.select("food", "TACOS");
+    assertThatExceptionOfType(CircuitBreaker.class)
+        .isThrownBy(() -> Specifications.foldAll(List.of(food, Specifications.never())));
+    assertThatExceptionOfType(CircuitBreaker.class)
+        .isThrownBy(
+            () -> Specifications.foldAll(List.of(food, Specifications.select("food", "NACHOS"))));
+  }
 }
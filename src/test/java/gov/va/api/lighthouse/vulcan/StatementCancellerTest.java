@@ -0,0 +1,138 @@
+package gov.va.api.lighthouse.vulcan;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.persistence.QueryTimeoutException;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class StatementCancellerTest {
+  ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+  @SneakyThrows
+  private static String awaitCancellation(CountDownLatch cancelled) {
+    assertThat(cancelled.await(10, TimeUnit.SECONDS)).isTrue();
+    throw new IllegalStateException("statement cancelled by the driver");
+  }
+
+  @Test
+  void abortedAsyncRequestsCancelTheStatement() {
+    var request = new MockHttpServletRequest();
+    request.setAsyncSupported(true);
+    var async = (MockAsyncContext) request.startAsync(request, new MockHttpServletResponse());
+    var cancelled = new CountDownLatch(1);
+    var canceller = StatementCanceller.builder().build();
+    assertThatExceptionOfType(QueryTimeoutException.class)
+        .isThrownBy(
+            () ->
+                canceller.execute(
+                    request,
+                    cancelled::countDown,
+                    () -> {
+                      onError(async.getListeners().get(0));
+                      return awaitCancellation(cancelled);
+                    }))
+        .withMessageContaining("async request failed")
+        .satisfies(e -> assertThat(e).isInstanceOf(StatementCanceller.Cancelled.class));
+    assertThat(StatementCanceller.isCancelled()).isFalse();
+  }
+
+  @Test
+  void completedSearchesAreNotCancelled() {
+    var cancellations = new AtomicInteger();
+    var canceller =
+        StatementCanceller.builder().deadline(Duration.ofMillis(1)).scheduler(scheduler).build();
+    assertThat(
+            canceller.execute(
+                new MockHttpServletRequest(), cancellations::incrementAndGet, () -> "done"))
+        .isEqualTo("done");
+    assertThat(cancellations).hasValue(0);
+  }
+
+  @Test
+  void deadlineCancelsTheStatement() {
+    var cancelled = new CountDownLatch(1);
+    var canceller =
+        StatementCanceller.builder().deadline(Duration.ofMillis(10)).scheduler(scheduler).build();
+    assertThatExceptionOfType(QueryTimeoutException.class)
+        .isThrownBy(
+            () ->
+                canceller.execute(
+                    new MockHttpServletRequest(),
+                    cancelled::countDown,
+                    () -> {
+                      String result = awaitCancellation(cancelled);
+                      assertThat(StatementCanceller.isCancelled()).isTrue();
+                      return result;
+                    }))
+        .withMessageContaining("deadline PT0.01S passed");
+  }
+
+  @Test
+  void deadlineRequiresScheduler() {
+    assertThatExceptionOfType(IllegalArgumentException.class)
+        .isThrownBy(() -> StatementCanceller.builder().deadline(Duration.ofSeconds(1)).build());
+    assertThatExceptionOfType(IllegalArgumentException.class)
+        .isThrownBy(
+            () ->
+                StatementCanceller.builder().deadline(Duration.ZERO).scheduler(scheduler).build());
+  }
+
+  @Test
+  void statementTimeoutsAreNotReportedAsCancelled() {
+    var timeout = new QueryTimeoutException("statement timeout");
+    var canceller = StatementCanceller.builder().build();
+    assertThatExceptionOfType(QueryTimeoutException.class)
+        .isThrownBy(
+            () ->
+                canceller.execute(
+                    new MockHttpServletRequest(),
+                    () -> {},
+                    () -> {
+                      throw timeout;
+                    }))
+        .satisfies(e -> assertThat(e).isSameAs(timeout));
+  }
+
+  @Test
+  void subSecondDeadlinesCancelTheStatement() {
+    var cancelled = new CountDownLatch(1);
+    assertThatExceptionOfType(QueryTimeoutException.class)
+        .isThrownBy(
+            () ->
+                StatementCanceller.withinDeadline(
+                    Duration.ofMillis(200),
+                    cancelled::countDown,
+                    () -> awaitCancellation(cancelled)))
+        .withMessageContaining("deadline PT0.2S passed");
+    var notCancelled = new AtomicInteger();
+    assertThat(
+            StatementCanceller.withinDeadline(
+                Duration.ofMillis(200), notCancelled::incrementAndGet, () -> "done"))
+        .isEqualTo("done");
+    assertThat(notCancelled).hasValue(0);
+  }
+
+  @SneakyThrows
+  private void onError(AsyncListener listener) {
+    listener.onError(new AsyncEvent(null));
+  }
+
+  @AfterEach
+  void shutdown() {
+    scheduler.shutdownNow();
+  }
+}
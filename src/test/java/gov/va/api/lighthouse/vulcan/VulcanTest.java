@@ -2,9 +2,19 @@ package gov.va.api.lighthouse.vulcan;
 
 import static gov.va.api.lighthouse.vulcan.Vulcan.returnNothing;
 import static gov.va.api.lighthouse.vulcan.Vulcan.useRequestUrl;
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.junit.jupiter.params.provider.Arguments.arguments;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -12,6 +22,7 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import gov.va.api.health.autoconfig.configuration.JacksonConfig;
 import gov.va.api.lighthouse.vulcan.VulcanConfiguration.PagingConfiguration;
+import gov.va.api.lighthouse.vulcan.VulcanConfiguration.PagingConfiguration.PagingConfigurationBuilder;
 import gov.va.api.lighthouse.vulcan.VulcanResult.Paging;
 import gov.va.api.lighthouse.vulcan.fugazi.FugaziApplication;
 import gov.va.api.lighthouse.vulcan.fugazi.FugaziDto;
@@ -20,10 +31,21 @@ import gov.va.api.lighthouse.vulcan.fugazi.FugaziDto.Food;
 import gov.va.api.lighthouse.vulcan.fugazi.FugaziEntity;
 import gov.va.api.lighthouse.vulcan.fugazi.FugaziRepository;
 import gov.va.api.lighthouse.vulcan.mappings.Mappings;
+import gov.va.api.lighthouse.vulcan.mappings.StringMapping;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.UnaryOperator;
 import java.util.stream.Stream;
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaQuery;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.BeforeEach;
@@ -40,12 +62,14 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.autoconfigure.web.servlet.MockMvcPrint;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.util.UriComponentsBuilder;
 
 @ExtendWith(SpringExtension.class)
 @SpringBootTest
@@ -67,6 +91,10 @@ class VulcanTest {
 
   @Autowired FugaziRepository repo;
 
+  @Autowired EntityManager entityManager;
+
+  VulcanMetrics metrics = new VulcanMetrics();
+
   ObjectMapper mapper = JacksonConfig.createMapper();
 
   private FugaziDto nachos2005;
@@ -83,6 +111,11 @@ class VulcanTest {
 
   private FugaziDto unknown;
 
+  @SuppressWarnings("unused")
+  static Stream<Arguments> pagesAreShortenedToStayWithinTheByteBudget() {
+    return Stream.of(arguments(1, 5), arguments(2, 5), arguments(2, 97));
+  }
+
   @SuppressWarnings("unused")
   static Stream<Arguments> pageAndCount() {
     /*
@@ -139,6 +172,43 @@ class VulcanTest {
     return dto;
   }
 
+  Vulcan<FugaziEntity, FugaziRepository> _vulcanWithEntityManager() {
+    return _vulcanWithEntityManager(null);
+  }
+
+  Vulcan<FugaziEntity, FugaziRepository> _vulcanWithEntityManager(Duration countDeadline) {
+    return _vulcanWithEntityManager(paging -> paging.countDeadline(countDeadline));
+  }
+
+  Vulcan<FugaziEntity, FugaziRepository> _vulcanWithEntityManager(
+      UnaryOperator<PagingConfigurationBuilder> customPaging) {
+    return _vulcanWithEntityManagerBuilder(customPaging).build();
+  }
+
+  Vulcan.VulcanBuilder<FugaziEntity, FugaziRepository> _vulcanWithEntityManagerBuilder(
+      UnaryOperator<PagingConfigurationBuilder> customPaging) {
+    return Vulcan.forRepo(repo)
+        .entityManager(entityManager)
+        .metrics(metrics)
+        .config(
+            VulcanConfiguration.forEntity(FugaziEntity.class)
+                .paging(
+                    customPaging
+                        .apply(
+                            PagingConfiguration.builder()
+                                .pageParameter("page")
+                                .countParameter("count")
+                                .defaultCount(3)
+                                .maxCount(10)
+                                .sortDefault(Sort.by("id").ascending())
+                                .baseUrlStrategy(useRequestUrl()))
+                        .build())
+                .mappings(Mappings.forEntity(FugaziEntity.class).string("name").get())
+                .defaultQuery(returnNothing())
+                .dependsOnlyOnParameters(true)
+                .build());
+  }
+
   @SneakyThrows
   String badReq(String uri) {
     return mvc.perform(get(uri))
@@ -156,6 +226,170 @@ class VulcanTest {
     assertThat(badReq("/fugazi?nameAndFood=tacos2005+NOPE+TACOS")).isEmpty();
   }
 
+  @Test
+  void continuationTokensFromAnotherScopeAreRejected() {
+    var tokens = ContinuationTokens.builder().secret(new byte[] {1, 2, 3}).build();
+    var config =
+        _configBuilder()
+            .paging(
+                PagingConfiguration.builder()
+                    .pageParameter("page")
+                    .countParameter("count")
+                    .sortDefault(Sort.by("id").ascending())
+                    .baseUrlStrategy(useRequestUrl())
+                    .continuationTokens(tokens)
+                    .build())
+            .searchScope(r -> r.getHeader("patient"))
+            .build();
+    var vulcan = Vulcan.forRepo(repo).entityManager(entityManager).config(config).build();
+    var request = new MockHttpServletRequest();
+    request.addParameter("name:contains", "a");
+    request.addParameter("count", "2");
+    request.addHeader("patient", "p1");
+    request.setRequestURI("/fugazi");
+    String url = vulcan.search(request).paging().nextPageUrl().orElseThrow();
+    String cursor = url.substring(url.indexOf("_cursor=") + "_cursor=".length());
+    var sameScope = new MockHttpServletRequest();
+    sameScope.addParameter("name:contains", "a");
+    sameScope.addParameter("_cursor", cursor);
+    sameScope.addHeader("patient", "p1");
+    sameScope.setRequestURI("/fugazi");
+    assertThat(vulcan.search(sameScope).paging().thisPage()).contains(2);
+    var otherScope = new MockHttpServletRequest();
+    otherScope.addParameter("name:contains", "a");
+    otherScope.addParameter("_cursor", cursor);
+    otherScope.addHeader("patient", "p2");
+    otherScope.setRequestURI("/fugazi");
+    assertThatExceptionOfType(InvalidRequest.class).isThrownBy(() -> vulcan.search(otherScope));
+  }
+
+  @Test
+  void continuationTokensFromAnotherSearchAreRejected() {
+    var tokens = ContinuationTokens.builder().secret(new byte[] {1, 2, 3}).build();
+    var vulcan = _vulcanWithEntityManager(paging -> paging.continuationTokens(tokens));
+    var request = new MockHttpServletRequest();
+    request.addParameter("name:contains", "a");
+    request.addParameter("count", "2");
+    request.setRequestURI("/fugazi");
+    String url = vulcan.search(request).paging().nextPageUrl().orElseThrow();
+    var other = new MockHttpServletRequest();
+    other.addParameter("name:contains", "tacos");
+    other.addParameter("_cursor", url.substring(url.indexOf("_cursor=") + "_cursor=".length()));
+    other.setRequestURI("/fugazi");
+    assertThatExceptionOfType(InvalidRequest.class).isThrownBy(() -> vulcan.search(other));
+    other.setParameter("_cursor", "tampered");
+    assertThatExceptionOfType(InvalidRequest.class).isThrownBy(() -> vulcan.search(other));
+  }
+
+  @Test
+  void continuationTokensSeekToTheNextPage() {
+    var tokens = ContinuationTokens.builder().secret(new byte[] {1, 2, 3}).build();
+    var vulcan = _vulcanWithEntityManager(paging -> paging.continuationTokens(tokens));
+    var request = new MockHttpServletRequest();
+    request.addParameter("name:contains", "a");
+    request.addParameter("count", "2");
+    request.setRequestURI("/fugazi");
+    var result = vulcan.search(request);
+    List<String> names = new ArrayList<>();
+    result.entities().forEach(e -> names.add(e.name()));
+    while (result.paging().nextPageUrl().isPresent()) {
+      String url = result.paging().nextPageUrl().get();
+      assertThat(url)
+          .startsWith("http://localhost/fugazi?name:contains=a&_cursor=")
+          .doesNotContain("page=");
+      var next = new MockHttpServletRequest();
+      next.addParameter("name:contains", "a");
+      next.addParameter("_cursor", url.substring(url.indexOf("_cursor=") + "_cursor=".length()));
+      next.setRequestURI("/fugazi");
+      result = vulcan.search(next);
+      assertThat(result.paging().totalRecords()).isEqualTo(6);
+      assertThat(result.paging().totalMode()).isEqualTo(TotalMode.ACCURATE);
+      result.entities().forEach(e -> names.add(e.name()));
+    }
+    assertThat(result.paging().thisPage()).contains(3);
+    assertThat(names)
+        .containsExactly(
+            "nachos2005",
+            "moreNachos2005",
+            "tacos2005",
+            "tacos2006",
+            "tacos2007",
+            "tacos2008");
+  }
+
+  @Test
+  void continuationTokensKeepTheRequestedSort() {
+    var tokens = ContinuationTokens.builder().secret(new byte[] {1, 2, 3}).build();
+    var vulcan =
+        _vulcanWithEntityManager(
+            paging ->
+                paging
+                    .continuationTokens(tokens)
+                    .sortableParameters(
+                        sort -> Sort.by("name").descending().and(Sort.by("id").ascending())));
+    List<String> names = new ArrayList<>();
+    Map<String, List<String>> parameters =
+        Map.of("name:contains", List.of("a"), "count", List.of("2"), "_sort", List.of("-name"));
+    do {
+      var request = new MockHttpServletRequest();
+      parameters.forEach((name, values) -> request.addParameter(name, values.get(0)));
+      request.setRequestURI("/fugazi");
+      var result = vulcan.search(request);
+      result.entities().forEach(e -> names.add(e.name()));
+      parameters =
+          result
+              .paging()
+              .nextPageUrl()
+              .map(url -> UriComponentsBuilder.fromUriString(url).build().getQueryParams())
+              .orElse(null);
+    } while (parameters != null);
+    assertThat(names)
+        .containsExactly(
+            "tacos2008",
+            "tacos2007",
+            "tacos2006",
+            "tacos2005",
+            "nachos2005",
+            "moreNachos2005");
+  }
+
+  @Test
+  void countDeadlineIsNotExceededByFastCounts() {
+    var request = new MockHttpServletRequest();
+    request.addParameter("name:contains", "a");
+    request.addParameter("count", "2");
+    request.setRequestURI("/fugazi");
+    var result = _vulcanWithEntityManager(Duration.ofSeconds(5)).search(request);
+    assertThat(result.paging().totalMode()).isEqualTo(TotalMode.ACCURATE);
+    assertThat(result.paging().totalRecords()).isEqualTo(6);
+    assertThat(result.paging().lastPage()).contains(3);
+    assertThat(result.entities()).hasSize(2);
+    request.setParameter("count", "0");
+    var countOnly = _vulcanWithEntityManager(Duration.ofSeconds(5)).search(request);
+    assertThat(countOnly.paging().totalRecords()).isEqualTo(6);
+    assertThat(metrics.countDeadlinesExceeded()).isZero();
+  }
+
+  @Test
+  void countEachCountsEverySpecificationWithOneStatement() {
+    Specification<FugaziEntity> tacos =
+        (root, query, criteriaBuilder) -> criteriaBuilder.like(root.get("name"), "tacos%");
+    Specification<FugaziEntity> nachos =
+        (root, query, criteriaBuilder) -> criteriaBuilder.like(root.get("name"), "%achos%");
+    Specification<FugaziEntity> nothing =
+        (root, query, criteriaBuilder) -> criteriaBuilder.equal(root.get("name"), "burrito");
+    var queries = EntityQueries.of(entityManager, FugaziEntity.class);
+    assertThat(queries.countEach(List.of(tacos, nachos, nothing), Duration.ofSeconds(5)))
+        .containsExactly(4, 2, 0);
+    assertThat(queries.countEach(Arrays.asList(tacos, null), null)).containsExactly(4, 7);
+    Specification<FugaziEntity> distinct =
+        (root, query, criteriaBuilder) -> {
+          query.distinct(true);
+          return criteriaBuilder.conjunction();
+        };
+    assertThat(queries.countEach(List.of(tacos, distinct), null)).isNull();
+  }
+
   @Test
   void defaultQueryCausesEmptyResult() {
     var vulcan =
@@ -395,6 +629,306 @@ class VulcanTest {
         .containsExactly(nachos2005);
   }
 
+  VulcanConfiguration.VulcanConfigurationBuilder<FugaziEntity> _configBuilder() {
+    return VulcanConfiguration.forEntity(FugaziEntity.class)
+        .paging(
+            PagingConfiguration.builder()
+                .pageParameter("page")
+                .countParameter("count")
+                .sortDefault(Sort.by("id").ascending())
+                .baseUrlStrategy(useRequestUrl())
+                .build())
+        .mappings(Mappings.forEntity(FugaziEntity.class).string("name").get())
+        .defaultQuery(returnNothing());
+  }
+
+  @Test
+  void onlyCacheableConfigurationsUseCaches() {
+    var totals = TotalsCache.builder().maxEntries(10).build();
+    var request = new MockHttpServletRequest();
+    request.addParameter("name:contains", "a");
+    request.addParameter("count", "0");
+    request.setRequestURI("/fugazi");
+    var uncacheable = _configBuilder().build();
+    assertThat(uncacheable.isCacheable()).isFalse();
+    Vulcan.forRepo(repo)
+        .entityManager(entityManager)
+        .totalsCache(totals)
+        .config(uncacheable)
+        .build()
+        .search(request);
+    assertThat(totals.get(SearchFingerprint.of(uncacheable, request))).isNull();
+    var scoped =
+        _configBuilder().name("fugazi").searchScope(r -> r.getHeader("patient")).build();
+    request.addHeader("patient", "p1");
+    Vulcan.forRepo(repo)
+        .entityManager(entityManager)
+        .totalsCache(totals)
+        .config(scoped)
+        .build()
+        .search(request);
+    var other = new MockHttpServletRequest();
+    other.addParameter("name:contains", "a");
+    other.addHeader("patient", "p2");
+    assertThat(totals.get(SearchFingerprint.of(scoped, request))).isEqualTo(6L);
+    assertThat(totals.get(SearchFingerprint.of(scoped, other))).isNull();
+    assertThat(SearchFingerprint.of(scoped, request).configuration()).isEqualTo("fugazi");
+    assertThat(SearchFingerprint.of(_configBuilder().build(), request))
+        .isNotEqualTo(SearchFingerprint.of(uncacheable, request));
+  }
+
+  @Test
+  void pagesBeyondTheLastKnownPageAreNotQueried() {
+    FugaziRepository mockRepo = mock(FugaziRepository.class);
+    var totals = TotalsCache.builder().maxEntries(10).build();
+    var config =
+        VulcanConfiguration.forEntity(FugaziEntity.class)
+            .paging(
+                PagingConfiguration.builder()
+                    .pageParameter("page")
+                    .countParameter("count")
+                    .defaultCount(3)
+                    .maxCount(10)
+                    .sortDefault(Sort.by("id").ascending())
+                    .baseUrlStrategy(useRequestUrl())
+                    .build())
+            .mappings(Mappings.forEntity(FugaziEntity.class).string("name").get())
+            .defaultQuery(returnNothing())
+            .dependsOnlyOnParameters(true)
+            .build();
+    var vulcan = Vulcan.forRepo(mockRepo).config(config).totalsCache(totals).build();
+    var request = new MockHttpServletRequest();
+    request.addParameter("name:contains", "a");
+    request.addParameter("page", "99999");
+    request.addParameter("count", "2");
+    request.setRequestURI("/fugazi");
+    totals.put(SearchFingerprint.of(config, request), 6);
+    var result = vulcan.search(request);
+    assertThat(result.entities()).isEmpty();
+    assertThat(result.paging().totalRecords()).isEqualTo(6);
+    assertThat(result.paging().lastPage()).contains(3);
+    assertThat(result.paging().previousPage()).isEmpty();
+    assertThat(result.paging().lastPageUrl())
+        .contains("http://localhost/fugazi?name:contains=a&count=2&page=3");
+    verifyNoInteractions(mockRepo);
+  }
+
+  @Test
+  void pageBoundariesAreUsedForDeepPages() {
+    var vulcan =
+        _vulcanWithEntityManagerBuilder(paging -> paging)
+            .pageBoundaries(
+                PageBoundaryIndex.builder()
+                    .maxSearches(10)
+                    .pageInterval(1)
+                    .maxBoundariesPerSearch(10)
+                    .build())
+            .build();
+    var request = new MockHttpServletRequest();
+    request.addParameter("name:contains", "a");
+    request.addParameter("count", "2");
+    request.setRequestURI("/fugazi");
+    assertThat(vulcan.search(request).entities().map(FugaziEntity::name))
+        .containsExactly("nachos2005", "moreNachos2005");
+    request.setParameter("page", "3");
+    var lastPage = vulcan.search(request);
+    assertThat(lastPage.entities().map(FugaziEntity::name))
+        .containsExactly("tacos2007", "tacos2008");
+    assertThat(lastPage.paging().totalRecords()).isEqualTo(6);
+  }
+
+  @Test
+  void deprecatedPagingBuilderSettersStillProduceUrls() {
+    @SuppressWarnings("deprecation")
+    var paging =
+        Paging.builder()
+            .totalRecords(6)
+            .totalPages(2)
+            .firstPage(Optional.of(1))
+            .firstPageUrl(Optional.of("page=1"))
+            .previousPage(Optional.empty())
+            .previousPageUrl(Optional.empty())
+            .thisPage(Optional.of(1))
+            .thisPageUrl(Optional.of("page=1"))
+            .nextPage(Optional.of(2))
+            .nextPageUrl(Optional.of("page=2"))
+            .lastPage(Optional.of(2))
+            .lastPageUrl(Optional.of("page=2"))
+            .build();
+    assertThat(paging.thisPage()).contains(1);
+    assertThat(paging.previousPage()).isEmpty();
+    assertThat(paging.nextPage()).contains(2);
+    assertThat(paging.thisPageUrl()).contains("page=1");
+    assertThat(paging.firstPageUrl()).contains("page=1");
+    assertThat(paging.previousPageUrl()).isEmpty();
+    assertThat(paging.nextPageUrl()).contains("page=2");
+    assertThat(paging.lastPageUrl()).contains("page=2");
+  }
+
+  @Test
+  void entityFieldsAreBoundAndUnknownFieldsFailFast() {
+    var factory = entityManager.getEntityManagerFactory();
+    var config = _vulcanWithEntityManager().config();
+    var bound = EntityFields.bind(config, factory);
+    assertThat(bound).isNotSameAs(config);
+    assertThat(bound.paging()).isSameAs(config.paging());
+    var name = (StringMapping<FugaziEntity>) bound.mappings().get(0);
+    assertThat(name.attributes().get("name").getName()).isEqualTo("name");
+    assertThat(((StringMapping<?>) config.mappings().get(0)).attributes()).isEmpty();
+    var request = new MockHttpServletRequest();
+    request.addParameter("name:exact", "tacos2005");
+    request.setRequestURI("/fugazi");
+    var vulcan = Vulcan.forRepo(repo).entityManager(entityManager).config(bound).build();
+    assertThat(vulcan.search(request).entities()).hasSize(1);
+    var typo =
+        VulcanConfiguration.forEntity(FugaziEntity.class)
+            .paging(
+                PagingConfiguration.builder()
+                    .pageParameter("page")
+                    .countParameter("count")
+                    .defaultCount(3)
+                    .maxCount(10)
+                    .sortDefault(Sort.by("idd"))
+                    .baseUrlStrategy(useRequestUrl())
+                    .build())
+            .mappings(
+                Mappings.forEntity(FugaziEntity.class)
+                    .string("name", "nmae")
+                    .dateAsInstant("date", "date")
+                    .value("food", "fodo")
+                    .get())
+            .defaultQuery(returnNothing())
+            .build();
+    assertThatExceptionOfType(IllegalStateException.class)
+        .isThrownBy(() -> EntityFields.bind(typo, factory))
+        .withMessageEndingWith("does not have fields: fodo, idd, nmae");
+  }
+
+  @Test
+  void emptyResultsAreCachedUntilInvalidated() {
+    var emptyResults = EmptyResultsCache.builder().maxEntries(10).build();
+    var vulcan =
+        _vulcanWithEntityManagerBuilder(paging -> paging).emptyResults(emptyResults).build();
+    var request = new MockHttpServletRequest();
+    request.addParameter("name:contains", "burrito");
+    request.setRequestURI("/fugazi");
+    assertThat(vulcan.search(request).entities()).isEmpty();
+    _save("burrito2009", "2009-01-21T07:57:00Z", Food.TACOS, Base.TORTILLAS);
+    assertThat(vulcan.search(request).entities()).isEmpty();
+    assertThat(metrics.emptyResultsCacheHits()).isEqualTo(1);
+    emptyResults.invalidate(FugaziEntity.class);
+    assertThat(vulcan.search(request).entities().map(FugaziEntity::name))
+        .containsExactly("burrito2009");
+  }
+
+  @Test
+  void nextPagesOfSequentialCrawlsArePrefetched() {
+    PagePrefetcher<FugaziEntity> prefetcher =
+        PagePrefetcher.<FugaziEntity>builder().maxEntries(10).executor(Runnable::run).build();
+    var vulcan = _vulcanWithEntityManagerBuilder(paging -> paging).prefetcher(prefetcher).build();
+    var request = new MockHttpServletRequest();
+    request.addParameter("name:contains", "a");
+    request.addParameter("count", "2");
+    request.setRequestURI("/fugazi");
+    vulcan.search(request);
+    request.setParameter("page", "2");
+    vulcan.search(request);
+    assertThat(metrics.prefetchesStarted()).isEqualTo(1);
+    request.setParameter("page", "3");
+    var lastPage = vulcan.search(request);
+    assertThat(lastPage.entities().map(FugaziEntity::name))
+        .containsExactly("tacos2007", "tacos2008");
+    assertThat(lastPage.paging().totalRecords()).isEqualTo(6);
+    assertThat(lastPage.paging().nextPage()).isEmpty();
+    assertThat(metrics.prefetchHits()).isEqualTo(1);
+    assertThat(metrics.prefetchMisses()).isEqualTo(2);
+    assertThat(metrics.prefetchesStarted()).isEqualTo(1);
+  }
+
+  @Test
+  void prefetchedPagesKeepTheTotalModeOfTheRequest() {
+    PagePrefetcher<FugaziEntity> prefetcher =
+        PagePrefetcher.<FugaziEntity>builder().maxEntries(10).executor(Runnable::run).build();
+    var vulcan = _vulcanWithEntityManagerBuilder(paging -> paging).prefetcher(prefetcher).build();
+    var request = new MockHttpServletRequest();
+    request.addParameter("name:contains", "a");
+    request.addParameter("count", "2");
+    request.addParameter("_total", "none");
+    request.setRequestURI("/fugazi");
+    vulcan.search(request);
+    request.setParameter("page", "2");
+    var secondPage = vulcan.search(request);
+    assertThat(secondPage.paging().totalMode()).isEqualTo(TotalMode.NONE);
+    request.setParameter("page", "3");
+    var lastPage = vulcan.search(request);
+    assertThat(metrics.prefetchHits()).isEqualTo(1);
+    assertThat(lastPage.entities().map(FugaziEntity::name))
+        .containsExactly("tacos2007", "tacos2008");
+    assertThat(lastPage.paging().nextPage()).isEmpty();
+    assertThat(lastPage.paging().totalRecords()).isEqualTo(6);
+  }
+
+  @ParameterizedTest
+  @MethodSource
+  void pagesAreShortenedToStayWithinTheByteBudget(int recordsThatFit, int count) {
+    var queries = EntityQueries.of(entityManager, FugaziEntity.class);
+    long largest =
+        repo.findAll().stream().mapToLong(queries::estimatedBytesOf).max().orElseThrow();
+    var vulcan =
+        _vulcanWithEntityManager(paging -> paging.maxPageBytes(recordsThatFit * largest));
+    List<String> names = new ArrayList<>();
+    Map<String, List<String>> parameters =
+        Map.of(
+            "name:contains", List.of("a"), "count", List.of("" + count), "page", List.of("1"));
+    int page = 1;
+    VulcanResult<FugaziEntity> result;
+    do {
+      var request = new MockHttpServletRequest();
+      parameters.forEach((name, values) -> request.addParameter(name, values.get(0)));
+      request.setRequestURI("/fugazi");
+      result = vulcan.search(request);
+      assertThat(result.paging().thisPage()).contains(page);
+      List<FugaziEntity> entities = result.entities().collect(toList());
+      assertThat(entities).hasSizeBetween(1, Math.min(count, 6) - 1);
+      entities.forEach(e -> names.add(e.name()));
+      parameters =
+          result
+              .paging()
+              .nextPageUrl()
+              .map(url -> UriComponentsBuilder.fromUriString(url).build().getQueryParams())
+              .orElse(null);
+      if (parameters != null) {
+        assertThat(parameters.get("count")).containsExactly("" + count);
+        assertThat(parameters.get("page")).containsExactly("" + (page + 1));
+        assertThat(parameters.get("_offset")).containsExactly("" + names.size());
+      }
+      page++;
+    } while (parameters != null);
+    assertThat(names)
+        .containsExactly(
+            "nachos2005",
+            "moreNachos2005",
+            "tacos2005",
+            "tacos2006",
+            "tacos2007",
+            "tacos2008");
+    assertThat(metrics.pagesShortened()).isPositive();
+  }
+
+  @Test
+  void pagesBeyondTheLastPageAreCountedFirst() {
+    var request = new MockHttpServletRequest();
+    request.addParameter("name:contains", "a");
+    request.addParameter("page", "99999");
+    request.addParameter("count", "2");
+    request.setRequestURI("/fugazi");
+    var result = _vulcanWithEntityManager().search(request);
+    assertThat(result.entities()).isEmpty();
+    assertThat(result.paging().totalRecords()).isEqualTo(6);
+    assertThat(result.paging().lastPage()).contains(3);
+    assertThat(result.paging().nextPage()).isEmpty();
+  }
+
   @ParameterizedTest
   @MethodSource
   void pageAndCount(
@@ -435,16 +969,11 @@ class VulcanTest {
         Paging.builder()
             .totalRecords(totalRecords)
             .totalPages(totalPages)
-            .firstPage(Optional.ofNullable(firstPage))
-            .previousPage(Optional.ofNullable(previousPage))
-            .thisPage(Optional.ofNullable(thisPage))
-            .nextPage(Optional.ofNullable(nextPage))
-            .lastPage(Optional.ofNullable(lastPage))
-            .firstPageUrl(Optional.ofNullable(firstPage == null ? null : url + firstPage))
-            .previousPageUrl(Optional.ofNullable(previousPage == null ? null : url + previousPage))
-            .thisPageUrl(Optional.ofNullable(thisPage == null ? null : url + thisPage))
-            .nextPageUrl(Optional.ofNullable(nextPage == null ? null : url + nextPage))
-            .lastPageUrl(Optional.ofNullable(firstPage == null ? null : url + lastPage))
+            .firstPageNumber(firstPage == null ? 0 : firstPage)
+            .previousPageNumber(previousPage == null ? 0 : previousPage)
+            .thisPageNumber(thisPage == null ? 0 : thisPage)
+            .nextPageNumber(nextPage == null ? 0 : nextPage)
+            .lastPageNumber(lastPage == null ? 0 : lastPage)
             .build();
     var request = new MockHttpServletRequest();
     request.addParameter("name:contains", requestName);
@@ -453,6 +982,21 @@ class VulcanTest {
     request.setRequestURI("/fugazi");
     var result = vulcan.search(request);
     assertThat(result.paging()).isEqualTo(expectedPaging);
+    assertThat(result.paging().firstPage()).isEqualTo(Optional.ofNullable(firstPage));
+    assertThat(result.paging().previousPage()).isEqualTo(Optional.ofNullable(previousPage));
+    assertThat(result.paging().thisPage()).isEqualTo(Optional.ofNullable(thisPage));
+    assertThat(result.paging().nextPage()).isEqualTo(Optional.ofNullable(nextPage));
+    assertThat(result.paging().lastPage()).isEqualTo(Optional.ofNullable(lastPage));
+    assertThat(result.paging().firstPageUrl())
+        .isEqualTo(Optional.ofNullable(firstPage == null ? null : url + firstPage));
+    assertThat(result.paging().previousPageUrl())
+        .isEqualTo(Optional.ofNullable(previousPage == null ? null : url + previousPage));
+    assertThat(result.paging().thisPageUrl())
+        .isEqualTo(Optional.ofNullable(thisPage == null ? null : url + thisPage));
+    assertThat(result.paging().nextPageUrl())
+        .isEqualTo(Optional.ofNullable(nextPage == null ? null : url + nextPage));
+    assertThat(result.paging().lastPageUrl())
+        .isEqualTo(Optional.ofNullable(lastPage == null ? null : url + lastPage));
   }
 
   @SneakyThrows
@@ -466,6 +1010,193 @@ class VulcanTest {
     return mapper.readValue(json, new TypeReference<>() {});
   }
 
+  @Test
+  void serializedPagesAreCachedPerSerializer() {
+    var pageCache = OffHeapPageCache.builder().maxBytes(1 << 20).build();
+    var vulcan = _vulcanWithEntityManagerBuilder(paging -> paging).pageCache(pageCache).build();
+    PageSerializer<FugaziEntity> names =
+        (paging, entities) ->
+            entities.stream()
+                .map(FugaziEntity::name)
+                .collect(joining(","))
+                .getBytes(StandardCharsets.UTF_8);
+    PageSerializer<FugaziEntity> count =
+        (paging, entities) ->
+            String.valueOf(paging.totalRecords()).getBytes(StandardCharsets.UTF_8);
+    var request = new MockHttpServletRequest();
+    request.addParameter("name:contains", "a");
+    request.setRequestURI("/fugazi");
+    assertThat(StandardCharsets.UTF_8.decode(vulcan.searchSerialized(request, names)).toString())
+        .isEqualTo("nachos2005,moreNachos2005,tacos2005");
+    var cached = vulcan.searchSerialized(request, names);
+    assertThat(cached.isReadOnly()).isTrue();
+    assertThat(StandardCharsets.UTF_8.decode(cached).toString())
+        .isEqualTo("nachos2005,moreNachos2005,tacos2005");
+    assertThat(StandardCharsets.UTF_8.decode(vulcan.searchSerialized(request, count)).toString())
+        .isEqualTo("6");
+    assertThat(metrics.pageCacheHits()).isEqualTo(1);
+    assertThat(metrics.pageCacheMisses()).isEqualTo(2);
+  }
+
+  @Test
+  void snapshotPagesStayConsistentWhileRecordsChange() {
+    var vulcan =
+        _vulcanWithEntityManagerBuilder(paging -> paging)
+            .snapshots(SearchSnapshots.builder().maxEntries(10).maxIdsPerSnapshot(100).build())
+            .build();
+    var request = new MockHttpServletRequest();
+    request.addParameter("name:contains", "a");
+    request.addParameter("count", "2");
+    request.setRequestURI("/fugazi");
+    var firstPage = vulcan.search(request);
+    assertThat(firstPage.entities().map(FugaziEntity::name))
+        .containsExactly("nachos2005", "moreNachos2005");
+    entityManager
+        .createQuery("select f from FugaziEntity f where f.name = 'nachos2005'", FugaziEntity.class)
+        .getResultList()
+        .forEach(entityManager::remove);
+    request.setParameter("page", "2");
+    var secondPage = vulcan.search(request);
+    assertThat(secondPage.paging().totalRecords()).isEqualTo(6);
+    assertThat(secondPage.entities().map(FugaziEntity::name))
+        .containsExactly("tacos2005", "tacos2006");
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void queryHintsAreSetOnCountAndFetchQueries() {
+    List<TypedQuery<?>> created = new ArrayList<>();
+    EntityManager recording = mock(EntityManager.class, delegatesTo(entityManager));
+    doAnswer(
+            invocation -> {
+              var query = entityManager.createQuery((CriteriaQuery<?>) invocation.getArgument(0));
+              TypedQuery<?> wrapped = mock(TypedQuery.class, delegatesTo(query));
+              created.add(wrapped);
+              return wrapped;
+            })
+        .when(recording)
+        .createQuery(any(CriteriaQuery.class));
+    var queries =
+        EntityQueries.of(recording, FugaziEntity.class)
+            .withStatementTimeout(Duration.ofSeconds(2));
+    assertThat(queries.count(null, Duration.ofSeconds(1))).isEqualTo(7);
+    assertThat(queries.fetch(null, Sort.by("id"), 0, 3).records()).hasSize(3);
+    assertThat(
+            queries.withMaxPageBytes(Long.MAX_VALUE).fetch(null, Sort.by("id"), 0, 7).records())
+        .hasSize(7);
+    assertThat(created).hasSize(3);
+    verify(created.get(0)).setHint(EntityQueries.QUERY_TIMEOUT_HINT, 1000);
+    verify(created.get(1)).setHint(EntityQueries.QUERY_TIMEOUT_HINT, 2000);
+    verify(created.get(1), never()).setHint(eq(EntityQueries.FETCH_SIZE_HINT), any());
+    verify(created.get(2)).setHint(EntityQueries.QUERY_TIMEOUT_HINT, 2000);
+    verify(created.get(2))
+        .setHint(EntityQueries.FETCH_SIZE_HINT, EntityQueries.STREAMING_FETCH_SIZE);
+  }
+
+  @Test
+  void statementsWithinTheTimeoutAreNotCancelled() {
+    var vulcan =
+        _vulcanWithEntityManagerBuilder(paging -> paging.statementTimeout(Duration.ofSeconds(5)))
+            .statementCanceller(StatementCanceller.builder().build())
+            .build();
+    var request = new MockHttpServletRequest();
+    request.addParameter("name:contains", "a");
+    request.addParameter("count", "2");
+    request.setRequestURI("/fugazi");
+    var result = vulcan.search(request);
+    assertThat(result.paging().totalRecords()).isEqualTo(6);
+    assertThat(result.entities()).hasSize(2);
+    assertThat(metrics.statementsCancelled()).isZero();
+    assertThat(metrics.statementsTimedOut()).isZero();
+    assertThat(metrics.snapshot())
+        .containsEntry("vulcan.statements.cancelled", 0L)
+        .containsEntry("vulcan.statements.timed.out", 0L);
+  }
+
+  @Test
+  void totalAccurateIsDefault() {
+    var request = new MockHttpServletRequest();
+    request.addParameter("name:contains", "a");
+    request.addParameter("count", "2");
+    request.setRequestURI("/fugazi");
+    var result = _vulcanWithEntityManager().search(request);
+    assertThat(result.paging().totalMode()).isEqualTo(TotalMode.ACCURATE);
+    assertThat(result.paging().totalRecords()).isEqualTo(6);
+    assertThat(result.paging().lastPage()).contains(3);
+  }
+
+  @Test
+  void totalEstimateExplainsTheRenderedSql() {
+    List<String> explained = new ArrayList<>();
+    ExplainCountEstimator.ExplainStrategy strategy =
+        new ExplainCountEstimator.ExplainStrategy() {
+          @Override
+          public Long estimatedRows(ResultSet plan) {
+            return 42L;
+          }
+
+          @Override
+          public String explain(String sql) {
+            explained.add(sql);
+            return "EXPLAIN " + sql;
+          }
+        };
+    var estimator =
+        ExplainCountEstimator.<FugaziEntity>builder()
+            .entityManager(entityManager)
+            .strategy(strategy)
+            .sqlRenderer(HibernateSqlRenderer.of(entityManager))
+            .build();
+    var request = new MockHttpServletRequest();
+    request.addParameter("name:contains", "a");
+    request.setRequestURI("/fugazi");
+    var context =
+        RequestContext.forConfig(_vulcanWithEntityManager().config()).request(request).build();
+    assertThat(estimator.estimate(context)).isEqualTo(42);
+    assertThat(explained).hasSize(1);
+    assertThat(explained.get(0)).startsWith("select").doesNotContainIgnoringCase("analyze");
+  }
+
+  @Test
+  void totalEstimateUsesEstimator() {
+    var request = new MockHttpServletRequest();
+    request.addParameter("name:contains", "a");
+    request.addParameter("count", "2");
+    request.addParameter("_total", "estimate");
+    request.setRequestURI("/fugazi");
+    var result = _vulcanWithEntityManager().search(request);
+    assertThat(result.paging().totalMode()).isEqualTo(TotalMode.ESTIMATE);
+    assertThat(result.paging().totalRecords()).isGreaterThanOrEqualTo(3);
+    assertThat(result.paging().nextPage()).contains(2);
+    assertThat(result.entities()).hasSize(2);
+    request.setParameter("count", "0");
+    var countOnly = _vulcanWithEntityManager().search(request);
+    assertThat(countOnly.paging().totalMode()).isEqualTo(TotalMode.ESTIMATE);
+    assertThat(countOnly.paging().totalRecords()).isGreaterThanOrEqualTo(1);
+  }
+
+  @Test
+  void totalNoneSkipsCount() {
+    var request = new MockHttpServletRequest();
+    request.addParameter("name:contains", "a");
+    request.addParameter("count", "2");
+    request.addParameter("_total", "none");
+    request.setRequestURI("/fugazi");
+    var result = _vulcanWithEntityManager().search(request);
+    assertThat(result.paging().totalMode()).isEqualTo(TotalMode.NONE);
+    assertThat(result.paging().totalRecords()).isEqualTo(3);
+    assertThat(result.paging().nextPage()).contains(2);
+    assertThat(result.paging().lastPage()).isEmpty();
+    assertThat(result.paging().nextPageUrl())
+        .contains("http://localhost/fugazi?name:contains=a&_total=none&count=2&page=2");
+    assertThat(result.entities()).hasSize(2);
+    request.setParameter("page", "3");
+    var lastPage = _vulcanWithEntityManager().search(request);
+    assertThat(lastPage.paging().totalMode()).isEqualTo(TotalMode.ACCURATE);
+    assertThat(lastPage.paging().totalRecords()).isEqualTo(6);
+    assertThat(lastPage.paging().nextPage()).isEmpty();
+  }
+
   @Test
   void unknownParametersAreRemovedFromLinks() {
     var vulcan =
@@ -493,4 +1224,38 @@ class VulcanTest {
     assertThat(result.paging().thisPageUrl().orElse(null))
         .isEqualTo("http://localhost/fugazi?name:contains=a&count=3&page=1");
   }
+
+  @Test
+  void pageUrlsDoNotDependOnTheRequestAfterTheSearch() {
+    var request = new MockHttpServletRequest();
+    request.addParameter("name:contains", "a");
+    request.setRequestURI("/fugazi");
+    var paging = _vulcanWithEntityManager().search(request).paging();
+    request.setRequestURI("/recycled");
+    request.removeAllParameters();
+    assertThat(paging.nextPageUrl())
+        .contains("http://localhost/fugazi?name:contains=a&count=3&page=2");
+  }
+
+  @Test
+  void warmUpReplaysRecordedAndSyntheticRequests() {
+    var totals = TotalsCache.builder().maxEntries(10).build();
+    var vulcan = _vulcanWithEntityManagerBuilder(paging -> paging).totalsCache(totals).build();
+    var warmUp =
+        VulcanWarmUp.builder()
+            .parameterMap(Map.of("name:contains", new String[] {"a"}))
+            .syntheticParameters(true)
+            .build();
+    assertThat(warmUp.warmUp(vulcan)).isEqualTo(4);
+    var request = new MockHttpServletRequest();
+    request.addParameter("name:contains", "a");
+    assertThat(totals.get(SearchFingerprint.of(vulcan.config(), request))).isNull();
+    var prepareOnly =
+        VulcanWarmUp.builder()
+            .parameterMap(Map.of("name", new String[] {"tacos"}))
+            .mode(VulcanWarmUp.Mode.NO_EXECUTE)
+            .iterations(2)
+            .build();
+    assertThat(prepareOnly.warmUp(_vulcanWithEntityManager())).isEqualTo(2);
+  }
 }
@@ -0,0 +1,112 @@
+package gov.va.api.lighthouse.vulcan;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class WarmCacheFileTest {
+  static final Instant NOW = Instant.parse("2005-01-21T07:57:00Z");
+
+  @TempDir Path directory;
+
+  Clock clock = mock(Clock.class);
+
+  SearchFingerprint tacos = new SearchFingerprint("Foo", "name=tacos");
+
+  SearchFingerprint nachos = new SearchFingerprint("Foo", "name=nachos");
+
+  SearchFingerprint burritos = new SearchFingerprint("Bar", "name=burritos");
+
+  private TotalsCache totals() {
+    return TotalsCache.builder()
+        .maxEntries(10)
+        .timeToLive(Duration.ofMinutes(10))
+        .clock(clock)
+        .build();
+  }
+
+  @Test
+  void entriesAreRestoredUntilTheyExpire() throws Exception {
+    when(clock.instant()).thenReturn(NOW);
+    var totals = totals();
+    totals.put(tacos, 4);
+    var emptyResults = EmptyResultsCache.builder().maxEntries(10).clock(clock).build();
+    emptyResults.put(burritos);
+    var path = directory.resolve("vulcan.cache");
+    assertThat(
+            WarmCacheFile.builder()
+                .path(path)
+                .totals(totals)
+                .emptyResults(emptyResults)
+                .clock(clock)
+                .build()
+                .save())
+        .isEqualTo(2);
+    when(clock.instant()).thenReturn(NOW.plus(Duration.ofMinutes(5)));
+    var restoredTotals = totals();
+    var restoredEmptyResults = EmptyResultsCache.builder().maxEntries(10).clock(clock).build();
+    var file =
+        WarmCacheFile.builder()
+            .path(path)
+            .totals(restoredTotals)
+            .emptyResults(restoredEmptyResults)
+            .clock(clock)
+            .build();
+    assertThat(file.load()).isEqualTo(2);
+    assertThat(restoredTotals.get(tacos)).isEqualTo(4);
+    assertThat(restoredEmptyResults.contains(burritos)).isTrue();
+    when(clock.instant()).thenReturn(NOW.plus(Duration.ofMinutes(10)));
+    assertThat(restoredTotals.get(tacos)).isNull();
+    assertThat(WarmCacheFile.builder().path(path).totals(totals()).clock(clock).build().load())
+        .isZero();
+  }
+
+  @Test
+  void entriesOfChangedEntityTypesAreNotRestored() throws Exception {
+    when(clock.instant()).thenReturn(NOW);
+    var totals = totals();
+    totals.put(tacos, 4);
+    totals.put(burritos, 1);
+    var path = directory.resolve("vulcan.cache");
+    WarmCacheFile.builder()
+        .path(path)
+        .totals(totals)
+        .versionStamps(Map.of("Foo", 1L, "Bar", 1L)::get)
+        .clock(clock)
+        .build()
+        .save();
+    var restored = totals();
+    var file =
+        WarmCacheFile.builder()
+            .path(path)
+            .totals(restored)
+            .versionStamps(Map.of("Foo", 1L, "Bar", 2L)::get)
+            .clock(clock)
+            .build();
+    assertThat(file.load()).isEqualTo(1);
+    assertThat(restored.get(tacos)).isEqualTo(4);
+    assertThat(restored.get(burritos)).isNull();
+    assertThat(restored.get(nachos)).isNull();
+  }
+
+  @Test
+  void missingAndCorruptFilesAreIgnored() throws Exception {
+    when(clock.instant()).thenReturn(NOW);
+    var path = directory.resolve("vulcan.cache");
+    var file = WarmCacheFile.builder().path(path).totals(totals()).clock(clock).build();
+    assertThat(file.load()).isZero();
+    Files.write(path, new byte[] {1, 2, 3});
+    assertThat(file.load()).isZero();
+    Files.write(path, new byte[] {0x56, 0x55, 0x4c, 0x43, 1, 0, 0, 0, 1, 'T', 0x7f});
+    assertThat(file.load()).isZero();
+  }
+}
@@ -3,9 +3,15 @@ package gov.va.api.lighthouse.vulcan.mappings;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.junit.jupiter.params.provider.Arguments.arguments;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import gov.va.api.lighthouse.vulcan.CircuitBreaker;
 import gov.va.api.lighthouse.vulcan.InvalidRequest;
 import gov.va.api.lighthouse.vulcan.fugazi.FugaziEntity;
 import gov.va.api.lighthouse.vulcan.mappings.DateMapping.DateFidelity;
@@ -21,10 +27,15 @@ import java.time.ZonedDateTime;
 import java.util.Map;
 import java.util.function.Function;
 import java.util.stream.Stream;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Root;
 import javax.servlet.http.HttpServletRequest;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.junit.jupiter.params.provider.NullAndEmptySource;
 import org.junit.jupiter.params.provider.ValueSource;
@@ -192,6 +203,62 @@ class DateMappingTest {
         .isThrownBy(() -> new SearchableDate("x", parameterValue));
   }
 
+  private DateMapping<FugaziEntity, Long> dateMapping() {
+    return DateMapping.<FugaziEntity, Long>builder()
+        .parameterName("date")
+        .fieldName("x")
+        .predicates((date, field, cb) -> null)
+        .build();
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  void specificationForMergesBoundsIntoSingleRange() {
+    var r = mock(HttpServletRequest.class);
+    when(r.getParameterValues("date")).thenReturn(new String[] {"ge2005", "le2006"});
+    Root<FugaziEntity> root = mock(Root.class);
+    Path<Object> field = mock(Path.class);
+    when(root.get("x")).thenReturn(field);
+    CriteriaBuilder cb = mock(CriteriaBuilder.class);
+    DateMapping.<FugaziEntity, Long>builder()
+        .parameterName("date")
+        .fieldName("x")
+        .predicates(new DateMapping.LongPredicateFactory(null))
+        .build()
+        .specificationFor(r)
+        .toPredicate(root, null, cb);
+    verify(cb)
+        .between(
+            (Expression<Long>) any(Expression.class),
+            eq(offset.apply("2005-01-01T00:00:00").toEpochMilli()),
+            eq(offset.apply("2007-01-01T00:00:00").toEpochMilli() - 1));
+    verify(cb, never()).greaterThanOrEqualTo((Expression<Long>) any(Expression.class), anyLong());
+    verify(cb, never()).lessThanOrEqualTo((Expression<Long>) any(Expression.class), anyLong());
+  }
+
+  @ParameterizedTest
+  @CsvSource({
+    "ge2005,le2005",
+    "gt2005,lt2007",
+    "eq2005-06,ge2005",
+    "ne2005,eq2005",
+    "ap2005,eq2010"
+  })
+  void specificationForNonEmptyDateRanges(String first, String second) {
+    var r = mock(HttpServletRequest.class);
+    when(r.getParameterValues("date")).thenReturn(new String[] {first, second});
+    assertThat(dateMapping().specificationFor(r)).isNotNull();
+  }
+
+  @ParameterizedTest
+  @CsvSource({"gt2022,lt2010", "eq2005,eq2006", "gt2005,le2005", "lt2005,ge2005", "sa2005,eb2006"})
+  void specificationForThrowsCircuitBreakerForEmptyDateRanges(String first, String second) {
+    var r = mock(HttpServletRequest.class);
+    when(r.getParameterValues("date")).thenReturn(new String[] {first, second});
+    assertThatExceptionOfType(CircuitBreaker.class)
+        .isThrownBy(() -> dateMapping().specificationFor(r));
+  }
+
   @Test
   void specificationForThrowsExceptionIfParameterIsRepeatedMoreThanTwice() {
     var r = mock(HttpServletRequest.class);
@@ -0,0 +1,120 @@
+package gov.va.api.lighthouse.vulcan.mappings;
+
+import static java.util.stream.Collectors.joining;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class SearchParamProcessorTest {
+  @TempDir Path directory;
+
+  DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+
+  private boolean compile(String source) throws Exception {
+    Path file = directory.resolve("src/com/example/FooEntity.java");
+    Files.createDirectories(file.getParent());
+    Files.writeString(file, source);
+    Files.createDirectories(directory.resolve("classes"));
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    try (StandardJavaFileManager files = compiler.getStandardFileManager(null, null, null)) {
+      return compiler
+          .getTask(
+              null,
+              files,
+              diagnostics,
+              List.of(
+                  "-classpath",
+                  System.getProperty("java.class.path"),
+                  "-processor",
+                  SearchParamProcessor.class.getName(),
+                  "-s",
+                  directory.resolve("src").toString(),
+                  "-d",
+                  directory.resolve("classes").toString()),
+              null,
+              files.getJavaFileObjects(file))
+          .call();
+    }
+  }
+
+  @Test
+  void constantNames() {
+    assertThat(SearchParamProcessor.constantNameOf("name")).isEqualTo("NAME");
+    assertThat(SearchParamProcessor.constantNameOf("_id")).isEqualTo("_ID");
+    assertThat(SearchParamProcessor.constantNameOf("birthDate")).isEqualTo("BIRTH_DATE");
+    assertThat(SearchParamProcessor.constantNameOf("general-practitioner"))
+        .isEqualTo("GENERAL_PRACTITIONER");
+    assertThat(SearchParamProcessor.constantNameOf("1st")).isEqualTo("_1ST");
+  }
+
+  private String errors() {
+    return diagnostics.getDiagnostics().stream()
+        .filter(d -> d.getKind() == Diagnostic.Kind.ERROR)
+        .map(d -> d.getMessage(null))
+        .collect(joining("\n"));
+  }
+
+  @Test
+  void invalidSearchParamsAreCompilerErrors() throws Exception {
+    assertThat(
+            compile(
+                "package com.example;\n"
+                    + "import gov.va.api.lighthouse.vulcan.mappings.SearchParam;\n"
+                    + "public class FooEntity {\n"
+                    + "  @SearchParam(type = SearchParam.Type.DATE) String date;\n"
+                    + "  @SearchParam(type = SearchParam.Type.REFERENCE) String patient;\n"
+                    + "  @SearchParam(type = SearchParam.Type.STRING, name = \"date\") String x;\n"
+                    + "}\n"))
+        .isFalse();
+    assertThat(errors())
+        .contains("DATE search parameters require an Instant or long field")
+        .contains("REFERENCE search parameters require resourceTypes")
+        .contains("Search parameter date is declared more than once");
+    assertThat(directory.resolve("src/com/example/FooEntitySearchMappings.java")).doesNotExist();
+  }
+
+  @Test
+  void mappingsAreGeneratedForAnnotatedFields() throws Exception {
+    assertThat(
+            compile(
+                "package com.example;\n"
+                    + "import gov.va.api.lighthouse.vulcan.mappings.SearchParam;\n"
+                    + "import gov.va.api.lighthouse.vulcan.mappings.SearchParam.Type;\n"
+                    + "import java.time.Instant;\n"
+                    + "public class FooEntity {\n"
+                    + "  @SearchParam(type = Type.STRING) String name;\n"
+                    + "  @SearchParam(type = Type.DATE, name = \"date\") Instant when;\n"
+                    + "  @SearchParam(type = Type.DATE) long millis;\n"
+                    + "  @SearchParam(type = Type.TOKEN, systems = \"http://food\") String food;\n"
+                    + "  @SearchParam(type = Type.REFERENCE, resourceTypes = {\"Patient\"})\n"
+                    + "  String patient;\n"
+                    + "  @SearchParam(type = Type.VALUE, name = \"_id\") String id;\n"
+                    + "  String notSearchable;\n"
+                    + "}\n"))
+        .as(errors())
+        .isTrue();
+    String generated =
+        Files.readString(directory.resolve("src/com/example/FooEntitySearchMappings.java"));
+    assertThat(generated)
+        .contains("public final class FooEntitySearchMappings")
+        .contains("public static final String _ID = \"_id\";")
+        .contains(".string(NAME, \"name\")")
+        .contains(".dateAsInstant(DATE, \"when\")")
+        .contains(".dateAsLongMilliseconds(MILLIS, \"millis\")")
+        .contains(".token(FOOD, \"food\", \"http://food\")")
+        .contains(".reference(PATIENT, \"patient\", PATIENT_TYPES, \"Patient\",")
+        .contains(".value(_ID, \"id\");")
+        .doesNotContain("notSearchable");
+    assertThat(directory.resolve("classes/com/example/FooEntitySearchMappings.class")).exists();
+  }
+}